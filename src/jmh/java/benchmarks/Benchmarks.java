@@ -0,0 +1,74 @@
+package benchmarks;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Inputs shared by the benchmarks
+ *
+ */
+public class Benchmarks {
+
+    /**
+     * Random geometric graph: vertices on a line linked to near vertices, which has perfect locality, with its ids
+     * then shuffled
+     * @param n
+     * @param degree the number of out edges of every vertex
+     * @param seed
+     * @return an undirected graph
+     */
+    public static CompactGraph shuffledGeometricGraph(int n, int degree, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] ids = new int[n];
+
+        for(int i = 0; i < n; i++) ids[i] = i;
+
+        for(int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        long[] edges = new long[2 * n * degree];
+        int m = 0;
+
+        for(int i = 0; i < n; i++) {
+            for(int d = 0; d < degree; d++) {
+                int j = Math.floorMod(i + random.nextInt(-64, 65), n);
+
+                if(j == i) continue;
+
+                edges[m++] = ((long) ids[i] << 32) | ids[j];
+                edges[m++] = ((long) ids[j] << 32) | ids[i];
+            }
+        }
+
+        edges = Arrays.copyOf(edges, m);
+        Arrays.parallelSort(edges);
+
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        int size = 0;
+
+        for(int i = 0; i < m; i++) {
+            //Drops parallel edges
+            if(i > 0 && edges[i] == edges[i - 1]) continue;
+
+            offsets[(int) (edges[i] >>> 32) + 1]++;
+            targets[size] = (int) edges[i];
+            weights[size++] = Math.floor(random.nextDouble() * 100) / 100;
+        }
+
+        for(int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+
+        String[] labels = new String[n];
+
+        for(int v = 0; v < n; v++) labels[v] = String.valueOf(v);
+
+        return new CompactGraph(labels, offsets, Arrays.copyOf(targets, size), Arrays.copyOf(weights, size), false);
+    }
+}
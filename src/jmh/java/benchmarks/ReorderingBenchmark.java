@@ -0,0 +1,98 @@
+package benchmarks;
+
+import core.graph.CompactGraph;
+import core.reorder.Reordering;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breadth first traversals and neighbor sweeps on a graph with locality, once its ids are shuffled (as ids given in
+ * csv order are) and once reordered
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReorderingBenchmark {
+
+    @Param({"SHUFFLED", "DEGREE", "RCM", "COMMUNITY"})
+    public String order;
+
+    @Param({"1000000"})
+    public int vertices;
+
+    private CompactGraph graph;
+    private int[] queue;
+    private boolean[] visited;
+    private double[] values;
+    private double[] sums;
+
+    @Setup
+    public void setUp() {
+        CompactGraph shuffled = Benchmarks.shuffledGeometricGraph(vertices, 8, 42);
+
+        graph = order.equals("SHUFFLED") ? shuffled : Reordering.order(shuffled, Reordering.Orders.valueOf(order)).apply(shuffled);
+
+        queue = new int[vertices];
+        visited = new boolean[vertices];
+        values = new double[vertices];
+        sums = new double[vertices];
+
+        SplittableRandom random = new SplittableRandom(1);
+
+        for(int v = 0; v < vertices; v++) values[v] = random.nextDouble();
+    }
+
+    @Benchmark
+    public int breadthFirstSearch() {
+        Arrays.fill(visited, false);
+
+        int count = 0;
+
+        for(int start = 0; start < vertices; start++) {
+            if(visited[start]) continue;
+
+            visited[start] = true;
+            queue[count++] = start;
+
+            for(int head = count - 1; head < count; head++) {
+                int v = queue[head];
+
+                for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                    int w = graph.target(e);
+
+                    if(!visited[w]) {
+                        visited[w] = true;
+                        queue[count++] = w;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * The access pattern of a PageRank or label propagation iteration
+     */
+    @Benchmark
+    public double[] neighborSweep() {
+        for(int v = 0; v < vertices; v++) {
+            double sum = 0;
+
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                sum += graph.weight(e) * values[graph.target(e)];
+            }
+
+            sums[v] = sum;
+        }
+
+        return sums;
+    }
+}
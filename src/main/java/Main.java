@@ -21,6 +21,6 @@ public class Main {
 
         graph.show();
 
-        graph.generateLayout().display();
+        graph.generateLayout().display(false);
     }
 }
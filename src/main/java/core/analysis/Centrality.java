@@ -0,0 +1,271 @@
+package core.analysis;
+
+import core.distance.IndexedMinHeap;
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Centrality measures, every result being a double[] indexed by vertex id
+ * Work is spread over the vertices (PageRank) or the sources (betweenness) in parallel, buffers being allocated once
+ * per run and reused by every iteration.
+ *
+ */
+public class Centrality {
+    public static final double DEFAULT_DAMPING = 0.85;
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    /**
+     * PageRank with the default damping, tolerance and iterations
+     * @param graph
+     * @return the PageRank of every vertex id, summing to 1
+     */
+    public static double[] pageRank(CompactGraph graph) {
+        return pageRank(graph, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * Pull based PageRank: every vertex sums the contributions of its in neighbors, so vertices are updated in
+     * parallel without synchronization
+     * The rank of the vertices without out edges is spread over all the vertices.
+     * @param graph
+     * @param damping the probability to follow an edge rather than jump to a random vertex
+     * @param tolerance the L1 change between two iterations below which the ranks have converged
+     * @param maxIterations
+     * @return the PageRank of every vertex id, summing to 1
+     */
+    public static double[] pageRank(CompactGraph graph, double damping, double tolerance, int maxIterations) {
+        int n = graph.vertexCount();
+
+        if(n == 0) return new double[0];
+
+        //In edges, an undirected graph being its own transpose
+        CompactGraph in = graph.reverse();
+
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] contribution = new double[n];
+
+        Arrays.fill(rank, 1.0 / n);
+
+        for(int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] current = rank;
+
+            IntStream.range(0, n).parallel().forEach(v -> contribution[v] = graph.degree(v) == 0 ? 0 : current[v] / graph.degree(v));
+
+            double dangling = 0;
+
+            for(int v = 0; v < n; v++) {
+                if(graph.degree(v) == 0) dangling += rank[v];
+            }
+
+            double base = (1 - damping) / n + damping * dangling / n;
+            double[] updated = next;
+
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double sum = 0;
+
+                for(int e = in.firstEdge(v), end = in.firstEdge(v + 1); e < end; e++) {
+                    sum += contribution[in.target(e)];
+                }
+
+                updated[v] = base + damping * sum;
+            });
+
+            double change = 0;
+
+            for(int v = 0; v < n; v++) change += Math.abs(next[v] - rank[v]);
+
+            next = rank;
+            rank = updated;
+
+            if(change < tolerance) break;
+        }
+
+        return rank;
+    }
+
+    /**
+     * Degree centrality: the fraction of the other vertices a vertex is linked to, counting in and out edges of a
+     * directed graph
+     * @param graph
+     * @return the degree centrality of every vertex id
+     */
+    public static double[] degree(CompactGraph graph) {
+        int n = graph.vertexCount();
+        double[] centrality = new double[n];
+
+        if(n < 2) return centrality;
+
+        CompactGraph in = graph.isDirected() ? graph.reverse() : null;
+
+        for(int v = 0; v < n; v++) {
+            int degree = graph.degree(v) + (in == null ? 0 : in.degree(v));
+
+            centrality[v] = (double) degree / ((in == null ? 1 : 2) * (n - 1.0));
+        }
+
+        return centrality;
+    }
+
+    /**
+     * Betweenness estimated by Brandes' algorithm from a sample of sources, on weighted shortest paths
+     * Sources run in parallel, each thread reusing its own buffers and summing into its own array. The sum over the
+     * sample is scaled by n / samples, which makes the estimate unbiased; samples >= n gives the exact betweenness.
+     * @param graph a graph with non negative weights
+     * @param samples the number of sources
+     * @param seed
+     * @return the betweenness of every vertex id, each unordered pair counted once in undirected graphs
+     */
+    public static double[] betweenness(CompactGraph graph, int samples, long seed) {
+        int n = graph.vertexCount();
+        int[] sources = sources(n, samples, seed);
+
+        Queue<double[]> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Brandes> workspaces = ThreadLocal.withInitial(() -> {
+            Brandes brandes = new Brandes(graph);
+            partials.add(brandes.centrality);
+
+            return brandes;
+        });
+
+        IntStream.of(sources).parallel().forEach(src -> workspaces.get().accumulate(src));
+
+        double[] centrality = new double[n];
+        double scale = (double) n / Math.max(sources.length, 1) / (graph.isDirected() ? 1 : 2);
+
+        for(double[] partial: partials) {
+            for(int v = 0; v < n; v++) centrality[v] += partial[v];
+        }
+
+        for(int v = 0; v < n; v++) centrality[v] *= scale;
+
+        return centrality;
+    }
+
+    private static int[] sources(int n, int samples, long seed) {
+        if(samples >= n) {
+            int[] all = new int[n];
+
+            for(int v = 0; v < n; v++) all[v] = v;
+
+            return all;
+        }
+
+        //Partial Fisher-Yates shuffle
+        int[] ids = new int[n];
+
+        for(int v = 0; v < n; v++) ids[v] = v;
+
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for(int i = 0; i < samples; i++) {
+            int j = i + random.nextInt(n - i);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        return Arrays.copyOf(ids, samples);
+    }
+
+    /**
+     * Buffers of one thread, reset after every source in time proportional to the vertices reached
+     */
+    private static final class Brandes {
+        private final CompactGraph graph;
+        private final double[] centrality;
+        private final double[] distances;
+        private final double[] paths;
+        private final double[] dependencies;
+        private final int[] stack;
+        private final IndexedMinHeap heap;
+
+        /**
+         * Predecessors on shortest paths, as the edges reaching every vertex: a vertex may have as many as its in edges
+         */
+        private final int[] predecessorCounts;
+        private final int[] predecessors;
+        private final int[] predecessorOffsets;
+
+        private Brandes(CompactGraph graph) {
+            int n = graph.vertexCount();
+            CompactGraph in = graph.reverse();
+
+            this.graph = graph;
+            this.centrality = new double[n];
+            this.distances = new double[n];
+            this.paths = new double[n];
+            this.dependencies = new double[n];
+            this.stack = new int[n];
+            this.heap = new IndexedMinHeap(n);
+            this.predecessorCounts = new int[n];
+            this.predecessors = new int[graph.edgesCount()];
+            this.predecessorOffsets = new int[n + 1];
+
+            for(int v = 0; v < n; v++) predecessorOffsets[v + 1] = predecessorOffsets[v] + in.degree(v);
+
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        }
+
+        private void accumulate(int src) {
+            int settled = 0;
+
+            distances[src] = 0;
+            paths[src] = 1;
+            heap.offer(src, 0);
+
+            while(!heap.isEmpty()) {
+                int v = heap.poll();
+                stack[settled++] = v;
+
+                for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                    int w = graph.target(e);
+                    double distance = distances[v] + graph.weight(e);
+
+                    //Settled vertices are final, which also ignores zero weight edges going back
+                    if(distances[w] < distances[v] || (distances[w] == distances[v] && !heap.contains(w))) continue;
+
+                    if(distance < distances[w]) {
+                        distances[w] = distance;
+                        paths[w] = 0;
+                        predecessorCounts[w] = 0;
+                        heap.offer(w, distance);
+                    }
+
+                    if(distance == distances[w]) {
+                        paths[w] += paths[v];
+                        predecessors[predecessorOffsets[w] + predecessorCounts[w]++] = v;
+                    }
+                }
+            }
+
+            //Back propagation in order of decreasing distance
+            for(int i = settled - 1; i >= 0; i--) {
+                int w = stack[i];
+
+                for(int p = predecessorOffsets[w], end = p + predecessorCounts[w]; p < end; p++) {
+                    int v = predecessors[p];
+
+                    dependencies[v] += paths[v] / paths[w] * (1 + dependencies[w]);
+                }
+
+                if(w != src) centrality[w] += dependencies[w];
+            }
+
+            for(int i = 0; i < settled; i++) {
+                int v = stack[i];
+
+                distances[v] = Double.POSITIVE_INFINITY;
+                paths[v] = 0;
+                dependencies[v] = 0;
+                predecessorCounts[v] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package core.analysis;
+
+/**
+ * Triangles through every vertex with the clustering coefficients derived from them, exact or estimated
+ *
+ */
+public class TriangleCounts {
+    private final int[] degrees;
+    private final double[] triangles;
+    private final boolean exact;
+
+    TriangleCounts(int[] degrees, double[] triangles, boolean exact) {
+        this.degrees = degrees;
+        this.triangles = triangles;
+        this.exact = exact;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the number of triangles through v
+     */
+    public double triangles(int v) {
+        return triangles[v];
+    }
+
+    /**
+     *
+     * @return the number of triangles of the graph
+     */
+    public double total() {
+        double sum = 0;
+
+        for(double t: triangles) sum += t;
+
+        //Every triangle goes through three vertices
+        return sum / 3;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the fraction of the pairs of neighbors of v that are linked, 0 below two neighbors
+     */
+    public double localCoefficient(int v) {
+        long pairs = (long) degrees[v] * (degrees[v] - 1) / 2;
+
+        return pairs == 0 ? 0 : triangles[v] / pairs;
+    }
+
+    /**
+     *
+     * @return the local coefficient of every vertex id
+     */
+    public double[] getLocalCoefficients() {
+        double[] coefficients = new double[degrees.length];
+
+        for(int v = 0; v < degrees.length; v++) coefficients[v] = localCoefficient(v);
+
+        return coefficients;
+    }
+
+    /**
+     *
+     * @return the mean of the local coefficients (Watts-Strogatz), vertices of degree below two counting as 0
+     */
+    public double averageCoefficient() {
+        double sum = 0;
+
+        for(int v = 0; v < degrees.length; v++) sum += localCoefficient(v);
+
+        return degrees.length == 0 ? 0 : sum / degrees.length;
+    }
+
+    /**
+     *
+     * @return the transitivity: three times the triangles over the connected triples
+     */
+    public double globalCoefficient() {
+        double wedges = 0;
+        double closed = 0;
+
+        for(int v = 0; v < degrees.length; v++) {
+            wedges += (double) degrees[v] * (degrees[v] - 1) / 2;
+            closed += triangles[v];
+        }
+
+        return wedges == 0 ? 0 : closed / wedges;
+    }
+
+    /**
+     * Mean local coefficient of a group of vertices, e.g. the members of a cluster
+     * @param vertices
+     * @return the mean coefficient, 0 for no vertex
+     */
+    public double averageCoefficient(int[] vertices) {
+        double sum = 0;
+
+        for(int v: vertices) sum += localCoefficient(v);
+
+        return vertices.length == 0 ? 0 : sum / vertices.length;
+    }
+}
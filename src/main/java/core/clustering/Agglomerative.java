@@ -0,0 +1,419 @@
+package core.clustering;
+
+import core.graph.CompactGraph;
+import core.weighted.MinimumSpanningTree;
+import core.weighted.SpanningForest;
+import core.weighted.UnionFind;
+
+import java.util.Arrays;
+
+/**
+ * Agglomerative clustering over the edge weights, read as dissimilarities: repeatedly merges the two closest clusters
+ * until no linked clusters are left
+ * Uses the nearest neighbor chain, valid because the four linkages are reducible: follows nearest neighbors from any
+ * cluster until two clusters are each other's nearest and merges them. The distances between clusters are stored
+ * only for linked clusters, unlinked clusters being infinitely far, and updated with the Lance-Williams formulas,
+ * which runs in O(n^2) time and O(n + m) memory. Single linkage merges are the edges of the minimum spanning forest,
+ * which are read off it in O(m log n) instead.
+ *
+ */
+public class Agglomerative {
+
+    public enum Linkages {
+        /**
+         * Distance of the closest members, linked as soon as one edge joins them
+         */
+        SINGLE,
+        /**
+         * Mean distance over the pairs of members, infinite unless every pair is linked
+         */
+        AVERAGE,
+        /**
+         * Distance of the farthest members, infinite unless every pair is linked
+         */
+        COMPLETE,
+        /**
+         * Increase of the within cluster variance, the weights being read as squared distances
+         */
+        WARD
+    }
+
+    /**
+     * Builds the full dendrogram of a graph
+     * A directed graph is clustered as its undirected version, the distance of u-v being min(w(u, v), w(v, u)).
+     * Self loops are ignored.
+     * @param graph
+     * @param linkage
+     * @return the dendrogram
+     */
+    public static Dendrogram cluster(CompactGraph graph, Linkages linkage) {
+        if(linkage == Linkages.SINGLE) return singleLinkage(graph);
+
+        int n = graph.vertexCount();
+        DistanceRow[] rows = new DistanceRow[n];
+
+        for(int v = 0; v < n; v++) rows[v] = new DistanceRow(graph.degree(v));
+
+        for(int v = 0; v < n; v++) {
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int w = graph.target(e);
+
+                if(w == v) continue;
+
+                rows[v].putMin(w, graph.weight(e));
+                rows[w].putMin(v, graph.weight(e));
+            }
+        }
+
+        int[] sizes = new int[n];
+        boolean[] finished = new boolean[n];
+        Arrays.fill(sizes, 1);
+
+        int[] chain = new int[n];
+        int chainSize = 0;
+        int start = 0;
+
+        //Merges in the order they are found, the clusters of a merge being named by one of their vertices
+        int[] mergedA = new int[Math.max(0, n - 1)];
+        int[] mergedB = new int[mergedA.length];
+        double[] mergeHeights = new double[mergedA.length];
+        int merges = 0;
+
+        while(true) {
+            if(chainSize == 0) {
+                //A cluster is removed when merged or once it has no linked cluster left, never before start
+                while(start < n && (sizes[start] == 0 || finished[start])) start++;
+
+                if(start == n) break;
+
+                chain[chainSize++] = start;
+            }
+
+            int a = chain[chainSize - 1];
+            int previous = chainSize > 1 ? chain[chainSize - 2] : -1;
+            int b = rows[a].nearest(previous);
+
+            if(b < 0) {
+                //Only the bottom of the chain can have no neighbor
+                finished[a] = true;
+                chainSize--;
+                continue;
+            }
+
+            if(b != previous) {
+                chain[chainSize++] = b;
+                continue;
+            }
+
+            chainSize -= 2;
+
+            double height = rows[a].get(b);
+
+            mergedA[merges] = a;
+            mergedB[merges] = b;
+            mergeHeights[merges++] = height;
+
+            merge(rows, sizes, a, b, height, linkage);
+        }
+
+        return dendrogram(graph, mergedA, mergedB, mergeHeights, merges);
+    }
+
+    /**
+     * Every forest edge, lightest first, merges the two clusters containing its ends
+     */
+    private static Dendrogram singleLinkage(CompactGraph graph) {
+        SpanningForest forest = MinimumSpanningTree.boruvka(graph);
+        int m = forest.edgesCount();
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+
+        for(int i = 0; i < m; i++) {
+            sources[i] = forest.source(i);
+            targets[i] = forest.target(i);
+            weights[i] = forest.weight(i);
+        }
+
+        return dendrogram(graph, sources, targets, weights, m);
+    }
+
+    /**
+     * Merges cluster b into cluster a and updates the distances of their neighbors
+     */
+    private static void merge(DistanceRow[] rows, int[] sizes, int a, int b, double height, Linkages linkage) {
+        DistanceRow rowA = rows[a];
+        DistanceRow rowB = rows[b];
+        DistanceRow merged = new DistanceRow(rowA.size() + rowB.size());
+
+        rowA.remove(b);
+        rowB.remove(a);
+
+        for(int slot = 0; slot < rowA.capacity(); slot++) {
+            int k = rowA.key(slot);
+
+            if(k < 0) continue;
+
+            double distance = update(linkage, rowA.value(slot), rowB.get(k), height, sizes[a], sizes[b], sizes[k]);
+
+            rows[k].remove(a);
+
+            if(distance < Double.POSITIVE_INFINITY) {
+                merged.put(k, distance);
+                rows[k].put(a, distance);
+            }
+        }
+
+        for(int slot = 0; slot < rowB.capacity(); slot++) {
+            int k = rowB.key(slot);
+
+            if(k < 0) continue;
+
+            rows[k].remove(b);
+
+            //Linked to b only, the neighbors of a were updated above
+            if(rowA.contains(k)) continue;
+
+            double distance = update(linkage, Double.POSITIVE_INFINITY, rowB.value(slot), height, sizes[a], sizes[b], sizes[k]);
+
+            if(distance < Double.POSITIVE_INFINITY) {
+                merged.put(k, distance);
+                rows[k].put(a, distance);
+            }
+        }
+
+        rows[a] = merged;
+        rows[b] = null;
+        sizes[a] += sizes[b];
+        sizes[b] = 0;
+    }
+
+    /**
+     * Lance-Williams update of the distance from a cluster k to the merge of a and b
+     * @param da the distance from a to k, infinite if unlinked
+     * @param db the distance from b to k, infinite if unlinked
+     * @param dab the distance from a to b
+     * @return the distance from a + b to k, infinite if unlinked
+     */
+    private static double update(Linkages linkage, double da, double db, double dab, int na, int nb, int nk) {
+        switch (linkage) {
+            case SINGLE:
+                return Math.min(da, db);
+            case COMPLETE:
+                return Math.max(da, db);
+            case AVERAGE:
+                if(da == Double.POSITIVE_INFINITY || db == Double.POSITIVE_INFINITY) return Double.POSITIVE_INFINITY;
+
+                return (na * da + nb * db) / (na + nb);
+            case WARD:
+                if(da == Double.POSITIVE_INFINITY || db == Double.POSITIVE_INFINITY) return Double.POSITIVE_INFINITY;
+
+                return ((double) (na + nk) * da + (double) (nb + nk) * db - (double) nk * dab) / (na + nb + nk);
+            default:
+                throw new IllegalArgumentException("Unknown linkage");
+        }
+    }
+
+    /**
+     * Sorts the merges by height and names the clusters by dendrogram node
+     */
+    private static Dendrogram dendrogram(CompactGraph graph, int[] mergedA, int[] mergedB, double[] mergeHeights, int merges) {
+        int n = graph.vertexCount();
+        Integer[] order = new Integer[merges];
+
+        for(int i = 0; i < merges; i++) order[i] = i;
+
+        //Stable, merges of the same height keep the order they were found in
+        Arrays.sort(order, (i, j) -> Double.compare(mergeHeights[i], mergeHeights[j]));
+
+        UnionFind sets = new UnionFind(n);
+        int[] nodeOf = new int[n];
+        int[] sizeOf = new int[n];
+
+        for(int v = 0; v < n; v++) {
+            nodeOf[v] = v;
+            sizeOf[v] = 1;
+        }
+
+        int[] left = new int[merges];
+        int[] right = new int[merges];
+        double[] heights = new double[merges];
+        int[] sizes = new int[merges];
+
+        for(int i = 0; i < merges; i++) {
+            int rootA = sets.find(mergedA[order[i]]);
+            int rootB = sets.find(mergedB[order[i]]);
+
+            left[i] = nodeOf[rootA];
+            right[i] = nodeOf[rootB];
+            heights[i] = mergeHeights[order[i]];
+            sizes[i] = sizeOf[rootA] + sizeOf[rootB];
+
+            sets.union(rootA, rootB);
+
+            int root = sets.find(rootA);
+            nodeOf[root] = n + i;
+            sizeOf[root] = sizes[i];
+        }
+
+        return new Dendrogram(graph, left, right, heights, sizes);
+    }
+
+    /**
+     * Distances from one cluster to its linked clusters: an open addressing map from cluster to distance
+     * Removals shift the following entries back instead of leaving tombstones, so the table never fills up.
+     */
+    private static final class DistanceRow {
+        private static final int EMPTY = -1;
+
+        private int[] keys;
+        private double[] values;
+        private int bits;
+        private int size;
+
+        private DistanceRow(int expected) {
+            bits = 2;
+
+            while((1 << bits) < 2 * expected) bits++;
+
+            keys = new int[1 << bits];
+            values = new double[1 << bits];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private int slot(int key) {
+            return (key * 0x9E3779B9) >>> (32 - bits);
+        }
+
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int slot = slot(key);
+
+            while(keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+
+            return slot;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        private int key(int slot) {
+            return keys[slot];
+        }
+
+        private double value(int slot) {
+            return values[slot];
+        }
+
+        private boolean contains(int key) {
+            return keys[find(key)] == key;
+        }
+
+        /**
+         *
+         * @return the distance to the cluster, infinite if unlinked
+         */
+        private double get(int key) {
+            int slot = find(key);
+
+            return keys[slot] == key ? values[slot] : Double.POSITIVE_INFINITY;
+        }
+
+        private void put(int key, double value) {
+            int slot = find(key);
+
+            if(keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+
+            if(2 * (size + 1) > keys.length) {
+                grow();
+                slot = find(key);
+            }
+
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        private void putMin(int key, double value) {
+            int slot = find(key);
+
+            if(keys[slot] == key) {
+                values[slot] = Math.min(values[slot], value);
+            } else {
+                put(key, value);
+            }
+        }
+
+        private void remove(int key) {
+            int mask = keys.length - 1;
+            int hole = find(key);
+
+            if(keys[hole] != key) return;
+
+            //Moves back every following entry whose home slot is not between the hole and itself
+            for(int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                int home = slot(keys[slot]);
+
+                if(((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    keys[hole] = keys[slot];
+                    values[hole] = values[slot];
+                    hole = slot;
+                }
+            }
+
+            keys[hole] = EMPTY;
+            size--;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+
+            bits++;
+            keys = new int[1 << bits];
+            values = new double[1 << bits];
+            Arrays.fill(keys, EMPTY);
+
+            for(int slot = 0; slot < oldKeys.length; slot++) {
+                if(oldKeys[slot] == EMPTY) continue;
+
+                int free = find(oldKeys[slot]);
+                keys[free] = oldKeys[slot];
+                values[free] = oldValues[slot];
+            }
+        }
+
+        /**
+         * Nearest linked cluster, ties going to preferred and then to the lowest id so that the chain cannot cycle
+         * @param preferred the cluster below in the chain, -1 if none
+         * @return the nearest cluster, -1 if none is linked
+         */
+        private int nearest(int preferred) {
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+
+            for(int slot = 0; slot < keys.length; slot++) {
+                int key = keys[slot];
+
+                if(key == EMPTY) continue;
+
+                if(values[slot] < bestDistance || (values[slot] == bestDistance && key < best)) {
+                    best = key;
+                    bestDistance = values[slot];
+                }
+            }
+
+            if(preferred >= 0 && best != preferred && get(preferred) == bestDistance) return preferred;
+
+            return best;
+        }
+    }
+}
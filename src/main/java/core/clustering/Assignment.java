@@ -0,0 +1,178 @@
+package core.clustering;
+
+import core.distance.ShortestPaths;
+import core.graph.CompactGraph;
+import core.graph.Subgraph;
+import core.graph.components.Vertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Result of a clustering on a compact graph
+ * Stores the cluster of every vertex as an int, the centroid of every cluster and the members of every cluster
+ * grouped in one array
+ *
+ */
+public class Assignment {
+    private final CompactGraph graph;
+    private final int[] centroids;
+    private final int[] clusterOf;
+    private final float[] distances;
+
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    /**
+     *
+     * @param graph
+     * @param centroids the centroid vertex id of every cluster
+     * @param clusterOf the cluster of every vertex, -1 if the vertex is not assigned
+     * @param distances the distance of every vertex to its centroid, may be null
+     */
+    public Assignment(CompactGraph graph, int[] centroids, int[] clusterOf, float[] distances) {
+        this.graph = graph;
+        this.centroids = centroids;
+        this.clusterOf = clusterOf;
+        this.distances = distances;
+
+        int k = centroids.length;
+
+        //Counting sort of the vertices by cluster
+        memberOffsets = new int[k + 1];
+
+        for(int cluster: clusterOf) {
+            if(cluster >= 0) memberOffsets[cluster + 1]++;
+        }
+
+        for(int i = 0; i < k; i++) {
+            memberOffsets[i + 1] += memberOffsets[i];
+        }
+
+        members = new int[memberOffsets[k]];
+        int[] next = Arrays.copyOf(memberOffsets, k);
+
+        for(int v = 0; v < clusterOf.length; v++) {
+            if(clusterOf[v] >= 0) members[next[clusterOf[v]]++] = v;
+        }
+    }
+
+    /**
+     * Assigns every vertex to its closest centroid
+     * Vertices unreachable from every centroid are left unassigned
+     * @param graph
+     * @param centroids the centroid vertex ids
+     * @return the assignment
+     */
+    public static Assignment assign(CompactGraph graph, int[] centroids) {
+        float[] distances = new float[graph.vertexCount()];
+        int[] clusterOf = new int[graph.vertexCount()];
+
+        ShortestPaths.multiSourceDijkstra(graph, centroids, distances, clusterOf);
+
+        return new Assignment(graph, centroids, clusterOf, distances);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     *
+     * @return the number of clusters
+     */
+    public int clustersCount() {
+        return centroids.length;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the cluster of v, -1 if unassigned
+     */
+    public int clusterOf(int v) {
+        return clusterOf[v];
+    }
+
+    /**
+     *
+     * @param cluster
+     * @return the centroid vertex id of the cluster
+     */
+    public int centroid(int cluster) {
+        return centroids[cluster];
+    }
+
+    /**
+     *
+     * @param v
+     * @return the distance from the centroid of its cluster to v, NaN if unknown
+     */
+    public double distanceToCentroid(int v) {
+        return distances == null ? Double.NaN : distances[v];
+    }
+
+    /**
+     *
+     * @param cluster
+     * @return the number of members of the cluster
+     */
+    public int size(int cluster) {
+        return memberOffsets[cluster + 1] - memberOffsets[cluster];
+    }
+
+    /**
+     *
+     * @param cluster
+     * @return the member vertex ids of the cluster, in increasing order
+     */
+    public int[] members(int cluster) {
+        return Arrays.copyOfRange(members, memberOffsets[cluster], memberOffsets[cluster + 1]);
+    }
+
+    /**
+     *
+     * @param cluster
+     * @return the subgraph induced by the members of the cluster
+     */
+    public Subgraph subgraph(int cluster) {
+        return Subgraph.induced(graph, members(cluster));
+    }
+
+    /**
+     *
+     * @return a copy of the centroid of every cluster
+     */
+    public int[] getCentroids() {
+        return centroids.clone();
+    }
+
+    /**
+     *
+     * @return a copy of the cluster of every vertex
+     */
+    public int[] getClusterOf() {
+        return clusterOf.clone();
+    }
+
+    /**
+     * Converts the assignment to cluster objects
+     * @return the clusters
+     */
+    public Cluster[] toClusters() {
+        Cluster[] clusters = new Cluster[centroids.length];
+
+        for(int i = 0; i < centroids.length; i++) {
+            ArrayList<Vertex> clusterMembers = new ArrayList<>(size(i));
+
+            for(int j = memberOffsets[i]; j < memberOffsets[i + 1]; j++) {
+                clusterMembers.add(new Vertex(graph.label(members[j])));
+            }
+
+            clusters[i] = new Cluster(new Vertex(graph.label(centroids[i])));
+            clusters[i].setMembers(clusterMembers);
+        }
+
+        return clusters;
+    }
+}
@@ -0,0 +1,263 @@
+package core.clustering;
+
+import core.distance.ShortestPaths;
+import core.graph.CompactGraph;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recomputes the centroid of every cluster as its medoid, i.e. the member with the highest closeness centrality
+ * inside the cluster
+ * Closeness is exact for clusters smaller than the sample size and estimated from sampleSize random members otherwise.
+ * Clusters are processed concurrently on a ForkJoinPool and the Dijkstra runs of a large cluster are split into
+ * subtasks, so one giant cluster does not serialize the update.
+ *
+ */
+public class CentroidUpdate {
+
+    /**
+     * Number of Dijkstra runs below which a task is not split
+     */
+    private static final int SOURCES_PER_TASK = 4;
+
+    private final CompactGraph graph;
+    private final CompactGraph reversed;
+    private final Assignment assignment;
+    private final int sampleSize;
+    private final long seed;
+
+    private final int[] clusterOf;
+
+    /**
+     * Index of every vertex among the members of its cluster
+     */
+    private final int[] localIndex;
+
+    private final ThreadLocal<float[]> distances;
+    private final ThreadLocal<int[]> reached;
+
+    /**
+     *
+     * @param assignment the current clusters
+     * @param sampleSize the number of Dijkstra runs used to estimate the closeness of a large cluster
+     * @param seed the seed of the member sampling
+     */
+    public CentroidUpdate(Assignment assignment, int sampleSize, long seed) {
+        this(assignment, assignment.getGraph().reverse(), sampleSize, seed);
+    }
+
+    /**
+     * Reuses the reversed graph, which does not change between the rounds of a clustering
+     * @param assignment the current clusters
+     * @param reversed the reverse of the graph of the assignment
+     * @param sampleSize the number of Dijkstra runs used to estimate the closeness of a large cluster
+     * @param seed the seed of the member sampling
+     */
+    public CentroidUpdate(Assignment assignment, CompactGraph reversed, int sampleSize, long seed) {
+        this.graph = assignment.getGraph();
+        this.reversed = reversed;
+        this.assignment = assignment;
+        this.sampleSize = Math.max(sampleSize, 1);
+        this.seed = seed;
+        this.clusterOf = assignment.getClusterOf();
+        this.localIndex = new int[graph.vertexCount()];
+
+        int largest = 0;
+
+        for(int c = 0; c < assignment.clustersCount(); c++) {
+            int[] members = assignment.members(c);
+
+            for(int i = 0; i < members.length; i++) {
+                localIndex[members[i]] = i;
+            }
+
+            largest = Math.max(largest, members.length);
+        }
+
+        int n = graph.vertexCount();
+        int capacity = largest;
+
+        this.distances = ThreadLocal.withInitial(() -> {
+            float[] dist = new float[n];
+            Arrays.fill(dist, Float.POSITIVE_INFINITY);
+
+            return dist;
+        });
+        this.reached = ThreadLocal.withInitial(() -> new int[capacity]);
+    }
+
+    /**
+     * Computes the new centroids
+     * @param pool the pool running the update
+     * @return the medoid of every cluster, or its current centroid if the cluster is empty
+     */
+    public int[] update(ForkJoinPool pool) {
+        int k = assignment.clustersCount();
+        int[] centroids = new int[k];
+
+        //Largest clusters first so that they start while the small ones fill the gaps
+        Integer[] order = new Integer[k];
+
+        for(int c = 0; c < k; c++) order[c] = c;
+
+        Arrays.sort(order, (a, b) -> Integer.compare(assignment.size(b), assignment.size(a)));
+
+        List<ClusterTask> tasks = new ArrayList<>(k);
+
+        for(int c: order) tasks.add(new ClusterTask(c, centroids));
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        return centroids;
+    }
+
+    /**
+     * Picks the sources of the closeness estimation
+     * @param cluster
+     * @param members
+     * @return all the members or sampleSize distinct random members
+     */
+    private int[] sources(int cluster, int[] members) {
+        if(members.length <= sampleSize) return members;
+
+        SplittableRandom random = new SplittableRandom(seed * 31 + cluster);
+        int[] pool = members.clone();
+
+        //Partial Fisher-Yates shuffle
+        for(int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(pool.length - i);
+            int tmp = pool[i];
+            pool[i] = pool[j];
+            pool[j] = tmp;
+        }
+
+        return Arrays.copyOf(pool, sampleSize);
+    }
+
+    /**
+     * Farness and reach of every member with respect to a range of sources
+     */
+    private final class Accumulator {
+        private final double[] farness;
+        private final int[] reach;
+
+        private Accumulator(int size) {
+            farness = new double[size];
+            reach = new int[size];
+        }
+
+        private void add(Accumulator other) {
+            for(int i = 0; i < farness.length; i++) {
+                farness[i] += other.farness[i];
+                reach[i] += other.reach[i];
+            }
+        }
+    }
+
+    private final class ClusterTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int cluster;
+        private final int[] centroids;
+
+        private ClusterTask(int cluster, int[] centroids) {
+            this.cluster = cluster;
+            this.centroids = centroids;
+        }
+
+        @Override
+        protected void compute() {
+            int[] members = assignment.members(cluster);
+
+            if(members.length == 0) {
+                centroids[cluster] = assignment.centroid(cluster);
+                return;
+            }
+
+            int[] sources = sources(cluster, members);
+
+            SourcesTask task = new SourcesTask(cluster, sources, 0, sources.length, members.length);
+            task.compute();
+
+            Accumulator accumulator = task.result;
+
+            //Wasserman-Faust closeness: reach^2 / farness handles members unreachable inside the cluster
+            int best = -1;
+            double bestScore = -1;
+
+            for(int i = 0; i < members.length; i++) {
+                double score = accumulator.farness[i] == 0 ? accumulator.reach[i] : (double) accumulator.reach[i] * accumulator.reach[i] / accumulator.farness[i];
+
+                if(score > bestScore) {
+                    bestScore = score;
+                    best = members[i];
+                }
+            }
+
+            centroids[cluster] = best;
+        }
+    }
+
+    private final class SourcesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int cluster;
+        private final int[] sources;
+        private final int from;
+        private final int to;
+        private final int size;
+
+        private Accumulator result;
+
+        private SourcesTask(int cluster, int[] sources, int from, int to, int size) {
+            this.cluster = cluster;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+
+                SourcesTask left = new SourcesTask(cluster, sources, from, middle, size);
+                SourcesTask right = new SourcesTask(cluster, sources, middle, to, size);
+
+                invokeAll(left, right);
+
+                left.result.add(right.result);
+                result = left.result;
+
+                return;
+            }
+
+            result = new Accumulator(size);
+
+            float[] dist = distances.get();
+            int[] reachedVertices = reached.get();
+
+            for(int i = from; i < to; i++) {
+                //Distances to the source on the reversed graph are the distances from every member to the source
+                int count = ShortestPaths.dijkstraWithin(reversed, sources[i], clusterOf, cluster, dist, reachedVertices);
+
+                for(int j = 0; j < count; j++) {
+                    int v = reachedVertices[j];
+
+                    result.farness[localIndex[v]] += dist[v];
+                    result.reach[localIndex[v]]++;
+                }
+
+                ShortestPaths.reset(dist, reachedVertices, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package core.clustering;
+
+import utils.exceptions.GraphException;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes checkpoints on a background thread so that the rounds of a clustering never wait for the disk
+ * Only the latest checkpoint matters: one submitted while the previous one is still being written replaces any
+ * checkpoint waiting behind it.
+ *
+ */
+public class CheckpointWriter implements AutoCloseable {
+    private final String file;
+    private final Thread thread;
+    private final Object lock = new Object();
+    private final AtomicReference<GraphException> failure = new AtomicReference<>();
+
+    private ClusteringCheckpoint pending;
+    private boolean closed;
+
+    /**
+     * Starts the writer thread
+     * @param file the checkpoint file, overwritten by every checkpoint
+     */
+    public CheckpointWriter(String file) {
+        this.file = file;
+        this.thread = new Thread(this::write, "checkpoint-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a checkpoint, returning immediately
+     * @param checkpoint
+     */
+    public void submit(ClusteringCheckpoint checkpoint) {
+        synchronized (lock) {
+            if(closed) throw new IllegalStateException("The writer is closed");
+
+            pending = checkpoint;
+            lock.notifyAll();
+        }
+    }
+
+    private void write() {
+        while(true) {
+            ClusteringCheckpoint checkpoint;
+
+            synchronized (lock) {
+                while(pending == null && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if(pending == null) return;
+
+                checkpoint = pending;
+                pending = null;
+            }
+
+            try {
+                checkpoint.write(file);
+            } catch (GraphException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the first failed write, null if every write succeeded so far
+     */
+    public GraphException getFailure() {
+        return failure.get();
+    }
+
+    /**
+     * Writes the last queued checkpoint and stops the thread
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
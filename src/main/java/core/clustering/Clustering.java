@@ -1,11 +1,15 @@
 package core.clustering;
 
+import core.graph.CompactGraph;
 import core.graph.Graph;
 import core.graph.components.Edge;
 import core.graph.components.Vertex;
+import core.weighted.MinimumSpanningTree;
 import utils.Logs;
 
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
 
 /**
  * Performs the clustering
@@ -20,16 +24,106 @@ public class Clustering {
      * Selects random centroids and convert them to clusters
      * Assign each vertex to its nearest cluster
      * Update the centroid of each cluster
+     * Repeats the last two steps until the centroids are stable (see {@link KMedoids})
      * @param graph
      * @param k
+     * @return the clusters
+     */
+    public static Cluster[] cluster_2(Graph graph, int k) {
+        return new KMedoids(CompactGraph.of(graph), k).run().toClusters();
+    }
+
+    /**
+     * Performs the clustering with the given seeding strategy
+     * @param graph
+     * @param k
+     * @param strategy
+     * @param seed the same seed always gives the same clusters
+     * @return the clusters
+     */
+    public static Cluster[] cluster_2(Graph graph, int k, Seeding.SeedingStrategies strategy, long seed) {
+        KMedoids kMedoids = new KMedoids(CompactGraph.of(graph), k);
+
+        kMedoids.setSeeding(strategy);
+        kMedoids.setSeed(seed);
+
+        return kMedoids.run().toClusters();
+    }
+
+    /**
+     * Performs a single linkage clustering: removes the k - 1 heaviest edges of the minimum spanning tree
+     * The graph must have at most k connected components
+     * @param graph
+     * @param k
+     * @return the clusters
+     */
+    public static Cluster[] cluster_mst(Graph graph, int k) {
+        CompactGraph compactGraph = CompactGraph.of(graph);
+
+        return toClusters(compactGraph, MinimumSpanningTree.boruvka(compactGraph).cluster(k));
+    }
+
+    /**
+     * Performs an agglomerative clustering and cuts its dendrogram into k clusters (see {@link Agglomerative})
+     * k must be at least the number of roots of the dendrogram. With single linkage this is the number of connected
+     * components, with the other linkages clusters having an unlinked pair of members are never merged, so it is
+     * usually more.
+     * @param graph
+     * @param k
+     * @param linkage
+     * @return the clusters
+     * @throws IllegalArgumentException if k is lower than the number of roots of the dendrogram
+     */
+    public static Cluster[] cluster_agglomerative(Graph graph, int k, Agglomerative.Linkages linkage) {
+        return Agglomerative.cluster(CompactGraph.of(graph), linkage).toClusters(k);
+    }
+
+    /**
+     * Converts a cluster per vertex into clusters, the centroid of a cluster being its member of highest degree
+     * @param graph
+     * @param clusterOf the cluster of every vertex id, numbered from 0
+     * @return the clusters
+     */
+    public static Cluster[] toClusters(CompactGraph graph, int[] clusterOf) {
+        return toClusters(clusterOf, graph::label, graph::degree);
+    }
+
+    /**
+     * Converts a cluster per vertex into clusters, for vertices held outside a compact graph
+     * @param clusterOf the cluster of every vertex id, numbered from 0
+     * @param label the label of a vertex id
+     * @param degree the degree of a vertex id, the member of highest degree being the centroid
+     * @return the clusters
      */
-    public static void cluster_2(Graph graph, int k) {
-        //Select k centroids (vertex objects)
-        Vertex[] centroids = selectCentroids(graph, k);
+    public static Cluster[] toClusters(int[] clusterOf, IntFunction<String> label, IntToLongFunction degree) {
+        int count = 0;
+
+        for(int c: clusterOf) count = Math.max(count, c + 1);
+
+        Cluster[] clusters = new Cluster[count];
+        int[] centroids = new int[count];
+        Arrays.fill(centroids, -1);
+
+        for(int v = 0; v < clusterOf.length; v++) {
+            int c = clusterOf[v];
+
+            if(c < 0) continue;
+
+            if(clusters[c] == null) {
+                clusters[c] = new Cluster();
+                clusters[c].setMembers(new ArrayList<>());
+            }
+
+            clusters[c].getMembers().add(new Vertex(label.apply(v)));
+
+            if(centroids[c] < 0 || degree.applyAsLong(v) > degree.applyAsLong(centroids[c])) centroids[c] = v;
+        }
 
-        //Create k clusters with those centroids
-        Cluster[] clusters = convertToClusters(centroids);
+        for(int c = 0; c < count; c++) {
+            clusters[c].setCentroid(new Vertex(label.apply(centroids[c])));
+        }
 
+        return clusters;
     }
 
     /**
@@ -38,19 +132,20 @@ public class Clustering {
      * @param graph
      */
     public static void assignVertexToCluster(Cluster[] clusters, Graph graph) {
-        Map<String, List<Edge>> vertexMap = graph.getVertexMap();
+        CompactGraph compactGraph = CompactGraph.of(graph);
 
-        for(Map.Entry<String, List<Edge>> entry: vertexMap.entrySet()) {
+        int[] centroids = new int[clusters.length];
 
-            for(Cluster cluster: clusters) {
+        for(int i = 0; i < clusters.length; i++) {
+            centroids[i] = compactGraph.id(clusters[i].getCentroid().getLabel());
 
-                Vertex centroid = cluster.getCentroid();
-
-                List<Edge> centroidEdges = vertexMap.get(centroid);
-                String currentVertex = entry.getKey();
+            if(centroids[i] < 0) throw new IllegalArgumentException("Unknown centroid " + clusters[i].getCentroid().getLabel());
+        }
 
+        Cluster[] assigned = Assignment.assign(compactGraph, centroids).toClusters();
 
-            }
+        for(int i = 0; i < clusters.length; i++) {
+            clusters[i].setMembers(assigned[i].getMembers());
         }
     }
 
@@ -77,36 +172,29 @@ public class Clustering {
      * @return the centroids
      */
     public static Vertex[] selectCentroids(Graph graph, int k) {
+        return selectCentroids(graph, k, Seeding.SeedingStrategies.UNIFORM, System.nanoTime());
+    }
 
+    /**
+     * Selects k centroids with the given strategy
+     * @param graph
+     * @param k
+     * @param strategy
+     * @param seed the same seed always gives the same centroids
+     * @return the centroids
+     */
+    public static Vertex[] selectCentroids(Graph graph, int k, Seeding.SeedingStrategies strategy, long seed) {
         Map<String, List<Edge>> vertexMap = graph.getVertexMap();
-        Random random = new Random();
-
-        Vertex[] centroids = new Vertex[k];
+        CompactGraph compactGraph = CompactGraph.of(graph);
 
-        //Extract labels from the graph
-        String[] keysArray = Arrays.asList(vertexMap.keySet().toArray()).toArray(new String[vertexMap.keySet().size()]);
+        int[] ids = Seeding.select(compactGraph, k, strategy, seed);
 
-        ArrayList<String> keys = new ArrayList<>(Arrays.asList(keysArray));
+        Vertex[] centroids = new Vertex[k];
 
         for(int i = 0; i < k; i++) {
+            String label = compactGraph.label(ids[i]);
 
-            int randomIndex = random.nextInt(keys.size());
-
-            String randomVertexLabel = keys.get(randomIndex);
-
-            keys.remove(randomIndex);
-
-            List<Edge> edges = vertexMap.get(randomVertexLabel);
-
-            Vertex centroid = null;
-
-            if(edges != null) {
-                centroid = new Vertex(randomVertexLabel, edges);
-            } else {
-                centroid = new Vertex(randomVertexLabel);
-            }
-
-            centroids[i] = centroid;
+            centroids[i] = new Vertex(label, vertexMap.get(label));
         }
 
         return centroids;
@@ -120,15 +208,14 @@ public class Clustering {
     public static void cluster(Graph graph, int k) {
         Map<String, List<Edge>> vertexMap = graph.getVertexMap();
 
-        Random random = new Random();
+        Vertex[] selected = selectCentroids(graph, k);
 
         String[] centroids = new String[k];
 
         Map<String, String[]> centroidsMap = new HashMap<>();
 
         for(int i = 0; i < k; i++) {
-            //Only selects a random vertex with a digit label (no letters)
-            String randomVertexLabel = String.valueOf(random.nextInt(vertexMap.size()));
+            String randomVertexLabel = selected[i].getLabel();
 
             centroids[i] = randomVertexLabel;
             centroidsMap.put(randomVertexLabel, new String[] {randomVertexLabel});
@@ -147,7 +234,7 @@ public class Clustering {
 
                 for(Edge edge: centroidEdges) {
                     //Check if current vertex has edge with current centroid
-                    if(currentVertex.contentEquals(edge.getDest().toString())) {
+                    if(currentVertex.contentEquals(edge.getDestLabel())) {
 
                         String[] currentVertexCluster = centroidsMap.get(currentVertex);
 
@@ -159,7 +246,7 @@ public class Clustering {
                             double currentVertexClusterWeight = 0;
 
                             for(Edge e: vertexMap.get(currentVertexCluster[0])) {
-                                if(e.getDest().toString().contentEquals(currentVertex)) {
+                                if(e.getDestLabel().contentEquals(currentVertex)) {
                                     currentVertexClusterWeight = e.getWeight();
                                 }
                             }
@@ -0,0 +1,143 @@
+package core.clustering;
+
+import utils.Stream;
+import utils.exceptions.GraphException;
+
+import java.io.*;
+
+/**
+ * State of an iterative clustering after a round: enough to resume it and get the same result as an uninterrupted
+ * run
+ * The random state is the seed, every round drawing its samples from a generator derived from it.
+ *
+ */
+public class ClusteringCheckpoint {
+    private static final int MAGIC = 0x4b4d4350;
+    private static final int VERSION = 1;
+
+    private final int vertexCount;
+    private final int edgesCount;
+    private final int iteration;
+    private final long seed;
+    private final int sampleSize;
+    private final int maxIterations;
+    private final int[] centroids;
+    private final int[] clusterOf;
+
+    /**
+     *
+     * @param vertexCount the vertices of the clustered graph
+     * @param edgesCount the edges of the clustered graph
+     * @param iteration the number of completed rounds
+     * @param seed
+     * @param sampleSize
+     * @param maxIterations
+     * @param centroids the centroid of every cluster after the round
+     * @param clusterOf the cluster of every vertex after the round
+     */
+    public ClusteringCheckpoint(int vertexCount, int edgesCount, int iteration, long seed, int sampleSize, int maxIterations, int[] centroids, int[] clusterOf) {
+        this.vertexCount = vertexCount;
+        this.edgesCount = edgesCount;
+        this.iteration = iteration;
+        this.seed = seed;
+        this.sampleSize = sampleSize;
+        this.maxIterations = maxIterations;
+        this.centroids = centroids;
+        this.clusterOf = clusterOf;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgesCount() {
+        return edgesCount;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     *
+     * @return a copy of the centroid of every cluster
+     */
+    public int[] getCentroids() {
+        return centroids.clone();
+    }
+
+    /**
+     *
+     * @return a copy of the cluster of every vertex
+     */
+    public int[] getClusterOf() {
+        return clusterOf.clone();
+    }
+
+    /**
+     * Saves the checkpoint in a compact binary file
+     * Written atomically with {@link Stream#writeAtomically}, so a crash never leaves a truncated checkpoint
+     * @param file
+     * @throws GraphException
+     */
+    public void write(String file) throws GraphException {
+        Stream.writeAtomically(file, output -> {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(vertexCount);
+            output.writeInt(edgesCount);
+            output.writeInt(iteration);
+            output.writeLong(seed);
+            output.writeInt(sampleSize);
+            output.writeInt(maxIterations);
+            output.writeInt(centroids.length);
+
+            for(int centroid: centroids) output.writeInt(centroid);
+
+            for(int cluster: clusterOf) output.writeInt(cluster);
+        });
+    }
+
+    /**
+     * Reads a checkpoint saved with {@link #write(String)}
+     * @param file
+     * @return the checkpoint
+     * @throws GraphException
+     */
+    public static ClusteringCheckpoint read(String file) throws GraphException {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if(input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new GraphException(file + " is not a clustering checkpoint");
+            }
+
+            int vertexCount = input.readInt();
+            int edgesCount = input.readInt();
+            int iteration = input.readInt();
+            long seed = input.readLong();
+            int sampleSize = input.readInt();
+            int maxIterations = input.readInt();
+            int[] centroids = new int[input.readInt()];
+            int[] clusterOf = new int[vertexCount];
+
+            for(int i = 0; i < centroids.length; i++) centroids[i] = input.readInt();
+
+            for(int v = 0; v < vertexCount; v++) clusterOf[v] = input.readInt();
+
+            return new ClusteringCheckpoint(vertexCount, edgesCount, iteration, seed, sampleSize, maxIterations, centroids, clusterOf);
+        } catch (IOException e) {
+            throw new GraphException("Cannot read checkpoint " + file, e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package core.clustering;
+
+import core.graph.CompactGraph;
+import core.weighted.UnionFind;
+
+import java.util.Arrays;
+
+/**
+ * Result of an agglomerative clustering: the merges of the clusters, by increasing height
+ * Vertices are the nodes [0, n) and merge i creates node n + i. Vertices never linked to each other through edges end
+ * in different trees, so a dendrogram may have several roots.
+ *
+ */
+public class Dendrogram {
+    private final CompactGraph graph;
+    private final int[] left;
+    private final int[] right;
+    private final double[] heights;
+    private final int[] sizes;
+
+    /**
+     *
+     * @param graph
+     * @param left the first node merged by every merge
+     * @param right the second node merged by every merge
+     * @param heights the linkage distance of every merge, non decreasing
+     * @param sizes the number of vertices below every merge
+     */
+    public Dendrogram(CompactGraph graph, int[] left, int[] right, double[] heights, int[] sizes) {
+        this.graph = graph;
+        this.left = left;
+        this.right = right;
+        this.heights = heights;
+        this.sizes = sizes;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int mergesCount() {
+        return heights.length;
+    }
+
+    /**
+     *
+     * @return the number of trees, the fewest clusters a cut can give
+     */
+    public int rootsCount() {
+        return graph.vertexCount() - heights.length;
+    }
+
+    /**
+     *
+     * @param merge
+     * @return the first node merged, a vertex id if lower than the number of vertices
+     */
+    public int left(int merge) {
+        return left[merge];
+    }
+
+    /**
+     *
+     * @param merge
+     * @return the second node merged, a vertex id if lower than the number of vertices
+     */
+    public int right(int merge) {
+        return right[merge];
+    }
+
+    /**
+     *
+     * @param merge
+     * @return the linkage distance between the two nodes merged
+     */
+    public double height(int merge) {
+        return heights[merge];
+    }
+
+    /**
+     *
+     * @param merge
+     * @return the number of vertices in the cluster created by the merge
+     */
+    public int size(int merge) {
+        return sizes[merge];
+    }
+
+    /**
+     * Cuts the dendrogram into k clusters by undoing its highest merges, k - rootsCount() of them
+     * @param k the number of clusters, between the number of roots and the number of vertices
+     * @return the cluster of every vertex id, clusters being numbered from 0
+     */
+    public int[] cut(int k) {
+        int n = graph.vertexCount();
+
+        if(k < rootsCount() || k > n) throw new IllegalArgumentException("k must be between " + rootsCount() + " and " + n);
+
+        return clusters(n - k);
+    }
+
+    /**
+     * Cuts the dendrogram at a height, keeping the merges at most that high
+     * @param height
+     * @return the cluster of every vertex id, clusters being numbered from 0
+     */
+    public int[] cutAtHeight(double height) {
+        int merges = 0;
+
+        while(merges < heights.length && heights[merges] <= height) merges++;
+
+        return clusters(merges);
+    }
+
+    /**
+     *
+     * @param k between the number of roots and the number of vertices
+     * @return the k clusters of the cut, the centroid of a cluster being its member of highest degree
+     */
+    public Cluster[] toClusters(int k) {
+        return Clustering.toClusters(graph, cut(k));
+    }
+
+    /**
+     * Replays the lowest merges
+     */
+    private int[] clusters(int merges) {
+        int n = graph.vertexCount();
+        UnionFind sets = new UnionFind(2 * n);
+
+        for(int i = 0; i < merges; i++) {
+            sets.union(left[i], n + i);
+            sets.union(right[i], n + i);
+        }
+
+        int[] clusterOf = new int[n];
+        int[] numbers = new int[2 * n];
+        Arrays.fill(numbers, -1);
+        int count = 0;
+
+        for(int v = 0; v < n; v++) {
+            int root = sets.find(v);
+
+            if(numbers[root] < 0) numbers[root] = count++;
+
+            clusterOf[v] = numbers[root];
+        }
+
+        return clusterOf;
+    }
+}
@@ -0,0 +1,222 @@
+package core.clustering;
+
+import core.graph.CompactGraph;
+import utils.exceptions.GraphException;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+/**
+ * k-medoids clustering over shortest path distances
+ * Alternates between assigning every vertex to its closest centroid and moving every centroid to the medoid of its
+ * cluster until the centroids stop changing
+ *
+ */
+public class KMedoids {
+    public static final int DEFAULT_MAX_ITERATIONS = 20;
+    public static final int DEFAULT_SAMPLE_SIZE = 32;
+
+    private final CompactGraph graph;
+    private final int k;
+
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
+    private long seed = System.nanoTime();
+    private Seeding.SeedingStrategies seeding = Seeding.SeedingStrategies.KMEANS_PLUS_PLUS;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private BooleanSupplier stopCondition = () -> false;
+
+    private String checkpointFile;
+    private int checkpointInterval;
+    private GraphException checkpointFailure;
+
+    /**
+     * State a resumed run starts from, null for a fresh run
+     */
+    private ClusteringCheckpoint restored;
+    private Assignment restoredAssignment;
+
+    private int iterations;
+    private boolean stopped;
+
+    public KMedoids(CompactGraph graph, int k) {
+        if(k <= 0 || k > graph.vertexCount()) throw new IllegalArgumentException("k must be between 1 and the number of vertices");
+
+        this.graph = graph;
+        this.k = k;
+    }
+
+    /**
+     * Prepares a run that continues from a checkpoint, with the k, seed, sample size and maximum iterations of the
+     * checkpointed run
+     * The rounds only depend on the centroids and the seed, so the result is the one of an uninterrupted run.
+     * @param graph the graph of the checkpointed run
+     * @param file
+     * @return the clustering, to be run
+     * @throws GraphException if the checkpoint cannot be read or was not made on this graph
+     */
+    public static KMedoids resume(CompactGraph graph, String file) throws GraphException {
+        ClusteringCheckpoint checkpoint = ClusteringCheckpoint.read(file);
+
+        if(checkpoint.getVertexCount() != graph.vertexCount() || checkpoint.getEdgesCount() != graph.edgesCount()) {
+            throw new GraphException(file + " was not made on this graph");
+        }
+
+        int[] centroids = checkpoint.getCentroids();
+        Assignment assignment = Assignment.assign(graph, centroids);
+
+        if(!Arrays.equals(assignment.getClusterOf(), checkpoint.getClusterOf())) {
+            throw new GraphException(file + " was not made on this graph");
+        }
+
+        KMedoids kMedoids = new KMedoids(graph, centroids.length);
+        kMedoids.seed = checkpoint.getSeed();
+        kMedoids.sampleSize = checkpoint.getSampleSize();
+        kMedoids.maxIterations = checkpoint.getMaxIterations();
+        kMedoids.restored = checkpoint;
+        kMedoids.restoredAssignment = assignment;
+
+        return kMedoids;
+    }
+
+    /**
+     * Runs the clustering
+     * @return the final assignment, or the current one if the stop condition became true
+     */
+    public Assignment run() {
+        int[] centroids;
+        Assignment assignment;
+        int first = 1;
+
+        if(restored != null) {
+            centroids = restored.getCentroids();
+            assignment = restoredAssignment;
+            first = restored.getIteration() + 1;
+        } else {
+            centroids = Seeding.select(graph, k, seeding, seed);
+            assignment = Assignment.assign(graph, centroids);
+        }
+
+        //Built once per run rather than by every centroid update
+        CompactGraph reversed = graph.reverse();
+        CheckpointWriter writer = checkpointFile == null ? null : new CheckpointWriter(checkpointFile);
+        stopped = false;
+
+        try {
+            for(iterations = first; iterations <= maxIterations; iterations++) {
+                if(stopCondition.getAsBoolean()) {
+                    iterations--;
+                    stopped = true;
+
+                    return assignment;
+                }
+
+                int[] updated = new CentroidUpdate(assignment, reversed, sampleSize, seed).update(pool);
+
+                if(Arrays.equals(updated, centroids)) return assignment;
+
+                centroids = updated;
+                assignment = Assignment.assign(graph, centroids);
+
+                if(writer != null && iterations % checkpointInterval == 0) {
+                    writer.submit(new ClusteringCheckpoint(graph.vertexCount(), graph.edgesCount(), iterations, seed, sampleSize,
+                            maxIterations, centroids, assignment.getClusterOf()));
+                }
+            }
+
+            iterations = maxIterations;
+
+            return assignment;
+        } finally {
+            if(writer != null) {
+                writer.close();
+                checkpointFailure = writer.getFailure();
+            }
+        }
+    }
+
+    /**
+     * Saves the state of the run every interval rounds, from a background thread
+     * @param file
+     * @param interval
+     */
+    public void setCheckpoint(String file, int interval) {
+        if(interval <= 0) throw new IllegalArgumentException("The interval must be positive");
+
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * A failed checkpoint does not stop the run, it is reported here
+     * @return the first checkpoint of the last run that could not be written, null if none failed
+     */
+    public GraphException getCheckpointFailure() {
+        return checkpointFailure;
+    }
+
+    /**
+     *
+     * @param maxIterations the maximum number of assignment/update rounds
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     *
+     * @param sampleSize the number of members used to estimate closeness in large clusters
+     */
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     *
+     * @param seeding the strategy selecting the initial centroids
+     */
+    public void setSeeding(Seeding.SeedingStrategies seeding) {
+        this.seeding = seeding;
+    }
+
+    /**
+     * Makes the run reproducible
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     *
+     * @param pool the pool running the centroid updates
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Polled before every round, the run stops with its current assignment once it returns true
+     * @param stopCondition
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     *
+     * @return the number of rounds of the last run
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     *
+     * @return true if the stop condition ended the last run before it converged
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+}
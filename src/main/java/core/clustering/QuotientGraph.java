@@ -0,0 +1,225 @@
+package core.clustering;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Graph of the clusters of an assignment: every cluster becomes a super-node and the edges between two clusters are
+ * merged into one edge whose weight is the sum of their weights
+ * Built in one parallel pass over the edges, each chunk of vertices aggregating into its own table before a merge.
+ *
+ */
+public class QuotientGraph {
+
+    /**
+     * Prefix of the super-node labels, followed by the cluster index
+     */
+    public static final String LABEL_PREFIX = "cluster:";
+
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private final Assignment assignment;
+    private final CompactGraph graph;
+    private final int[] memberCounts;
+    private final double[] internalWeights;
+
+    public QuotientGraph(Assignment assignment) {
+        this.assignment = assignment;
+
+        CompactGraph base = assignment.getGraph();
+        int k = assignment.clustersCount();
+        int n = base.vertexCount();
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        LongDoubleMap[] partialEdges = new LongDoubleMap[chunks];
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            LongDoubleMap edges = new LongDoubleMap();
+
+            for(int v = chunk * CHUNK_SIZE, end = Math.min(n, v + CHUNK_SIZE); v < end; v++) {
+                int cv = assignment.clusterOf(v);
+
+                if(cv < 0) continue;
+
+                for(int e = base.firstEdge(v), last = base.firstEdge(v + 1); e < last; e++) {
+                    int cw = assignment.clusterOf(base.target(e));
+
+                    if(cw < 0) continue;
+
+                    //The key of cv == cw sums the weight inside the cluster
+                    edges.add((long) cv * k + cw, base.weight(e));
+                }
+            }
+
+            partialEdges[chunk] = edges;
+        });
+
+        LongDoubleMap merged = new LongDoubleMap();
+        internalWeights = new double[k];
+
+        for(int chunk = 0; chunk < chunks; chunk++) partialEdges[chunk].addTo(merged);
+
+        graph = toCompactGraph(merged, k, base.isDirected(), internalWeights);
+
+        //Undirected edges are stored in both directions
+        if(!base.isDirected()) {
+            for(int c = 0; c < k; c++) internalWeights[c] /= 2;
+        }
+
+        memberCounts = new int[k];
+
+        for(int c = 0; c < k; c++) memberCounts[c] = assignment.size(c);
+    }
+
+    /**
+     *
+     * @param edges the summed weights keyed by source cluster * k + target cluster
+     * @param k
+     * @param directed
+     * @param internalWeights receives the weights keyed by a cluster to itself, which are not edges
+     * @return the graph of the super-nodes
+     */
+    private static CompactGraph toCompactGraph(LongDoubleMap edges, int k, boolean directed, double[] internalWeights) {
+        long[] keys = edges.keys();
+        Arrays.sort(keys);
+
+        int[] offsets = new int[k + 1];
+        int[] targets = new int[keys.length];
+        double[] weights = new double[keys.length];
+        int m = 0;
+
+        for(long key: keys) {
+            int src = (int) (key / k);
+            int dest = (int) (key % k);
+
+            if(src == dest) {
+                internalWeights[src] = edges.get(key);
+                continue;
+            }
+
+            offsets[src + 1]++;
+            targets[m] = dest;
+            weights[m++] = edges.get(key);
+        }
+
+        for(int c = 0; c < k; c++) offsets[c + 1] += offsets[c];
+
+        String[] labels = new String[k];
+
+        for(int c = 0; c < k; c++) labels[c] = LABEL_PREFIX + c;
+
+        return new CompactGraph(labels, offsets, Arrays.copyOf(targets, m), Arrays.copyOf(weights, m), directed);
+    }
+
+    /**
+     *
+     * @return the graph of the super-nodes, super-node c being cluster c
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public Assignment getAssignment() {
+        return assignment;
+    }
+
+    /**
+     *
+     * @param cluster
+     * @return the number of vertices collapsed into the super-node
+     */
+    public int memberCount(int cluster) {
+        return memberCounts[cluster];
+    }
+
+    /**
+     *
+     * @param cluster
+     * @return the total weight of the edges inside the cluster
+     */
+    public double internalWeight(int cluster) {
+        return internalWeights[cluster];
+    }
+
+    /**
+     * Open addressing hash map from non negative long keys to summed double values
+     */
+    private static final class LongDoubleMap {
+        private static final long FREE = -1;
+
+        private long[] keys = new long[64];
+        private double[] values = new double[64];
+        private int size;
+
+        private LongDoubleMap() {
+            Arrays.fill(keys, FREE);
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int i = (int) (mix(key) & mask);
+
+            while(keys[i] != FREE && keys[i] != key) i = (i + 1) & mask;
+
+            return i;
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+
+            return key ^ (key >>> 32);
+        }
+
+        private void add(long key, double value) {
+            int i = slot(key);
+
+            if(keys[i] == FREE) {
+                keys[i] = key;
+                size++;
+            }
+
+            values[i] += value;
+
+            if(size * 2 > keys.length) grow();
+        }
+
+        private double get(long key) {
+            int i = slot(key);
+
+            return keys[i] == FREE ? 0 : values[i];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+
+            keys = new long[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            Arrays.fill(keys, FREE);
+            size = 0;
+
+            for(int i = 0; i < oldKeys.length; i++) {
+                if(oldKeys[i] != FREE) add(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private void addTo(LongDoubleMap other) {
+            for(int i = 0; i < keys.length; i++) {
+                if(keys[i] != FREE) other.add(keys[i], values[i]);
+            }
+        }
+
+        private long[] keys() {
+            long[] result = new long[size];
+            int count = 0;
+
+            for(long key: keys) {
+                if(key != FREE) result[count++] = key;
+            }
+
+            return result;
+        }
+    }
+}
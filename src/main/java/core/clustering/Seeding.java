@@ -0,0 +1,368 @@
+package core.clustering;
+
+import core.analysis.Centrality;
+import core.distance.ShortestPaths;
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Selects the initial centroids of a clustering
+ * Every strategy is driven by a seed, so the same graph and seed always give the same centroids
+ *
+ */
+public class Seeding {
+
+    public enum SeedingStrategies {
+        UNIFORM,
+        DEGREE_WEIGHTED,
+        KMEANS_PLUS_PLUS,
+        FARTHEST_FIRST,
+        PAGERANK
+    }
+
+    /**
+     * Selects k distinct centroids with the given strategy
+     * @param graph
+     * @param k
+     * @param strategy
+     * @param seed
+     * @return the centroid vertex ids
+     */
+    public static int[] select(CompactGraph graph, int k, SeedingStrategies strategy, long seed) {
+        if(k <= 0 || k > graph.vertexCount()) throw new IllegalArgumentException("k must be between 1 and the number of vertices");
+
+        SplittableRandom random = new SplittableRandom(seed);
+
+        switch (strategy) {
+            case UNIFORM:
+                return uniform(graph, k, random);
+            case DEGREE_WEIGHTED:
+                return degreeWeighted(graph, k, random);
+            case KMEANS_PLUS_PLUS:
+                return kMeansPlusPlus(graph, k, random);
+            case FARTHEST_FIRST:
+                return farthestFirst(graph, k, random);
+            case PAGERANK:
+                return pageRank(graph, k);
+            default:
+                throw new IllegalArgumentException("Unknown seeding strategy");
+        }
+    }
+
+    /**
+     * Draws k distinct vertices uniformly with Floyd's algorithm, in O(k)
+     * @param graph
+     * @param k
+     * @param random
+     * @return the centroids
+     */
+    public static int[] uniform(CompactGraph graph, int k, SplittableRandom random) {
+        int n = graph.vertexCount();
+        Set<Integer> selected = new HashSet<>(k * 2);
+        int[] centroids = new int[k];
+        int count = 0;
+
+        for(int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int v = selected.add(t) ? t : j;
+
+            if(v == j) selected.add(j);
+
+            centroids[count++] = v;
+        }
+
+        return centroids;
+    }
+
+    /**
+     * Draws k distinct vertices with probability proportional to their degree
+     * Uses weighted reservoir sampling (Efraimidis-Spirakis): one pass over the vertices keeping the k largest keys
+     * log(u) / degree, in O(V log k). Isolated vertices are only selected when there are fewer than k other vertices.
+     * @param graph
+     * @param k
+     * @param random
+     * @return the centroids
+     */
+    public static int[] degreeWeighted(CompactGraph graph, int k, SplittableRandom random) {
+        int n = graph.vertexCount();
+
+        //Min-heap on the keys of the reservoir
+        double[] keys = new double[k];
+        int[] ids = new int[k];
+        int size = 0;
+
+        for(int v = 0; v < n; v++) {
+            int degree = graph.degree(v);
+
+            //nextDouble is in [0, 1), 1 - u in (0, 1] keeps the log finite
+            double key = degree == 0 ? Double.NEGATIVE_INFINITY : Math.log(1.0 - random.nextDouble()) / degree;
+
+            if(size < k) {
+                keys[size] = key;
+                ids[size] = v;
+                siftUp(keys, ids, size++);
+            } else if(key > keys[0]) {
+                keys[0] = key;
+                ids[0] = v;
+                siftDown(keys, ids, size);
+            }
+        }
+
+        //Heap order depends on the keys only, sorting makes the result independent of it
+        Arrays.sort(ids);
+
+        return ids;
+    }
+
+    /**
+     * k-means++ over shortest path distances
+     * The first centroid is uniform, every next one is drawn with probability proportional to the squared distance to
+     * its closest centroid. Vertices unreachable from every centroid are drawn first, uniformly, so that every
+     * connected component gets a centroid before any component gets a second one.
+     * Distances are maintained with a Dijkstra that only expands improved vertices, and draws use sum trees in O(log V).
+     * @param graph
+     * @param k
+     * @param random
+     * @return the centroids
+     */
+    public static int[] kMeansPlusPlus(CompactGraph graph, int k, SplittableRandom random) {
+        int n = graph.vertexCount();
+
+        float[] best = new float[n];
+        Arrays.fill(best, Float.POSITIVE_INFINITY);
+
+        int[] changed = new int[n];
+
+        SumTree squared = new SumTree(n);
+        SumTree unreachable = new SumTree(n);
+
+        for(int v = 0; v < n; v++) unreachable.set(v, 1);
+
+        int[] centroids = new int[k];
+
+        for(int i = 0; i < k; i++) {
+            int next;
+
+            if(unreachable.total() >= 0.5) {
+                next = unreachable.find(random.nextDouble() * unreachable.total());
+            } else {
+                next = squared.find(random.nextDouble() * squared.total());
+            }
+
+            //Every vertex is at distance 0, i.e. already a centroid or reached through zero weight edges
+            if(best[next] == 0f) next = firstNonCentroid(centroids, i, n);
+
+            centroids[i] = next;
+
+            int count = ShortestPaths.dijkstraImproving(graph, next, best, changed);
+
+            for(int j = 0; j < count; j++) {
+                int v = changed[j];
+
+                unreachable.set(v, 0);
+                squared.set(v, (double) best[v] * best[v]);
+            }
+        }
+
+        return centroids;
+    }
+
+    /**
+     * Farthest-first traversal: the first centroid is uniform, every next one is the vertex farthest from its closest
+     * centroid (unreachable vertices first, ties broken by id)
+     * @param graph
+     * @param k
+     * @param random
+     * @return the centroids
+     */
+    public static int[] farthestFirst(CompactGraph graph, int k, SplittableRandom random) {
+        int n = graph.vertexCount();
+
+        float[] best = new float[n];
+        Arrays.fill(best, Float.POSITIVE_INFINITY);
+
+        int[] changed = new int[n];
+        int[] centroids = new int[k];
+
+        centroids[0] = random.nextInt(n);
+        ShortestPaths.dijkstraImproving(graph, centroids[0], best, changed);
+
+        for(int i = 1; i < k; i++) {
+            int next = -1;
+
+            for(int v = 0; v < n; v++) {
+                if(best[v] > 0f && (next < 0 || best[v] > best[next])) next = v;
+            }
+
+            if(next < 0) next = firstNonCentroid(centroids, i, n);
+
+            centroids[i] = next;
+            ShortestPaths.dijkstraImproving(graph, next, best, changed);
+        }
+
+        return centroids;
+    }
+
+    /**
+     * The k vertices of highest PageRank, skipping the neighbors of the vertices already selected so that the
+     * centroids do not all fall in the same dense region; the skipped vertices fill the remaining slots by rank
+     * Deterministic, ties are broken by id.
+     * @param graph
+     * @param k
+     * @return the centroids
+     */
+    public static int[] pageRank(CompactGraph graph, int k) {
+        int n = graph.vertexCount();
+        double[] ranks = Centrality.pageRank(graph);
+        CompactGraph reversed = graph.isDirected() ? graph.reverse() : null;
+
+        Integer[] order = new Integer[n];
+
+        for(int v = 0; v < n; v++) order[v] = v;
+
+        Arrays.sort(order, (a, b) -> ranks[a] != ranks[b] ? Double.compare(ranks[b], ranks[a]) : Integer.compare(a, b));
+
+        boolean[] covered = new boolean[n];
+        boolean[] selected = new boolean[n];
+        int[] centroids = new int[k];
+        int count = 0;
+
+        for(int i = 0; i < n && count < k; i++) {
+            int v = order[i];
+
+            if(covered[v]) continue;
+
+            centroids[count++] = v;
+            selected[v] = true;
+            covered[v] = true;
+
+            for(CompactGraph g = graph; g != null; g = (g == graph ? reversed : null)) {
+                for(int e = g.firstEdge(v), end = g.firstEdge(v + 1); e < end; e++) covered[g.target(e)] = true;
+            }
+        }
+
+        for(int i = 0; i < n && count < k; i++) {
+            if(!selected[order[i]]) centroids[count++] = order[i];
+        }
+
+        return centroids;
+    }
+
+    private static int firstNonCentroid(int[] centroids, int count, int n) {
+        for(int v = 0; v < n; v++) {
+            boolean taken = false;
+
+            for(int i = 0; i < count && !taken; i++) {
+                taken = centroids[i] == v;
+            }
+
+            if(!taken) return v;
+        }
+
+        throw new IllegalStateException("No vertex left");
+    }
+
+    private static void siftUp(double[] keys, int[] ids, int i) {
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if(keys[parent] <= keys[i]) break;
+
+            swap(keys, ids, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(double[] keys, int[] ids, int size) {
+        int i = 0;
+
+        while(true) {
+            int child = 2 * i + 1;
+
+            if(child >= size) break;
+
+            if(child + 1 < size && keys[child + 1] < keys[child]) child++;
+
+            if(keys[i] <= keys[child]) break;
+
+            swap(keys, ids, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(double[] keys, int[] ids, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    /**
+     * Fenwick tree of non negative weights supporting point updates and weighted draws in O(log n)
+     */
+    private static final class SumTree {
+        private final double[] tree;
+        private final double[] values;
+        private int highestBit;
+
+        private SumTree(int n) {
+            tree = new double[n + 1];
+            values = new double[n];
+            highestBit = Integer.highestOneBit(Math.max(n, 1));
+        }
+
+        private void set(int i, double value) {
+            double delta = value - values[i];
+
+            if(delta == 0) return;
+
+            values[i] = value;
+
+            for(int j = i + 1; j < tree.length; j += j & -j) {
+                tree[j] += delta;
+            }
+        }
+
+        private double total() {
+            double sum = 0;
+
+            for(int j = tree.length - 1; j > 0; j -= j & -j) {
+                sum += tree[j];
+            }
+
+            return sum;
+        }
+
+        /**
+         * Returns the index i such that the sum of the weights before i is <= target < that sum plus weight i
+         * @param target
+         * @return the index
+         */
+        private int find(double target) {
+            int position = 0;
+
+            for(int bit = highestBit; bit > 0; bit >>= 1) {
+                int next = position + bit;
+
+                if(next < tree.length && tree[next] <= target) {
+                    target -= tree[next];
+                    position = next;
+                }
+            }
+
+            //Rounding may point past the last positive weight
+            int index = Math.min(position, values.length - 1);
+
+            while(index > 0 && values[index] == 0) index--;
+
+            return index;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package core.clustering;
+
+import utils.Stream;
+import utils.exceptions.GraphException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One pass clustering of an edge stream (Hollocou et al., "A Streaming Algorithm for Graph Clustering")
+ * Every vertex starts in its own community. For each edge the degrees and community volumes of both ends are
+ * incremented and, if both volumes are at most maxVolume, the end in the smaller community joins the other one.
+ * Only three numbers per vertex are kept, so the graph is never materialized.
+ *
+ */
+public class StreamingClustering {
+    private static final int CHECKPOINT_MAGIC = 0x53434b50;
+    private static final int CHECKPOINT_VERSION = 2;
+
+    private final long maxVolume;
+
+    private int verticesCount;
+    private int[] community = new int[1024];
+    private long[] degree = new long[1024];
+
+    /**
+     * Volume of every community, indexed by the vertex id that created the community
+     */
+    private long[] volume = new long[1024];
+
+    private long edgesProcessed;
+
+    /**
+     * Edges processed before the last file began, so resuming it skips only the edges of that file
+     */
+    private long streamStart;
+
+    /**
+     * Label dictionary, empty when the stream already uses integer ids
+     */
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> labels = new ArrayList<>();
+
+    private String checkpointFile;
+    private long checkpointInterval;
+
+    /**
+     *
+     * @param maxVolume the volume above which two communities are no longer merged
+     */
+    public StreamingClustering(long maxVolume) {
+        this.maxVolume = maxVolume;
+    }
+
+    /**
+     * Writes a checkpoint every interval edges
+     * @param file
+     * @param interval
+     */
+    public void setCheckpoint(String file, long interval) {
+        if(interval <= 0) throw new IllegalArgumentException("The interval must be positive");
+
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Processes an edge given by labels
+     * @param src
+     * @param dest
+     * @throws GraphException if a periodic checkpoint cannot be written
+     */
+    public void addEdge(String src, String dest) throws GraphException {
+        addEdge(id(src), id(dest));
+    }
+
+    /**
+     * Processes an edge given by integer ids
+     * @param src
+     * @param dest
+     * @throws GraphException if a periodic checkpoint cannot be written
+     */
+    public void addEdge(int src, int dest) throws GraphException {
+        ensureVertex(Math.max(src, dest));
+
+        if(src != dest) {
+            degree[src]++;
+            degree[dest]++;
+
+            int srcCommunity = community[src];
+            int destCommunity = community[dest];
+
+            volume[srcCommunity]++;
+            volume[destCommunity]++;
+
+            if(srcCommunity != destCommunity && volume[srcCommunity] <= maxVolume && volume[destCommunity] <= maxVolume) {
+                if(volume[srcCommunity] <= volume[destCommunity]) {
+                    move(src, destCommunity);
+                } else {
+                    move(dest, srcCommunity);
+                }
+            }
+        }
+
+        edgesProcessed++;
+
+        if(checkpointFile != null && edgesProcessed % checkpointInterval == 0) checkpoint(checkpointFile);
+    }
+
+    private void move(int v, int target) {
+        volume[community[v]] -= degree[v];
+        volume[target] += degree[v];
+        community[v] = target;
+    }
+
+    /**
+     * Streams a whole csv edge file
+     * @param file
+     * @throws GraphException
+     */
+    public void processCsv(String file) throws GraphException {
+        streamStart = edgesProcessed;
+        readCsv(file, 0);
+    }
+
+    /**
+     * Streams the rest of the csv edge file that was being processed when the last checkpoint was written
+     * @param file the same file as before the checkpoint
+     * @throws GraphException
+     */
+    public void resumeCsv(String file) throws GraphException {
+        readCsv(file, edgesProcessed - streamStart);
+    }
+
+    /**
+     * Streams a whole binary edge file
+     * @param file
+     * @throws GraphException
+     */
+    public void processBinary(String file) throws GraphException {
+        streamStart = edgesProcessed;
+        readBinary(file, 0);
+    }
+
+    /**
+     * Streams the rest of the binary edge file that was being processed when the last checkpoint was written
+     * @param file the same file as before the checkpoint
+     * @throws GraphException
+     */
+    public void resumeBinary(String file) throws GraphException {
+        readBinary(file, edgesProcessed - streamStart);
+    }
+
+    private void readCsv(String file, long skip) throws GraphException {
+        if(labels.isEmpty() && verticesCount > 0) throw new GraphException("Labelled and integer streams cannot be mixed");
+
+        Stream.readEdges(file, skip, (src, dest, weight) -> addEdge(src, dest));
+    }
+
+    private void readBinary(String file, long skip) throws GraphException {
+        if(!labels.isEmpty()) throw new GraphException("Labelled and integer streams cannot be mixed");
+
+        Stream.readBinaryEdges(file, skip, (src, dest, weight) -> addEdge(src, dest));
+    }
+
+    private int id(String label) {
+        Integer id = ids.get(label);
+
+        if(id == null) {
+            id = labels.size();
+            ids.put(label, id);
+            labels.add(label);
+        }
+
+        return id;
+    }
+
+    private void ensureVertex(int v) {
+        if(v >= community.length) {
+            int capacity = Math.max(community.length * 2, v + 1);
+
+            community = Arrays.copyOf(community, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+        }
+
+        //New vertices start in their own community
+        for(int i = verticesCount; i <= v; i++) {
+            community[i] = i;
+        }
+
+        verticesCount = Math.max(verticesCount, v + 1);
+    }
+
+    public long getEdgesProcessed() {
+        return edgesProcessed;
+    }
+
+    public int verticesCount() {
+        return verticesCount;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the label of the vertex id
+     */
+    public String label(int v) {
+        return labels.isEmpty() ? String.valueOf(v) : labels.get(v);
+    }
+
+    /**
+     * Renumbers the non empty communities from 0
+     * @return the community of every vertex id
+     */
+    public int[] getCommunities() {
+        int[] renumbered = new int[verticesCount];
+        int[] index = new int[verticesCount];
+        Arrays.fill(index, -1);
+
+        int count = 0;
+
+        for(int v = 0; v < verticesCount; v++) {
+            int c = community[v];
+
+            if(index[c] < 0) index[c] = count++;
+
+            renumbered[v] = index[c];
+        }
+
+        return renumbered;
+    }
+
+    /**
+     * Converts the communities to clusters, the highest degree member being the centroid
+     * Vertices that only appeared in self loops form singleton clusters
+     * @return the clusters
+     */
+    public Cluster[] toClusters() {
+        return Clustering.toClusters(getCommunities(), this::label, v -> degree[v]);
+    }
+
+    /**
+     * Saves the whole state in a compact binary file
+     * Written atomically with {@link Stream#writeAtomically}, so a crash never leaves a truncated checkpoint
+     * @param file
+     * @throws GraphException
+     */
+    public void checkpoint(String file) throws GraphException {
+        Stream.writeAtomically(file, output -> {
+            output.writeInt(CHECKPOINT_MAGIC);
+            output.writeInt(CHECKPOINT_VERSION);
+            output.writeLong(maxVolume);
+            output.writeLong(edgesProcessed);
+            output.writeLong(streamStart);
+            output.writeInt(verticesCount);
+
+            for(int v = 0; v < verticesCount; v++) {
+                output.writeInt(community[v]);
+                output.writeLong(degree[v]);
+                output.writeLong(volume[v]);
+            }
+
+            output.writeInt(labels.size());
+
+            for(String label: labels) {
+                output.writeUTF(label);
+            }
+        });
+    }
+
+    /**
+     * Restores a clustering saved with {@link #checkpoint(String)}
+     * resumeCsv or resumeBinary on the file that was being processed continues after the last checkpointed edge
+     * @param file
+     * @return the restored clustering
+     * @throws GraphException
+     */
+    public static StreamingClustering restore(String file) throws GraphException {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if(input.readInt() != CHECKPOINT_MAGIC || input.readInt() != CHECKPOINT_VERSION) {
+                throw new GraphException(file + " is not a streaming clustering checkpoint");
+            }
+
+            StreamingClustering clustering = new StreamingClustering(input.readLong());
+            clustering.edgesProcessed = input.readLong();
+            clustering.streamStart = input.readLong();
+
+            int count = input.readInt();
+
+            if(count > 0) clustering.ensureVertex(count - 1);
+
+            for(int v = 0; v < count; v++) {
+                clustering.community[v] = input.readInt();
+                clustering.degree[v] = input.readLong();
+                clustering.volume[v] = input.readLong();
+            }
+
+            int labelsCount = input.readInt();
+
+            for(int i = 0; i < labelsCount; i++) {
+                clustering.id(input.readUTF());
+            }
+
+            return clustering;
+        } catch (IOException e) {
+            throw new GraphException("Cannot read checkpoint " + file, e);
+        }
+    }
+}
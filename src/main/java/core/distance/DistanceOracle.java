@@ -0,0 +1,47 @@
+package core.distance;
+
+import core.graph.CompactGraph;
+
+/**
+ * Answers vertex to vertex shortest path distance queries on a compact graph
+ *
+ */
+public interface DistanceOracle {
+
+    /**
+     *
+     * @return the graph the oracle was built on
+     */
+    CompactGraph getGraph();
+
+    /**
+     *
+     * @param src the source vertex id
+     * @param dest the destination vertex id
+     * @return the (possibly approximate) distance, infinity if dest is not reachable
+     */
+    double distance(int src, int dest);
+
+    /**
+     *
+     * @param src the source label
+     * @param dest the destination label
+     * @return the (possibly approximate) distance, infinity if dest is not reachable
+     */
+    default double distance(String src, String dest) {
+        CompactGraph graph = getGraph();
+
+        int srcId = graph.id(src);
+        int destId = graph.id(dest);
+
+        if(srcId < 0 || destId < 0) throw new IllegalArgumentException("Unknown vertex");
+
+        return distance(srcId, destId);
+    }
+
+    /**
+     *
+     * @return true if every answer is the exact shortest path distance
+     */
+    boolean isExact();
+}
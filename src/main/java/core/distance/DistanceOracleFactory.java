@@ -0,0 +1,46 @@
+package core.distance;
+
+import core.graph.CompactGraph;
+import utils.exceptions.GraphException;
+
+/**
+ * Creates distance oracles
+ * Small graphs get an exact all pairs oracle, larger ones a landmark based approximation
+ *
+ */
+public class DistanceOracleFactory {
+
+    /**
+     * Above this number of vertices the all pairs matrix would exceed 64MB
+     */
+    public static final int EXACT_LIMIT = 4096;
+
+    public static final int DEFAULT_LANDMARKS = 16;
+
+    public enum OracleTypes {
+        EXACT,
+        LANDMARK
+    }
+
+    /**
+     * Creates the oracle best suited to the size of the graph
+     * @param graph
+     * @return the distance oracle
+     */
+    public DistanceOracle createOracle(CompactGraph graph) {
+        if(graph.vertexCount() <= EXACT_LIMIT) return new ExactDistanceOracle(graph);
+
+        return new LandmarkDistanceOracle(graph, DEFAULT_LANDMARKS);
+    }
+
+    public DistanceOracle createOracle(CompactGraph graph, OracleTypes oracleType) throws GraphException {
+        switch (oracleType) {
+            case EXACT:
+                return new ExactDistanceOracle(graph);
+            case LANDMARK:
+                return new LandmarkDistanceOracle(graph, DEFAULT_LANDMARKS);
+            default:
+                throw new GraphException("Unknown oracle type.");
+        }
+    }
+}
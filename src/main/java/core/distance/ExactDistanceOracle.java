@@ -0,0 +1,41 @@
+package core.distance;
+
+import core.graph.CompactGraph;
+
+import java.util.stream.IntStream;
+
+/**
+ * All pairs shortest paths stored in a flat float matrix
+ * Rows are computed concurrently, one Dijkstra per source, so memory is vertexCount^2 floats
+ *
+ */
+public class ExactDistanceOracle implements DistanceOracle {
+    private final CompactGraph graph;
+    private final float[] matrix;
+
+    public ExactDistanceOracle(CompactGraph graph) {
+        int n = graph.vertexCount();
+
+        if((long) n * n > Integer.MAX_VALUE) throw new IllegalArgumentException("Graph too large for an exact oracle");
+
+        this.graph = graph;
+        this.matrix = new float[n * n];
+
+        IntStream.range(0, n).parallel().forEach(src -> ShortestPaths.dijkstra(graph, src, matrix, src * n));
+    }
+
+    @Override
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public double distance(int src, int dest) {
+        return matrix[src * graph.vertexCount() + dest];
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+}
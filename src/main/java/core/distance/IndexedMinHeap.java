@@ -0,0 +1,141 @@
+package core.distance;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of the ints [0, capacity) keyed by doubles, with decrease key
+ * The position of every item is indexed so decreaseKey and contains run without searching the heap
+ *
+ */
+public class IndexedMinHeap {
+    private final int[] heap;
+    private final int[] position;
+    private final double[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new double[capacity];
+
+        Arrays.fill(position, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     *
+     * @return the number of items the heap is made for, items being [0, capacity)
+     */
+    public int capacity() {
+        return position.length;
+    }
+
+    public boolean contains(int item) {
+        return position[item] >= 0;
+    }
+
+    /**
+     * Inserts the item, or lowers its key if it is already in the heap with a larger one
+     * @param item
+     * @param key
+     * @return true if the heap changed
+     */
+    public boolean offer(int item, double key) {
+        if(position[item] < 0) {
+            heap[size] = item;
+            position[item] = size;
+            keys[item] = key;
+            siftUp(size++);
+
+            return true;
+        }
+
+        if(key < keys[item]) {
+            keys[item] = key;
+            siftUp(position[item]);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    public double minKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Removes the item of smallest key
+     * @return the item
+     */
+    public int poll() {
+        int min = heap[0];
+
+        position[min] = -1;
+        size--;
+
+        if(size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return min;
+    }
+
+    /**
+     * Empties the heap in time proportional to its size
+     */
+    public void clear() {
+        for(int i = 0; i < size; i++) position[heap[i]] = -1;
+
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+        double key = keys[item];
+
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if(keys[heap[parent]] <= key) break;
+
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+
+        heap[i] = item;
+        position[item] = i;
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+        double key = keys[item];
+
+        while(true) {
+            int child = 2 * i + 1;
+
+            if(child >= size) break;
+
+            if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) child++;
+
+            if(keys[heap[child]] >= key) break;
+
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+
+        heap[i] = item;
+        position[item] = i;
+    }
+}
@@ -0,0 +1,173 @@
+package core.distance;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate distances through a small set of landmark vertices
+ * Stores the distances from (and, for directed graphs, to) every landmark, i.e. O(landmarks * vertexCount) floats,
+ * and answers a query with the triangle inequality in O(landmarks)
+ *
+ */
+public class LandmarkDistanceOracle implements DistanceOracle {
+
+    /**
+     * Relative rounding of a stored distance, twice the half ulp of a float to also cover the double precision sums
+     */
+    private static final double ROUNDING = 0x1p-23;
+
+    private final CompactGraph graph;
+    private final int[] landmarks;
+    private final float[][] fromLandmark;
+    private final float[][] toLandmark;
+
+    /**
+     * Builds the oracle using the highest degree vertices as landmarks
+     * @param graph
+     * @param landmarksCount
+     */
+    public LandmarkDistanceOracle(CompactGraph graph, int landmarksCount) {
+        this(graph, selectLandmarks(graph, landmarksCount));
+    }
+
+    /**
+     * Builds the oracle from the given landmarks
+     * @param graph
+     * @param landmarks the landmark vertex ids
+     */
+    public LandmarkDistanceOracle(CompactGraph graph, int[] landmarks) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = new float[landmarks.length][];
+
+        IntStream.range(0, landmarks.length).parallel()
+                .forEach(i -> fromLandmark[i] = ShortestPaths.dijkstra(graph, landmarks[i]));
+
+        if(graph.isDirected()) {
+            CompactGraph reversed = graph.reverse();
+            this.toLandmark = new float[landmarks.length][];
+
+            IntStream.range(0, landmarks.length).parallel()
+                    .forEach(i -> toLandmark[i] = ShortestPaths.dijkstra(reversed, landmarks[i]));
+        } else {
+            this.toLandmark = fromLandmark;
+        }
+    }
+
+    /**
+     * Selects the highest degree vertices, skipping the neighbors of already selected ones to spread the landmarks
+     * @param graph
+     * @param landmarksCount
+     * @return the landmark vertex ids
+     */
+    public static int[] selectLandmarks(CompactGraph graph, int landmarksCount) {
+        int n = graph.vertexCount();
+        int count = Math.min(landmarksCount, n);
+
+        //Sorts by decreasing degree, ties broken by id
+        long[] order = new long[n];
+
+        for(int v = 0; v < n; v++) {
+            order[v] = ((long) (Integer.MAX_VALUE - graph.degree(v)) << 32) | v;
+        }
+
+        Arrays.sort(order);
+
+        boolean[] covered = new boolean[n];
+        int[] landmarks = new int[count];
+        int selected = 0;
+
+        for(int pass = 0; pass < 2 && selected < count; pass++) {
+            for(int i = 0; i < n && selected < count; i++) {
+                int v = (int) order[i];
+
+                //Second pass fills up with covered vertices when the graph is too dense
+                if(covered[v] && (pass == 0 || isLandmark(landmarks, selected, v))) continue;
+
+                landmarks[selected++] = v;
+                covered[v] = true;
+
+                for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                    covered[graph.target(e)] = true;
+                }
+            }
+        }
+
+        return landmarks;
+    }
+
+    private static boolean isLandmark(int[] landmarks, int selected, int v) {
+        for(int i = 0; i < selected; i++) {
+            if(landmarks[i] == v) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the smallest upper bound d(src, l) + d(l, dest) over all landmarks l
+     * @param src
+     * @param dest
+     * @return the approximate distance
+     */
+    @Override
+    public double distance(int src, int dest) {
+        if(src == dest) return 0;
+
+        float best = Float.POSITIVE_INFINITY;
+
+        for(int i = 0; i < landmarks.length; i++) {
+            float d = toLandmark[i][src] + fromLandmark[i][dest];
+
+            if(d < best) best = d;
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns the largest lower bound given by the triangle inequality over all landmarks
+     * Every difference is lowered by the rounding of its two stored distances, so the bound never exceeds the exact
+     * distance, which keeps an A* heuristic built on it admissible.
+     * @param src
+     * @param dest
+     * @return a lower bound of the distance
+     */
+    public double lowerBound(int src, int dest) {
+        double best = 0;
+
+        for(int i = 0; i < landmarks.length; i++) {
+            //d(l, dest) - d(l, src) and d(src, l) - d(dest, l), skipping unreachable landmarks
+            float fromSrc = fromLandmark[i][src];
+            float fromDest = fromLandmark[i][dest];
+            float toSrc = toLandmark[i][src];
+            float toDest = toLandmark[i][dest];
+
+            if(fromSrc != Float.POSITIVE_INFINITY && fromDest != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, (double) fromDest - fromSrc - (fromDest + fromSrc) * ROUNDING);
+            }
+
+            if(toSrc != Float.POSITIVE_INFINITY && toDest != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, (double) toSrc - toDest - (toSrc + toDest) * ROUNDING);
+            }
+        }
+
+        return best;
+    }
+
+    public int[] getLandmarks() {
+        return landmarks;
+    }
+
+    @Override
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+}
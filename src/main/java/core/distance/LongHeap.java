@@ -0,0 +1,65 @@
+package core.distance;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive long keys
+ * Used by Dijkstra with the distance bits in the high half of the key and the vertex id in the low half
+ *
+ */
+class LongHeap {
+    private long[] keys;
+    private int size;
+
+    LongHeap(int capacity) {
+        keys = new long[Math.max(capacity, 16)];
+    }
+
+    void push(long key) {
+        if(size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+
+        int i = size++;
+
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if(keys[parent] <= key) break;
+
+            keys[i] = keys[parent];
+            i = parent;
+        }
+
+        keys[i] = key;
+    }
+
+    long pop() {
+        long min = keys[0];
+        long last = keys[--size];
+        int i = 0;
+
+        while(true) {
+            int child = 2 * i + 1;
+
+            if(child >= size) break;
+
+            if(child + 1 < size && keys[child + 1] < keys[child]) child++;
+
+            if(keys[child] >= last) break;
+
+            keys[i] = keys[child];
+            i = child;
+        }
+
+        keys[i] = last;
+
+        return min;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,258 @@
+package core.distance;
+
+import core.graph.CompactGraph;
+import core.graph.IndexedGraph;
+import core.graph.NeighborIterator;
+
+import java.util.Arrays;
+
+/**
+ * Single source shortest paths on a compact graph
+ * Edge weights are used as lengths and must be non negative. Every full search, single or multi source, with or
+ * without parents, goes through one double precision Dijkstra; the float results are rounded once from it.
+ *
+ */
+public class ShortestPaths {
+
+    private static final ThreadLocal<LongHeap> HEAPS = ThreadLocal.withInitial(() -> new LongHeap(1024));
+    private static final ThreadLocal<IndexedMinHeap> INDEXED_HEAPS = ThreadLocal.withInitial(() -> new IndexedMinHeap(0));
+    private static final ThreadLocal<double[]> DISTANCES = ThreadLocal.withInitial(() -> new double[0]);
+
+    /**
+     * Runs Dijkstra from src on any graph layout, e.g. a compressed graph
+     * @param graph
+     * @param src the source vertex id
+     * @return the distance to every vertex, infinity if unreachable
+     */
+    public static float[] dijkstra(IndexedGraph graph, int src) {
+        float[] dist = new float[graph.vertexCount()];
+
+        dijkstra(graph, src, dist, 0);
+
+        return dist;
+    }
+
+    /**
+     * Runs Dijkstra from src and writes the distances in dist[offset .. offset + vertexCount)
+     * Allows one row of a flat distance matrix to be filled in place
+     * @param graph
+     * @param src the source vertex id
+     * @param dist the destination array
+     * @param offset the index of vertex 0 in dist
+     */
+    public static void dijkstra(IndexedGraph graph, int src, float[] dist, int offset) {
+        double[] exact = distances(graph.vertexCount());
+
+        dijkstra(graph, new int[] {src}, exact, null, null);
+        round(exact, dist, offset, graph.vertexCount());
+    }
+
+    /**
+     * Runs Dijkstra from all the sources at once and records which source is the closest to every vertex
+     * Ties are broken in favor of the source settled first.
+     * @param graph
+     * @param sources the source vertex ids
+     * @param dist receives the distance to the closest source, infinity if unreachable
+     * @param owner receives the index in sources of the closest source, -1 if unreachable
+     */
+    public static void multiSourceDijkstra(IndexedGraph graph, int[] sources, float[] dist, int[] owner) {
+        double[] exact = distances(graph.vertexCount());
+
+        dijkstra(graph, sources, exact, owner, null);
+        round(exact, dist, 0, graph.vertexCount());
+    }
+
+    /**
+     * Dijkstra from all the sources at once in double precision, the search behind the other full searches
+     * An indexed heap holds every vertex at most once, its key being lowered in place instead of pushing duplicates.
+     * @param graph
+     * @param sources the source vertex ids
+     * @param dist receives the distance to the closest source, infinity if unreachable
+     * @param owner receives the index in sources of the closest source, -1 if unreachable, may be null
+     * @param parents receives the vertex before every vertex on its shortest path, -1 for the sources and the
+     *                unreachable vertices, may be null
+     * @throws IllegalArgumentException if a reached edge has a negative weight
+     */
+    public static void dijkstra(IndexedGraph graph, int[] sources, double[] dist, int[] owner, int[] parents) {
+        int n = graph.vertexCount();
+
+        Arrays.fill(dist, 0, n, Double.POSITIVE_INFINITY);
+
+        if(owner != null) Arrays.fill(owner, -1);
+
+        if(parents != null) Arrays.fill(parents, -1);
+
+        NeighborIterator neighbors = graph.neighbors();
+        IndexedMinHeap heap = INDEXED_HEAPS.get();
+
+        if(heap.capacity() < n) {
+            heap = new IndexedMinHeap(n);
+            INDEXED_HEAPS.set(heap);
+        }
+
+        //A search that threw, e.g. on a negative weight, left its queued vertices behind
+        heap.clear();
+
+        for(int i = 0; i < sources.length; i++) {
+            if(dist[sources[i]] == 0) continue;
+
+            dist[sources[i]] = 0;
+
+            if(owner != null) owner[sources[i]] = i;
+
+            heap.offer(sources[i], 0);
+        }
+
+        while(!heap.isEmpty()) {
+            int v = heap.poll();
+            double d = dist[v];
+
+            for(neighbors.reset(v); neighbors.hasNext(); ) {
+                int w = neighbors.next();
+                double weight = neighbors.weight();
+
+                if(weight < 0) throw new IllegalArgumentException("Negative weight on an edge of " + graph.label(v));
+
+                if(d + weight < dist[w]) {
+                    dist[w] = d + weight;
+
+                    if(owner != null) owner[w] = owner[v];
+
+                    if(parents != null) parents[w] = v;
+
+                    heap.offer(w, dist[w]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scratch distances of the calling thread, at least n long
+     */
+    private static double[] distances(int n) {
+        double[] exact = DISTANCES.get();
+
+        if(exact.length < n) {
+            exact = new double[n];
+            DISTANCES.set(exact);
+        }
+
+        return exact;
+    }
+
+    private static void round(double[] exact, float[] dist, int offset, int n) {
+        for(int v = 0; v < n; v++) dist[offset + v] = (float) exact[v];
+    }
+
+    /**
+     * Runs Dijkstra from src without leaving the vertices v such that groups[v] == group
+     * Only the reached vertices are written, so the cost is proportional to the size of the group
+     * dist must be filled with infinity on entry; call {@link #reset(float[], int[], int)} to restore it afterwards
+     * @param graph
+     * @param src the source vertex id, member of the group
+     * @param groups the group of every vertex
+     * @param group the group to stay in
+     * @param dist receives the distance of the reached vertices
+     * @param reached receives the reached vertex ids, must be large enough for the whole group
+     * @return the number of reached vertices
+     */
+    public static int dijkstraWithin(CompactGraph graph, int src, int[] groups, int group, float[] dist, int[] reached) {
+        int count = 0;
+
+        LongHeap heap = HEAPS.get();
+        heap.clear();
+
+        dist[src] = 0f;
+        heap.push(key(0f, src));
+
+        while(!heap.isEmpty()) {
+            long key = heap.pop();
+            int v = (int) key;
+            float d = Float.intBitsToFloat((int) (key >>> 32));
+
+            if(d > dist[v]) continue;
+
+            reached[count++] = v;
+
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int w = graph.target(e);
+
+                if(groups[w] != group) continue;
+
+                float candidate = d + (float) graph.weight(e);
+
+                if(candidate < dist[w]) {
+                    dist[w] = candidate;
+                    heap.push(key(candidate, w));
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Restores the reached entries of dist to infinity
+     * @param dist
+     * @param reached
+     * @param count
+     */
+    public static void reset(float[] dist, int[] reached, int count) {
+        for(int i = 0; i < count; i++) {
+            dist[reached[i]] = Float.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Runs Dijkstra from src but only expands the vertices it brings closer than their current best distance
+     * Used to maintain the distance to the closest of a growing set of sources without recomputing it
+     * @param graph
+     * @param src the new source vertex id
+     * @param best the current distance of every vertex to its closest source, lowered in place
+     * @param changed receives the ids of the vertices whose best distance was lowered, must hold vertexCount ids
+     * @return the number of changed vertices
+     */
+    public static int dijkstraImproving(CompactGraph graph, int src, float[] best, int[] changed) {
+        int count = 0;
+
+        if(!(best[src] > 0f)) return 0;
+
+        LongHeap heap = HEAPS.get();
+        heap.clear();
+
+        best[src] = 0f;
+        heap.push(key(0f, src));
+
+        while(!heap.isEmpty()) {
+            long key = heap.pop();
+            int v = (int) key;
+            float d = Float.intBitsToFloat((int) (key >>> 32));
+
+            if(d > best[v]) continue;
+
+            changed[count++] = v;
+
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int w = graph.target(e);
+                float candidate = d + (float) graph.weight(e);
+
+                if(candidate < best[w]) {
+                    best[w] = candidate;
+                    heap.push(key(candidate, w));
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Non negative floats keep their order when compared as raw int bits
+     * @param distance
+     * @param v
+     * @return the heap key
+     */
+    private static long key(float distance, int v) {
+        return ((long) Float.floatToRawIntBits(distance) << 32) | v;
+    }
+}
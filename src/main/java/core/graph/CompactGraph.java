@@ -0,0 +1,264 @@
+package core.graph;
+
+import core.graph.components.Edge;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of a graph stored as compressed sparse rows (CSR)
+ * Each vertex gets an int id in [0, vertexCount) and the edges of vertex v are the indices
+ * [firstEdge(v), firstEdge(v + 1)) of the targets array, sorted by target id
+ *
+ */
+public class CompactGraph implements IndexedGraph {
+    private final String[] labels;
+    private final Map<String, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final EdgeWeights weights;
+    private final boolean directed;
+
+    /**
+     * Wraps already built CSR arrays
+     * @param labels the label of each vertex id
+     * @param offsets vertexCount + 1 offsets into targets
+     * @param targets the destination id of each edge
+     * @param weights the weight of each edge
+     * @param directed false if every edge is stored in both directions
+     */
+    public CompactGraph(String[] labels, int[] offsets, int[] targets, double[] weights, boolean directed) {
+        this(labels, offsets, targets, EdgeWeights.of(weights, EdgeWeights.WeightStorages.DOUBLE), directed);
+    }
+
+    /**
+     * Wraps already built CSR arrays with weights in any storage
+     * @param labels the label of each vertex id
+     * @param offsets vertexCount + 1 offsets into targets
+     * @param targets the destination id of each edge
+     * @param weights the weight of each edge
+     * @param directed false if every edge is stored in both directions
+     */
+    public CompactGraph(String[] labels, int[] offsets, int[] targets, EdgeWeights weights, boolean directed) {
+        this.labels = labels;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.directed = directed;
+        this.ids = new HashMap<>(labels.length * 2);
+
+        for(int i = 0; i < labels.length; i++) {
+            ids.put(labels[i], i);
+        }
+    }
+
+    /**
+     * Builds a snapshot of the given graph, storing the weights as the graph's weight storage says
+     * @param graph
+     * @return the compact graph
+     */
+    public static CompactGraph of(Graph graph) {
+        return of(graph, graph.getWeightStorage());
+    }
+
+    /**
+     * Builds a snapshot of the given graph
+     * Vertex ids follow the natural order of the labels so that two snapshots of the same graph are identical
+     * @param graph
+     * @param storage the storage of the weights
+     * @return the compact graph
+     */
+    public static CompactGraph of(Graph graph, EdgeWeights.WeightStorages storage) {
+        Map<String, List<Edge>> vertexMap = graph.getVertexMap();
+
+        String[] labels = vertexMap.keySet().toArray(new String[0]);
+        Arrays.sort(labels);
+
+        Map<String, Integer> ids = new HashMap<>(labels.length * 2);
+
+        for(int i = 0; i < labels.length; i++) {
+            ids.put(labels[i], i);
+        }
+
+        int[] offsets = new int[labels.length + 1];
+
+        for(int i = 0; i < labels.length; i++) {
+            offsets[i + 1] = offsets[i] + vertexMap.get(labels[i]).size();
+        }
+
+        int[] targets = new int[offsets[labels.length]];
+        double[] weights = new double[targets.length];
+
+        for(int i = 0; i < labels.length; i++) {
+            List<Edge> edges = vertexMap.get(labels[i]);
+            long[] sorted = new long[edges.size()];
+            int j = 0;
+
+            for(Edge edge: edges) {
+                //Packs the target id with the position in the list to sort without boxing
+                sorted[j] = ((long) ids.get(edge.getDestLabel()) << 32) | j;
+                j++;
+            }
+
+            Arrays.sort(sorted);
+
+            for(j = 0; j < sorted.length; j++) {
+                targets[offsets[i] + j] = (int) (sorted[j] >>> 32);
+                weights[offsets[i] + j] = edges.get((int) sorted[j]).getWeight();
+            }
+        }
+
+        return new CompactGraph(labels, offsets, targets, EdgeWeights.of(weights, storage), graph instanceof DirectedGraph);
+    }
+
+    /**
+     *
+     * @return the number of vertices
+     */
+    @Override
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    /**
+     *
+     * @return the number of stored edges (twice the number of undirected edges)
+     */
+    @Override
+    public int edgesCount() {
+        return targets.length;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the out degree of v
+     */
+    @Override
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     *
+     * @param v
+     * @return the index of the first edge of v, firstEdge(v + 1) being the end of its edges
+     */
+    public int firstEdge(int v) {
+        return offsets[v];
+    }
+
+    /**
+     *
+     * @param edge
+     * @return the destination id of the edge
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     *
+     * @param edge
+     * @return the weight of the edge
+     */
+    public double weight(int edge) {
+        return weights.get(edge);
+    }
+
+    public EdgeWeights getWeights() {
+        return weights;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the label of the vertex id
+     */
+    @Override
+    public String label(int v) {
+        return labels[v];
+    }
+
+    /**
+     *
+     * @param label
+     * @return the id of the vertex or -1 if the graph does not contain it
+     */
+    @Override
+    public int id(String label) {
+        Integer id = ids.get(label);
+
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public NeighborIterator neighbors() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns the transposed graph, i.e. the graph with every edge reversed
+     * An undirected graph is its own transpose
+     * @return the transposed graph
+     */
+    public CompactGraph reverse() {
+        if(!directed) return this;
+
+        int n = labels.length;
+        int[] reversedOffsets = new int[n + 1];
+
+        for(int target: targets) {
+            reversedOffsets[target + 1]++;
+        }
+
+        for(int i = 0; i < n; i++) {
+            reversedOffsets[i + 1] += reversedOffsets[i];
+        }
+
+        int[] next = Arrays.copyOf(reversedOffsets, n);
+        int[] reversedTargets = new int[targets.length];
+        int[] reversedEdges = new int[targets.length];
+
+        //Sources are visited in increasing order so every reversed list comes out sorted
+        for(int v = 0; v < n; v++) {
+            for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+                int slot = next[targets[e]]++;
+                reversedTargets[slot] = v;
+                reversedEdges[slot] = e;
+            }
+        }
+
+        return new CompactGraph(labels, reversedOffsets, reversedTargets, weights.select(reversedEdges), true);
+    }
+
+    private final class Cursor implements NeighborIterator {
+        private int edge;
+        private int end;
+
+        @Override
+        public void reset(int v) {
+            edge = offsets[v];
+            end = offsets[v + 1];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return edge < end;
+        }
+
+        @Override
+        public int next() {
+            return targets[edge++];
+        }
+
+        @Override
+        public double weight() {
+            return weights.get(edge - 1);
+        }
+    }
+}
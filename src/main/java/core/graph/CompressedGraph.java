@@ -0,0 +1,486 @@
+package core.graph;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable graph whose sorted neighbor lists are compressed in the spirit of WebGraph
+ * A list may copy part of the list of one of the WINDOW previous vertices (reference compression), the remaining
+ * neighbors being stored as gaps. Every number is a byte aligned varint, which decodes much faster than bit level
+ * codes for a small loss of space. Byte offsets give random access to every list.
+ * Edges keep the indices of the compact graph they come from, so weights are stored as EdgeWeights in any storage.
+ *
+ */
+public class CompressedGraph implements IndexedGraph {
+
+    /**
+     * How many previous lists are tried as reference
+     */
+    public static final int WINDOW = 7;
+
+    /**
+     * Longest chain of references, which bounds the work to decode one list
+     */
+    public static final int MAX_REFERENCE_CHAIN = 3;
+
+    private static final int MAGIC = 0x43475246;
+
+    private final String[] labels;
+    private final Map<String, Integer> ids;
+    private final byte[] data;
+    private final int[] offsets;
+    private final int[] firstEdges;
+    private final EdgeWeights weights;
+    private final boolean directed;
+    private final int maxDegree;
+
+    /**
+     *
+     * @param labels the label of each vertex id
+     * @param data the encoded lists
+     * @param offsets vertexCount + 1 byte offsets of the lists into data
+     * @param firstEdges vertexCount + 1 offsets of the edges of every vertex
+     * @param weights the weight of each edge
+     * @param directed
+     */
+    public CompressedGraph(String[] labels, byte[] data, int[] offsets, int[] firstEdges, EdgeWeights weights, boolean directed) {
+        this.labels = labels;
+        this.data = data;
+        this.offsets = offsets;
+        this.firstEdges = firstEdges;
+        this.weights = weights;
+        this.directed = directed;
+        this.ids = new HashMap<>(labels.length * 2);
+
+        int max = 0;
+
+        for(int i = 0; i < labels.length; i++) {
+            ids.put(labels[i], i);
+            max = Math.max(max, firstEdges[i + 1] - firstEdges[i]);
+        }
+
+        this.maxDegree = max;
+    }
+
+    /**
+     * Compresses a compact graph, trying every list of the window as reference and keeping the shortest encoding
+     * @param graph
+     * @return the compressed graph
+     */
+    public static CompressedGraph of(CompactGraph graph) {
+        int n = graph.vertexCount();
+        int[] firstEdges = new int[n + 1];
+
+        for(int v = 0; v < n; v++) firstEdges[v + 1] = graph.firstEdge(v + 1);
+
+        ByteBuffer out = new ByteBuffer(Math.max(16, graph.edgesCount()));
+        ByteBuffer best = new ByteBuffer(64);
+        ByteBuffer candidate = new ByteBuffer(64);
+        boolean[] copied = new boolean[0];
+        int[] lengths = new int[0];
+        int[] chains = new int[n];
+        int[] offsets = new int[n + 1];
+
+        for(int v = 0; v < n; v++) {
+            offsets[v] = out.size;
+
+            int degree = graph.degree(v);
+
+            if(degree == 0) continue;
+
+            if(copied.length < degree) copied = new boolean[degree * 2];
+
+            best.size = 0;
+            encode(graph, v, -1, copied, lengths, best);
+            chains[v] = 0;
+
+            for(int r = v - 1; r >= Math.max(0, v - WINDOW); r--) {
+                if(chains[r] >= MAX_REFERENCE_CHAIN || graph.degree(r) == 0) continue;
+
+                //At most one block per neighbor of the reference plus a trailing one
+                if(lengths.length <= graph.degree(r)) lengths = new int[2 * graph.degree(r) + 1];
+
+                candidate.size = 0;
+                encode(graph, v, r, copied, lengths, candidate);
+
+                if(candidate.size < best.size) {
+                    ByteBuffer swap = best;
+                    best = candidate;
+                    candidate = swap;
+                    chains[v] = chains[r] + 1;
+                }
+            }
+
+            out.write(best.bytes, best.size);
+        }
+
+        offsets[n] = out.size;
+
+        String[] labels = new String[n];
+
+        for(int v = 0; v < n; v++) labels[v] = graph.label(v);
+
+        return new CompressedGraph(labels, Arrays.copyOf(out.bytes, out.size), offsets, firstEdges, graph.getWeights(), graph.isDirected());
+    }
+
+    /**
+     * Encodes the list of v as: reference distance (0 for none), then for a reference the number of blocks and the
+     * lengths of the blocks, alternately copied and skipped, the rest of the reference being skipped; then the
+     * neighbors not copied, the first as the zigzag difference to v and the others as gaps
+     * @param copied reused, at least the degree of v long
+     * @param lengths reused, longer than the degree of the reference
+     */
+    private static void encode(CompactGraph graph, int v, int reference, boolean[] copied, int[] lengths, ByteBuffer out) {
+        int first = graph.firstEdge(v);
+        int degree = graph.degree(v);
+
+        Arrays.fill(copied, 0, degree, false);
+
+        if(reference < 0) {
+            out.writeVarint(0);
+        } else {
+            out.writeVarint(v - reference);
+
+            //Marks the neighbors found in the reference, equal targets being matched in order
+            int referenceFirst = graph.firstEdge(reference);
+            int referenceEnd = graph.firstEdge(reference + 1);
+            int blocks = 0;
+            int run = 0;
+            boolean copying = true;
+
+            //The block lengths are written after their count, so they are buffered first
+            for(int i = referenceFirst, j = 0; i < referenceEnd; i++) {
+                int target = graph.target(i);
+
+                while(j < degree && graph.target(first + j) < target) j++;
+
+                boolean match = j < degree && graph.target(first + j) == target;
+
+                if(match) copied[j++] = true;
+
+                if(match != copying) {
+                    lengths[blocks++] = run;
+                    run = 0;
+                    copying = match;
+                }
+
+                run++;
+            }
+
+            //A trailing copied run is closed, a trailing skipped run is implicit
+            if(copying && run > 0) lengths[blocks++] = run;
+
+            out.writeVarint(blocks);
+
+            for(int b = 0; b < blocks; b++) out.writeVarint(lengths[b]);
+        }
+
+        int previous = -1;
+
+        for(int j = 0; j < degree; j++) {
+            if(copied[j]) continue;
+
+            int target = graph.target(first + j);
+
+            if(previous < 0) {
+                int delta = target - v;
+
+                out.writeVarint((delta << 1) ^ (delta >> 31));
+            } else {
+                out.writeVarint(target - previous);
+            }
+
+            previous = target;
+        }
+    }
+
+    @Override
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    @Override
+    public int edgesCount() {
+        return firstEdges[labels.length];
+    }
+
+    @Override
+    public int degree(int v) {
+        return firstEdges[v + 1] - firstEdges[v];
+    }
+
+    /**
+     *
+     * @param v
+     * @return the index of the first edge of v, in the order of the decoded neighbors
+     */
+    public int firstEdge(int v) {
+        return firstEdges[v];
+    }
+
+    public double weight(int edge) {
+        return weights.get(edge);
+    }
+
+    public EdgeWeights getWeights() {
+        return weights;
+    }
+
+    @Override
+    public String label(int v) {
+        return labels[v];
+    }
+
+    @Override
+    public int id(String label) {
+        Integer id = ids.get(label);
+
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     *
+     * @return the size of the encoded lists in bytes
+     */
+    public long bytes() {
+        return data.length;
+    }
+
+    @Override
+    public NeighborIterator neighbors() {
+        return new Decoder();
+    }
+
+    /**
+     * Decodes the whole graph back to CSR arrays
+     * @return the compact graph
+     */
+    public CompactGraph toCompactGraph() {
+        int n = labels.length;
+        int[] targets = new int[edgesCount()];
+        Decoder decoder = new Decoder();
+
+        for(int v = 0; v < n; v++) {
+            decoder.reset(v);
+            System.arraycopy(decoder.lists[0], 0, targets, firstEdges[v], decoder.size);
+        }
+
+        return new CompactGraph(labels.clone(), firstEdges.clone(), targets, weights, directed);
+    }
+
+    /**
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void write(DataOutputStream out) throws IOException {
+        int n = labels.length;
+
+        out.writeInt(MAGIC);
+        out.writeBoolean(directed);
+        out.writeInt(n);
+        out.writeInt(data.length);
+        out.writeByte(weights.getStorage().ordinal());
+
+        for(String label: labels) out.writeUTF(label);
+
+        for(int v = 0; v < n; v++) {
+            out.writeInt(offsets[v + 1] - offsets[v]);
+            out.writeInt(firstEdges[v + 1] - firstEdges[v]);
+        }
+
+        out.write(data);
+
+        weights.write(out);
+    }
+
+    /**
+     *
+     * @param in
+     * @return the graph written by write
+     * @throws IOException if the stream does not hold a compressed graph
+     */
+    public static CompressedGraph read(DataInputStream in) throws IOException {
+        if(in.readInt() != MAGIC) throw new IOException("Not a compressed graph");
+
+        boolean directed = in.readBoolean();
+        int n = in.readInt();
+        int length = in.readInt();
+
+        if(n < 0 || length < 0) throw new IOException("Corrupt compressed graph header");
+
+        byte[] data = new byte[length];
+        int ordinal = in.readByte();
+
+        if(ordinal < 0 || ordinal >= EdgeWeights.WeightStorages.values().length) throw new IOException("Unknown weight storage " + ordinal);
+
+        EdgeWeights.WeightStorages storage = EdgeWeights.WeightStorages.values()[ordinal];
+        String[] labels = new String[n];
+        int[] offsets = new int[n + 1];
+        int[] firstEdges = new int[n + 1];
+
+        for(int v = 0; v < n; v++) labels[v] = in.readUTF();
+
+        for(int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + in.readInt();
+            firstEdges[v + 1] = firstEdges[v] + in.readInt();
+        }
+
+        in.readFully(data);
+
+        return new CompressedGraph(labels, data, offsets, firstEdges, EdgeWeights.read(in, storage, firstEdges[n]), directed);
+    }
+
+    /**
+     * Decodes a whole list at reset, the lists of the references being decoded in buffers of their own
+     */
+    private final class Decoder implements NeighborIterator {
+        private final int[][] lists = new int[MAX_REFERENCE_CHAIN + 1][maxDegree];
+        private int cursor;
+        private int index;
+        private int size;
+        private int edge;
+
+        @Override
+        public void reset(int v) {
+            size = decode(v, 0);
+            index = 0;
+            edge = firstEdges[v];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public int next() {
+            edge++;
+
+            return lists[0][index++];
+        }
+
+        @Override
+        public double weight() {
+            return weights.get(edge - 1);
+        }
+
+        private int readVarint() {
+            int value = 0;
+
+            for(int shift = 0; ; shift += 7) {
+                byte b = data[cursor++];
+                value |= (b & 0x7F) << shift;
+
+                if(b >= 0) return value;
+            }
+        }
+
+        /**
+         * Decodes the list of v in lists[depth]
+         * @return the degree of v
+         */
+        private int decode(int v, int depth) {
+            int degree = firstEdges[v + 1] - firstEdges[v];
+
+            if(degree == 0) return 0;
+
+            int[] list = lists[depth];
+            int[] copied = lists[Math.min(depth + 1, MAX_REFERENCE_CHAIN)];
+            int copiedCount = 0;
+
+            cursor = offsets[v];
+
+            int referenceDistance = readVarint();
+
+            if(referenceDistance > 0) {
+                int blocks = readVarint();
+                int blocksCursor = cursor;
+
+                for(int b = 0; b < blocks; b++) readVarint();
+
+                int residualsCursor = cursor;
+
+                decode(v - referenceDistance, depth + 1);
+
+                //Copied elements are compacted at the start of the reference buffer
+                cursor = blocksCursor;
+
+                for(int b = 0, i = 0; b < blocks; b++) {
+                    int length = readVarint();
+
+                    if((b & 1) == 0) {
+                        for(int j = 0; j < length; j++) copied[copiedCount++] = copied[i + j];
+                    }
+
+                    i += length;
+                }
+
+                cursor = residualsCursor;
+            }
+
+            //Merges the residuals, decoded on the fly, with the copied elements
+            int residualCount = degree - copiedCount;
+            int residual = 0;
+            int read = 0;
+            int c = 0;
+            int size = 0;
+
+            if(residualCount > 0) {
+                int zigzag = readVarint();
+                residual = v + ((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+
+            while(size < degree) {
+                if(read < residualCount && (c == copiedCount || residual < copied[c])) {
+                    list[size++] = residual;
+
+                    if(++read < residualCount) residual += readVarint();
+                } else {
+                    list[size++] = copied[c++];
+                }
+            }
+
+            return degree;
+        }
+    }
+
+    /**
+     * Growable byte array
+     */
+    private static final class ByteBuffer {
+        private byte[] bytes;
+        private int size;
+
+        private ByteBuffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void writeVarint(int value) {
+            if(size + 5 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 5));
+
+            while((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            bytes[size++] = (byte) value;
+        }
+
+        private void write(byte[] source, int length) {
+            if(size + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package core.graph;
+
+import core.graph.components.Edge;
+
+/**
+ * Flyweight edge: one object moved over the out edges of a vertex, so iterating edges allocates nothing
+ * Usage: while(cursor.next()) { cursor.getDest() ... }
+ *
+ */
+public final class EdgeCursor {
+    private final IndexedGraph graph;
+    private final NeighborIterator neighbors;
+    private int src = -1;
+    private int dest = -1;
+
+    EdgeCursor(IndexedGraph graph) {
+        this.graph = graph;
+        this.neighbors = graph.neighbors();
+    }
+
+    /**
+     * Moves the cursor before the first out edge of src
+     * @param src
+     */
+    void reset(int src) {
+        this.src = src;
+        this.dest = -1;
+        neighbors.reset(src);
+    }
+
+    /**
+     * Moves to the next edge
+     * @return false once the edges are exhausted
+     */
+    public boolean next() {
+        if(src < 0 || !neighbors.hasNext()) return false;
+
+        dest = neighbors.next();
+
+        return true;
+    }
+
+    public int getSrc() {
+        return src;
+    }
+
+    public int getDest() {
+        return dest;
+    }
+
+    public String getSrcLabel() {
+        return graph.label(src);
+    }
+
+    public String getDestLabel() {
+        return graph.label(dest);
+    }
+
+    public double getWeight() {
+        return neighbors.weight();
+    }
+
+    /**
+     * Creates an edge object for the current edge, which stays valid once the cursor moves
+     * @return the edge
+     */
+    public Edge materialize() {
+        return new Edge(getSrcLabel(), getDestLabel(), getWeight());
+    }
+}
@@ -0,0 +1,329 @@
+package core.graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Storage of the edge weights of a compact graph, indexed by edge
+ * Weights are always read as doubles whatever the storage, so algorithms do not depend on it. Per edge the storages
+ * cost 0, 4, 2 and 8 bytes.
+ *
+ */
+public abstract class EdgeWeights {
+
+    /**
+     * The weight of every edge of an unweighted graph
+     */
+    public static final double UNIT_WEIGHT = 1;
+
+    private static final int QUANTIZATION_LEVELS = 0xFFFF;
+
+    public enum WeightStorages {
+        /**
+         * Unweighted, every edge weighs UNIT_WEIGHT
+         */
+        NONE,
+        /**
+         * Single precision, within 3e-8 of the weights in [0, 1) of the generators
+         */
+        FLOAT,
+        /**
+         * 65536 evenly spaced levels between the lowest and the highest weight, the error being at most half a level
+         */
+        QUANTIZED_16,
+        DOUBLE
+    }
+
+    /**
+     * Encodes the weights with the given storage
+     * @param weights the weight of each edge
+     * @param storage
+     * @return the encoded weights, wrapping the array itself for DOUBLE
+     */
+    public static EdgeWeights of(double[] weights, WeightStorages storage) {
+        switch (storage) {
+            case NONE:
+                return new Unit(weights.length);
+            case FLOAT:
+                float[] floats = new float[weights.length];
+
+                for(int e = 0; e < weights.length; e++) floats[e] = (float) weights[e];
+
+                return new Floats(floats);
+            case QUANTIZED_16:
+                return Quantized.encode(weights);
+            case DOUBLE:
+                return new Doubles(weights);
+            default:
+                throw new IllegalArgumentException("Unknown weight storage");
+        }
+    }
+
+    /**
+     * Reads weights written by write
+     * @param in
+     * @param storage the storage they were written in
+     * @param size the number of edges
+     * @return the weights
+     * @throws IOException
+     */
+    public static EdgeWeights read(DataInput in, WeightStorages storage, int size) throws IOException {
+        switch (storage) {
+            case NONE:
+                return new Unit(size);
+            case FLOAT:
+                float[] floats = new float[size];
+
+                for(int e = 0; e < size; e++) floats[e] = in.readFloat();
+
+                return new Floats(floats);
+            case QUANTIZED_16:
+                double min = in.readDouble();
+                double step = in.readDouble();
+                short[] codes = new short[size];
+
+                for(int e = 0; e < size; e++) codes[e] = in.readShort();
+
+                return new Quantized(codes, min, step);
+            case DOUBLE:
+                double[] doubles = new double[size];
+
+                for(int e = 0; e < size; e++) doubles[e] = in.readDouble();
+
+                return new Doubles(doubles);
+            default:
+                throw new IllegalArgumentException("Unknown weight storage");
+        }
+    }
+
+    /**
+     *
+     * @param edge
+     * @return the weight of the edge
+     */
+    public abstract double get(int edge);
+
+    /**
+     *
+     * @return the number of edges
+     */
+    public abstract int size();
+
+    public abstract WeightStorages getStorage();
+
+    /**
+     * Copies the weights of some edges in the same storage, without decoding them
+     * @param edges the old index of every new edge
+     * @return the weights of the given edges
+     */
+    public abstract EdgeWeights select(int[] edges);
+
+    /**
+     *
+     * @return the bytes used by the weights
+     */
+    public abstract long bytes();
+
+    /**
+     * Writes the weights in their storage, bytes() bytes plus a header of at most 16 bytes
+     * The storage and the size are not written.
+     * @param out
+     * @throws IOException
+     */
+    public abstract void write(DataOutput out) throws IOException;
+
+    private static final class Unit extends EdgeWeights {
+        private final int size;
+
+        private Unit(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public double get(int edge) {
+            return UNIT_WEIGHT;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public WeightStorages getStorage() {
+            return WeightStorages.NONE;
+        }
+
+        @Override
+        public EdgeWeights select(int[] edges) {
+            return new Unit(edges.length);
+        }
+
+        @Override
+        public long bytes() {
+            return 0;
+        }
+
+        @Override
+        public void write(DataOutput out) {
+        }
+    }
+
+    private static final class Floats extends EdgeWeights {
+        private final float[] weights;
+
+        private Floats(float[] weights) {
+            this.weights = weights;
+        }
+
+        @Override
+        public double get(int edge) {
+            return weights[edge];
+        }
+
+        @Override
+        public int size() {
+            return weights.length;
+        }
+
+        @Override
+        public WeightStorages getStorage() {
+            return WeightStorages.FLOAT;
+        }
+
+        @Override
+        public EdgeWeights select(int[] edges) {
+            float[] selected = new float[edges.length];
+
+            for(int i = 0; i < edges.length; i++) selected[i] = weights[edges[i]];
+
+            return new Floats(selected);
+        }
+
+        @Override
+        public long bytes() {
+            return 4L * weights.length;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            for(float weight: weights) out.writeFloat(weight);
+        }
+    }
+
+    /**
+     * Weight = min + code * step, codes being unsigned shorts
+     */
+    private static final class Quantized extends EdgeWeights {
+        private final short[] codes;
+        private final double min;
+        private final double step;
+
+        private Quantized(short[] codes, double min, double step) {
+            this.codes = codes;
+            this.min = min;
+            this.step = step;
+        }
+
+        private static Quantized encode(double[] weights) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for(double weight: weights) {
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+
+            if(weights.length == 0) min = max = 0;
+
+            double step = max > min ? (max - min) / QUANTIZATION_LEVELS : 0;
+            short[] codes = new short[weights.length];
+
+            if(step > 0) {
+                for(int e = 0; e < weights.length; e++) codes[e] = (short) Math.round((weights[e] - min) / step);
+            }
+
+            return new Quantized(codes, min, step);
+        }
+
+        @Override
+        public double get(int edge) {
+            return min + (codes[edge] & 0xFFFF) * step;
+        }
+
+        @Override
+        public int size() {
+            return codes.length;
+        }
+
+        @Override
+        public WeightStorages getStorage() {
+            return WeightStorages.QUANTIZED_16;
+        }
+
+        @Override
+        public EdgeWeights select(int[] edges) {
+            short[] selected = new short[edges.length];
+
+            for(int i = 0; i < edges.length; i++) selected[i] = codes[edges[i]];
+
+            return new Quantized(selected, min, step);
+        }
+
+        @Override
+        public long bytes() {
+            return 2L * codes.length;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            out.writeDouble(min);
+            out.writeDouble(step);
+
+            for(short code: codes) out.writeShort(code);
+        }
+    }
+
+    private static final class Doubles extends EdgeWeights {
+        private final double[] weights;
+
+        private Doubles(double[] weights) {
+            this.weights = weights;
+        }
+
+        @Override
+        public double get(int edge) {
+            return weights[edge];
+        }
+
+        @Override
+        public int size() {
+            return weights.length;
+        }
+
+        @Override
+        public WeightStorages getStorage() {
+            return WeightStorages.DOUBLE;
+        }
+
+        @Override
+        public EdgeWeights select(int[] edges) {
+            double[] selected = new double[edges.length];
+
+            for(int i = 0; i < edges.length; i++) selected[i] = weights[edges[i]];
+
+            return new Doubles(selected);
+        }
+
+        @Override
+        public long bytes() {
+            return 8L * weights.length;
+        }
+
+        @Override
+        public void write(DataOutput out) throws IOException {
+            for(double weight: weights) out.writeDouble(weight);
+        }
+    }
+}
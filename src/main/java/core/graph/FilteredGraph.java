@@ -0,0 +1,159 @@
+package core.graph;
+
+/**
+ * Zero copy view of a graph restricted to some of its vertices
+ * Ids and labels are those of the underlying graph: the vertices filtered out are still counted, with no edges, and
+ * the edges to them are skipped while iterating. Only the filtered degrees are stored, counted once with the view.
+ *
+ */
+public class FilteredGraph implements IndexedGraph {
+    private final IndexedGraph graph;
+    private final boolean[] kept;
+    private final int keptCount;
+    private final int edgesCount;
+
+    /**
+     * Number of kept neighbors of every vertex id, 0 for the vertices filtered out
+     */
+    private final int[] degrees;
+
+    /**
+     * Counts the kept vertices and the kept neighbors of each, the only pass over the graph
+     * @param graph
+     * @param kept whether each vertex id is kept, not copied
+     */
+    public FilteredGraph(IndexedGraph graph, boolean[] kept) {
+        this.graph = graph;
+        this.kept = kept;
+
+        NeighborIterator neighbors = graph.neighbors();
+        int vertices = 0;
+        int edges = 0;
+
+        this.degrees = new int[kept.length];
+
+        for(int v = 0; v < kept.length; v++) {
+            if(!kept[v]) continue;
+
+            vertices++;
+
+            for(neighbors.reset(v); neighbors.hasNext(); ) {
+                if(kept[neighbors.next()]) degrees[v]++;
+            }
+
+            edges += degrees[v];
+        }
+
+        this.keptCount = vertices;
+        this.edgesCount = edges;
+    }
+
+    /**
+     *
+     * @param v
+     * @return true if the view keeps v
+     */
+    public boolean contains(int v) {
+        return kept[v];
+    }
+
+    /**
+     *
+     * @return the number of kept vertices
+     */
+    public int keptCount() {
+        return keptCount;
+    }
+
+    @Override
+    public int vertexCount() {
+        return graph.vertexCount();
+    }
+
+    @Override
+    public int edgesCount() {
+        return edgesCount;
+    }
+
+    @Override
+    public int degree(int v) {
+        return degrees[v];
+    }
+
+    @Override
+    public String label(int v) {
+        return graph.label(v);
+    }
+
+    @Override
+    public int id(String label) {
+        return graph.id(label);
+    }
+
+    @Override
+    public boolean isDirected() {
+        return graph.isDirected();
+    }
+
+    @Override
+    public NeighborIterator neighbors() {
+        return new Filter(graph.neighbors());
+    }
+
+    /**
+     * Looks one kept neighbor ahead, so that hasNext stays a plain check
+     */
+    private final class Filter implements NeighborIterator {
+        private final NeighborIterator neighbors;
+        private int next = -1;
+        private double nextWeight;
+        private double weight;
+
+        private Filter(NeighborIterator neighbors) {
+            this.neighbors = neighbors;
+        }
+
+        @Override
+        public void reset(int v) {
+            next = -1;
+
+            if(!kept[v]) return;
+
+            neighbors.reset(v);
+            advance();
+        }
+
+        private void advance() {
+            next = -1;
+
+            while(neighbors.hasNext()) {
+                int w = neighbors.next();
+
+                if(kept[w]) {
+                    next = w;
+                    nextWeight = neighbors.weight();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public int next() {
+            int w = next;
+            weight = nextWeight;
+            advance();
+
+            return w;
+        }
+
+        @Override
+        public double weight() {
+            return weight;
+        }
+    }
+}
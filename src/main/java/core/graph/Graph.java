@@ -1,11 +1,13 @@
 package core.graph;
 
 import core.graph.components.Edge;
+import gui.Playback;
 import gui.Visualizer;
 import utils.GraphTraversal;
 import utils.exceptions.GraphException;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a graph
@@ -17,6 +19,10 @@ public abstract class Graph {
 
     private org.graphstream.graph.Graph layout;
 
+    private List<GraphListener> listeners = new CopyOnWriteArrayList<>();
+
+    private EdgeWeights.WeightStorages weightStorage = EdgeWeights.WeightStorages.DOUBLE;
+
     /**
      * Adds a vertex to the graph
      * @param label
@@ -50,6 +56,8 @@ public abstract class Graph {
         }
 
         sortVertices();
+
+        for(GraphListener listener: listeners) listener.edgeAdded(src, dest);
     }
 
     /**
@@ -57,8 +65,8 @@ public abstract class Graph {
      * @param edge
      */
     public void addEdge(Edge edge) {
-        String src = edge.getSrc().toString();
-        String dest = edge.getDest().toString();
+        String src = edge.getSrcLabel();
+        String dest = edge.getDestLabel();
 
         if(!vertexMap.containsKey(src)) {
             addVertex(src);
@@ -71,6 +79,8 @@ public abstract class Graph {
         if(!vertexMap.get(src).contains(edge)) vertexMap.get(src).add(edge);
 
         sortVertices();
+
+        for(GraphListener listener: listeners) listener.edgeAdded(src, dest);
     }
 
     /**
@@ -82,10 +92,10 @@ public abstract class Graph {
             vertexMap.remove(label);
 
             for(List<Edge> edges: vertexMap.values()) {
-                for(Edge edge: edges) {
-                    if(edge.getDest().toString() == label) edges.remove(edge);
-                }
+                edges.removeIf(edge -> edge.getDestLabel().contentEquals(label));
             }
+
+            for(GraphListener listener: listeners) listener.vertexRemoved(label);
         }
     }
 
@@ -102,6 +112,9 @@ public abstract class Graph {
             for(Edge e: edges) {
                 if(e.equals(dest)) {
                     edges.remove(e);
+
+                    for(GraphListener listener: listeners) listener.edgeRemoved(src, dest);
+
                     break;
                 }
             }
@@ -110,37 +123,35 @@ public abstract class Graph {
 
     /**
      * Generates the layout in order to visualize the graph with GraphStream
+     * The layout is built once and then kept up to date by the changes of the graph
      * @return the graph layout
      */
     public org.graphstream.graph.Graph generateLayout() {
 
-        org.graphstream.graph.Graph graphLayout = Visualizer.getInstance().newGraph(this);
+        if(layout == null) {
+            org.graphstream.graph.Graph graphLayout = Visualizer.getInstance().newGraph(this);
 
-        setLayout(graphLayout);
+            setLayout(graphLayout);
+        }
 
-        return graphLayout;
+        return layout;
     }
 
     /**
      * Traverses the graph from the first vertex using the specified type
+     * The traversal is computed and animated in the background
      * @param type BF(breadth first) or DF(depth first)
-     * @throws InterruptedException
+     * @return the playback of the traversal
      * @throws GraphException
      */
-    public void traverse(String type) throws InterruptedException, GraphException {
-        ArrayList<String> result;
-
+    public Playback traverse(String type) throws GraphException {
         switch (type) {
             case "BF":
-                result = GraphTraversal.breadthFirstTraversal(this);
                 generateLayout();
-                Visualizer.getInstance().traverse(result, layout);
-                break;
+                return Visualizer.getInstance().traverse(() -> GraphTraversal.breadthFirstTraversal(this), layout);
             case "DF":
-                result = GraphTraversal.depthFirstTraversal(this);
                 generateLayout();
-                Visualizer.getInstance().traverse(result, layout);
-                break;
+                return Visualizer.getInstance().traverse(() -> GraphTraversal.depthFirstTraversal(this), layout);
             default:
                 throw new GraphException("Unrecognized traversal algorithm");
         }
@@ -148,25 +159,20 @@ public abstract class Graph {
 
     /**
      * Traverses the graph from src using the specified type
+     * The traversal is computed and animated in the background
      * @param type BF(breadth first) or DF(depth first)
      * @param src the vertex to start the traversal
+     * @return the playback of the traversal
      * @throws GraphException
-     * @throws InterruptedException
      */
-    public void traverse(String type, String src) throws GraphException, InterruptedException {
-        ArrayList<String> result;
-
+    public Playback traverse(String type, String src) throws GraphException {
         switch (type) {
             case "BF":
-                result = GraphTraversal.breadthFirstTraversal(this, src);
                 generateLayout();
-                Visualizer.getInstance().traverse(result, layout);
-                break;
+                return Visualizer.getInstance().traverse(() -> GraphTraversal.breadthFirstTraversal(this, src), layout);
             case "DF":
-                result = GraphTraversal.depthFirstTraversal(this, src);
                 generateLayout();
-                Visualizer.getInstance().traverse(result, layout);
-                break;
+                return Visualizer.getInstance().traverse(() -> GraphTraversal.depthFirstTraversal(this, src), layout);
             default:
                 throw new GraphException("Unrecognized traversal algorithm");
         }
@@ -179,6 +185,8 @@ public abstract class Graph {
     public boolean clear() {
         vertexMap.clear();
 
+        for(GraphListener listener: listeners) listener.graphCleared();
+
         return vertexMap.size() == 0;
     }
 
@@ -198,6 +206,35 @@ public abstract class Graph {
         this.vertexMap = vertexMap;
     }
 
+    public EdgeWeights.WeightStorages getWeightStorage() {
+        return weightStorage;
+    }
+
+    /**
+     * Sets how the compact snapshots of the graph store their weights, the algorithms working on snapshots reading
+     * them transparently
+     * @param weightStorage
+     */
+    public void setWeightStorage(EdgeWeights.WeightStorages weightStorage) {
+        this.weightStorage = weightStorage;
+    }
+
+    /**
+     * Registers a listener notified of every structural change
+     * @param listener
+     */
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     *
+     * @param listener
+     */
+    public void removeListener(GraphListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Prints the graph to the console
      */
@@ -264,7 +301,7 @@ public abstract class Graph {
             stringBuilder.append(entry.getKey() + ": ");
 
             for(Edge e: entry.getValue()) {
-                stringBuilder.append("(" + e.getDest().getLabel() + ", " + String.valueOf(e.getWeight()) + ") ");
+                stringBuilder.append("(" + e.getDestLabel() + ", " + String.valueOf(e.getWeight()) + ") ");
             }
 
             stringBuilder.append("\n");
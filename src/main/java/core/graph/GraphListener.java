@@ -0,0 +1,17 @@
+package core.graph;
+
+/**
+ * Receives the structural changes of a graph
+ * Undirected graphs notify both directions of an edge
+ *
+ */
+public interface GraphListener {
+
+    void edgeAdded(String src, String dest);
+
+    void edgeRemoved(String src, String dest);
+
+    void vertexRemoved(String label);
+
+    void graphCleared();
+}
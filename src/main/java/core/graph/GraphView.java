@@ -0,0 +1,142 @@
+package core.graph;
+
+import core.graph.components.Edge;
+
+import java.util.*;
+
+/**
+ * Read only object view over an indexed graph, plain or compressed
+ * Vertices and edges are read through reusable cursors, so traversals create no garbage; Vertex and Edge objects
+ * are only created on demand, when a cursor is materialized or through the vertex map adapter.
+ *
+ */
+public class GraphView {
+    private final IndexedGraph graph;
+
+    public GraphView(IndexedGraph graph) {
+        this.graph = graph;
+    }
+
+    public IndexedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     *
+     * @return a cursor positioned before the first vertex
+     */
+    public VertexCursor vertices() {
+        return new VertexCursor(graph);
+    }
+
+    /**
+     *
+     * @param label
+     * @return a cursor positioned on the vertex, null if the graph does not contain it
+     */
+    public VertexCursor vertex(String label) {
+        int id = graph.id(label);
+
+        if(id < 0) return null;
+
+        VertexCursor cursor = new VertexCursor(graph);
+        cursor.moveTo(id);
+
+        return cursor;
+    }
+
+    /**
+     * Adapts the view to the map of Graph.getVertexMap for the code written against it, e.g. Visualizer.build
+     * Keys are the labels in id order; the edge list of a vertex is materialized at every get, so iterating the
+     * entries only holds the edges of one vertex at a time. The map cannot be modified.
+     * @return the label to edges map
+     */
+    public Map<String, List<Edge>> asVertexMap() {
+        return new VertexMap();
+    }
+
+    private final class VertexMap extends AbstractMap<String, List<Edge>> {
+
+        @Override
+        public int size() {
+            return graph.vertexCount();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && graph.id((String) key) >= 0;
+        }
+
+        @Override
+        public List<Edge> get(Object key) {
+            if(!(key instanceof String)) return null;
+
+            VertexCursor cursor = vertex((String) key);
+
+            return cursor == null ? null : Collections.unmodifiableList(cursor.materializeEdges());
+        }
+
+        @Override
+        public Set<Entry<String, List<Edge>>> entrySet() {
+            return new AbstractSet<Entry<String, List<Edge>>>() {
+                @Override
+                public int size() {
+                    return graph.vertexCount();
+                }
+
+                @Override
+                public Iterator<Entry<String, List<Edge>>> iterator() {
+                    VertexCursor cursor = vertices();
+
+                    return new Iterator<Entry<String, List<Edge>>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return cursor.getId() + 1 < graph.vertexCount();
+                        }
+
+                        @Override
+                        public Entry<String, List<Edge>> next() {
+                            if(!cursor.next()) throw new NoSuchElementException();
+
+                            return new SimpleImmutableEntry<>(cursor.getLabel(), Collections.unmodifiableList(cursor.materializeEdges()));
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+                @Override
+                public int size() {
+                    return graph.vertexCount();
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+
+                @Override
+                public Iterator<String> iterator() {
+                    return new Iterator<String>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < graph.vertexCount();
+                        }
+
+                        @Override
+                        public String next() {
+                            if(next >= graph.vertexCount()) throw new NoSuchElementException();
+
+                            return graph.label(next++);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package core.graph;
+
+/**
+ * Immutable graph whose vertices are the ids [0, vertexCount), read through neighbor iterators
+ * Lets traversals run on any layout, plain or compressed.
+ *
+ */
+public interface IndexedGraph {
+
+    int vertexCount();
+
+    /**
+     *
+     * @return the number of stored edges (twice the number of undirected edges)
+     */
+    int edgesCount();
+
+    /**
+     *
+     * @param v
+     * @return the out degree of v
+     */
+    int degree(int v);
+
+    String label(int v);
+
+    /**
+     *
+     * @param label
+     * @return the id of the vertex or -1 if the graph does not contain it
+     */
+    int id(String label);
+
+    boolean isDirected();
+
+    /**
+     * Creates a cursor over the neighbors of the vertices, to be reused from vertex to vertex by one thread
+     * @return the cursor, positioned on no vertex
+     */
+    NeighborIterator neighbors();
+}
@@ -0,0 +1,28 @@
+package core.graph;
+
+/**
+ * Reusable cursor over the out neighbors of one vertex at a time, in increasing id order
+ *
+ */
+public interface NeighborIterator {
+
+    /**
+     * Moves the cursor to the neighbors of v
+     * @param v
+     */
+    void reset(int v);
+
+    boolean hasNext();
+
+    /**
+     *
+     * @return the id of the next neighbor
+     */
+    int next();
+
+    /**
+     *
+     * @return the weight of the edge to the neighbor last returned by next
+     */
+    double weight();
+}
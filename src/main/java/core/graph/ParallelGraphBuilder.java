@@ -0,0 +1,443 @@
+package core.graph;
+
+import core.graph.components.Edge;
+import utils.exceptions.GraphException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a compact graph from edges produced by many threads at once
+ * Every producer appends to its own primitive buffer, without locking. build then sorts the edges by source with a
+ * parallel radix sort whose prefix sums give the offsets, and sorts every neighbor list in parallel. Unlike
+ * Graph.addEdge, which keeps the first edge added, an edge added twice is kept once with its smallest weight, so the
+ * result does not depend on the order in which the threads add their edges.
+ * Vertices are given either by int ids or by labels, not both. Labels get their ids in natural order, as in
+ * CompactGraph.of.
+ * addEdge keeps a buffer per thread until build, which only releases the one of its own thread: pooled threads that
+ * outlive the builder should add through buffer() instead.
+ *
+ */
+public class ParallelGraphBuilder {
+
+    /**
+     * Edges per parallel task when scanning the buffers
+     */
+    private static final int CHUNK = 1 << 16;
+
+    /**
+     * Log2 of the largest number of source buckets of the first sort pass
+     */
+    private static final int BUCKET_BITS = 10;
+
+    /**
+     * Lists up to this degree are sorted in place by insertion
+     */
+    private static final int INSERTION_SORT_DEGREE = 32;
+
+    private final boolean directed;
+    private final Queue<EdgeBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<EdgeBuffer> threadBuffers = ThreadLocal.withInitial(this::buffer);
+
+    /**
+     * Label dictionary, only used when vertices are given by labels
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger labelsCount = new AtomicInteger();
+
+    private final AtomicBoolean built = new AtomicBoolean();
+
+    /**
+     *
+     * @param graphType the type of the graph, an undirected edge being stored in both directions
+     */
+    public ParallelGraphBuilder(GraphFactory.GraphTypes graphType) {
+        this.directed = graphType == GraphFactory.GraphTypes.DIRECTED;
+    }
+
+    /**
+     * Creates a buffer for one producer thread
+     * @return the buffer, not thread safe
+     */
+    public EdgeBuffer buffer() {
+        EdgeBuffer buffer = new EdgeBuffer();
+        buffers.add(buffer);
+
+        return buffer;
+    }
+
+    /**
+     * Adds an edge to the buffer of the calling thread
+     * @param src
+     * @param dest
+     * @param weight
+     */
+    public void addEdge(int src, int dest, double weight) {
+        threadBuffers.get().add(src, dest, weight);
+    }
+
+    /**
+     * Adds an edge to the buffer of the calling thread
+     * @param src
+     * @param dest
+     * @param weight
+     */
+    public void addEdge(String src, String dest, double weight) {
+        threadBuffers.get().add(src, dest, weight);
+    }
+
+    /**
+     * Adds a vertex without edges
+     * @param label
+     */
+    public void addVertex(String label) {
+        checkNotBuilt();
+        id(label);
+    }
+
+    private void checkNotBuilt() {
+        if(built.get()) throw new IllegalStateException("The graph is already built");
+    }
+
+    private int id(String label) {
+        Integer id = ids.get(label);
+
+        return id != null ? id : ids.computeIfAbsent(label, l -> labelsCount.getAndIncrement());
+    }
+
+    /**
+     * Appends the edges of one producer
+     */
+    public final class EdgeBuffer {
+        private int[] sources = new int[1024];
+        private int[] destinations = new int[1024];
+        private double[] weights = new double[1024];
+        private int size;
+        private int maxId = -1;
+        private boolean intIds;
+
+        private EdgeBuffer() {}
+
+        public void add(int src, int dest, double weight) {
+            intIds = true;
+            append(src, dest, weight);
+        }
+
+        public void add(String src, String dest, double weight) {
+            if(intIds) throw new IllegalStateException("Vertices are given both by int ids and by labels");
+
+            //Checked before the labels get ids, the dictionary being cleared by build
+            checkNotBuilt();
+            append(id(src), id(dest), weight);
+        }
+
+        private void append(int src, int dest, double weight) {
+            checkNotBuilt();
+
+            if(src < 0 || dest < 0) throw new IllegalArgumentException("Vertex ids must be non negative");
+
+            if(size == sources.length) {
+                int capacity = size + (size >> 1);
+
+                sources = Arrays.copyOf(sources, capacity);
+                destinations = Arrays.copyOf(destinations, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+
+            sources[size] = src;
+            destinations[size] = dest;
+            weights[size++] = weight;
+            maxId = Math.max(maxId, Math.max(src, dest));
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Builds the graph once every producer is done
+     * Two pass radix sort by source: the edges are first moved to buckets of consecutive sources, every chunk of the
+     * buffers writing its own slice of every bucket, then every bucket is sorted by source on its own. Both passes
+     * run in parallel without atomics, and the second one stays within a bucket, which fits in cache for most graphs.
+     * @return the compact graph, vertex ids being the int ids or the ranks of the labels in natural order
+     * @throws GraphException if there are more edges than an int can index
+     * @throws IllegalStateException if vertices were given both by int ids and by labels, or build was already called
+     */
+    public CompactGraph build() throws GraphException {
+        //The buffers are released and the label ids remapped in place, a second build would find neither
+        if(!built.compareAndSet(false, true)) throw new IllegalStateException("The graph is already built");
+
+        EdgeBuffer[] sources = buffers.toArray(new EdgeBuffer[0]);
+        int n = labelsCount.get();
+
+        //A thread local entry outlives the builder on a pooled thread, it must not keep the buffers alive
+        threadBuffers.remove();
+        buffers.clear();
+
+        String[] labels = null;
+
+        if(!ids.isEmpty()) {
+            for(EdgeBuffer buffer: sources) {
+                if(buffer.intIds) throw new IllegalStateException("Vertices are given both by int ids and by labels");
+            }
+
+            labels = sortLabels(sources, n);
+            ids.clear();
+        }
+
+        for(EdgeBuffer buffer: sources) n = Math.max(n, buffer.maxId + 1);
+
+        if(labels == null) {
+            labels = new String[n];
+            Arrays.parallelSetAll(labels, String::valueOf);
+        }
+
+        //At most 2^BUCKET_BITS buckets
+        int shift = Math.max(0, 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1)) - BUCKET_BITS);
+        int bucketsCount = ((n - 1) >>> shift) + 1;
+
+        //Chunks of the buffers scanned in parallel: {buffer, from, to}
+        List<int[]> chunkList = new ArrayList<>();
+
+        for(int b = 0; b < sources.length; b++) {
+            for(int from = 0; from < sources[b].size; from += CHUNK) {
+                chunkList.add(new int[] {b, from, Math.min(sources[b].size, from + CHUNK)});
+            }
+        }
+
+        int[][] chunks = chunkList.toArray(new int[0][]);
+
+        //Pass 1: histogram of the buckets in every chunk, then every chunk copies its edges to its slices
+        int[][] positions = new int[chunks.length][];
+
+        IntStream.range(0, chunks.length).parallel().forEach(c -> {
+            EdgeBuffer buffer = sources[chunks[c][0]];
+            int[] histogram = new int[bucketsCount];
+
+            for(int i = chunks[c][1]; i < chunks[c][2]; i++) {
+                histogram[buffer.sources[i] >>> shift]++;
+
+                if(!directed && buffer.sources[i] != buffer.destinations[i]) histogram[buffer.destinations[i] >>> shift]++;
+            }
+
+            positions[c] = histogram;
+        });
+
+        int[] bucketStarts = new int[bucketsCount + 1];
+        long total = 0;
+
+        for(int b = 0; b < bucketsCount; b++) {
+            bucketStarts[b] = (int) total;
+
+            for(int c = 0; c < chunks.length; c++) {
+                int count = positions[c][b];
+
+                positions[c][b] = (int) total;
+                total += count;
+            }
+
+            if(total > Integer.MAX_VALUE) throw new GraphException("Too many edges for a compact graph");
+        }
+
+        bucketStarts[bucketsCount] = (int) total;
+
+        int[] bucketSources = new int[(int) total];
+        int[] bucketTargets = new int[bucketSources.length];
+        double[] bucketWeights = new double[bucketSources.length];
+
+        IntStream.range(0, chunks.length).parallel().forEach(c -> {
+            EdgeBuffer buffer = sources[chunks[c][0]];
+            int[] position = positions[c];
+
+            for(int i = chunks[c][1]; i < chunks[c][2]; i++) {
+                int src = buffer.sources[i];
+                int dest = buffer.destinations[i];
+                int slot = position[src >>> shift]++;
+
+                bucketSources[slot] = src;
+                bucketTargets[slot] = dest;
+                bucketWeights[slot] = buffer.weights[i];
+
+                if(!directed && src != dest) {
+                    slot = position[dest >>> shift]++;
+                    bucketSources[slot] = dest;
+                    bucketTargets[slot] = src;
+                    bucketWeights[slot] = buffer.weights[i];
+                }
+            }
+        });
+
+        for(EdgeBuffer buffer: sources) {
+            buffer.sources = buffer.destinations = null;
+            buffer.weights = null;
+        }
+
+        //Pass 2: counting sort of every bucket by source into the same range, then every list is sorted by target
+        int vertices = n;
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[bucketSources.length];
+        double[] weights = new double[targets.length];
+        int[] degrees = new int[n];
+
+        IntStream.range(0, bucketsCount).parallel().forEach(b -> {
+            int first = b << shift;
+            int last = Math.min(vertices, (b + 1) << shift);
+            int[] cursors = new int[last - first + 1];
+
+            for(int e = bucketStarts[b]; e < bucketStarts[b + 1]; e++) cursors[bucketSources[e] - first + 1]++;
+
+            cursors[0] = bucketStarts[b];
+
+            for(int v = first; v < last; v++) {
+                cursors[v - first + 1] += cursors[v - first];
+                offsets[v] = cursors[v - first];
+            }
+
+            for(int e = bucketStarts[b]; e < bucketStarts[b + 1]; e++) {
+                int slot = cursors[bucketSources[e] - first]++;
+
+                targets[slot] = bucketTargets[e];
+                weights[slot] = bucketWeights[e];
+            }
+
+            for(int v = first; v < last; v++) {
+                int end = v + 1 < last ? offsets[v + 1] : bucketStarts[b + 1];
+
+                degrees[v] = sortUnique(targets, weights, offsets[v], end);
+            }
+        });
+
+        offsets[n] = targets.length;
+
+        //Drops the duplicates
+        int[] compactOffsets = new int[n + 1];
+
+        for(int v = 0; v < n; v++) compactOffsets[v + 1] = compactOffsets[v] + degrees[v];
+
+        if(compactOffsets[n] == targets.length) return new CompactGraph(labels, offsets, targets, weights, directed);
+
+        int[] compactTargets = new int[compactOffsets[n]];
+        double[] compactWeights = new double[compactTargets.length];
+
+        IntStream.range(0, n).parallel().forEach(v -> {
+            System.arraycopy(targets, offsets[v], compactTargets, compactOffsets[v], degrees[v]);
+            System.arraycopy(weights, offsets[v], compactWeights, compactOffsets[v], degrees[v]);
+        });
+
+        return new CompactGraph(labels, compactOffsets, compactTargets, compactWeights, directed);
+    }
+
+    /**
+     * Renumbers the label ids, given in the order the threads arrived, by the natural order of the labels
+     * @return the labels in natural order
+     */
+    private String[] sortLabels(EdgeBuffer[] sources, int n) {
+        String[] labels = new String[n];
+
+        for(Map.Entry<String, Integer> entry: ids.entrySet()) labels[entry.getValue()] = entry.getKey();
+
+        Integer[] order = new Integer[n];
+        Arrays.parallelSetAll(order, i -> i);
+        Arrays.parallelSort(order, Comparator.comparing(i -> labels[i]));
+
+        int[] rank = new int[n];
+        String[] sorted = new String[n];
+
+        for(int r = 0; r < n; r++) {
+            rank[order[r]] = r;
+            sorted[r] = labels[order[r]];
+        }
+
+        for(EdgeBuffer buffer: sources) {
+            IntStream.range(0, buffer.size).parallel().forEach(i -> {
+                buffer.sources[i] = rank[buffer.sources[i]];
+                buffer.destinations[i] = rank[buffer.destinations[i]];
+            });
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Sorts targets[from, to) with their weights and keeps one edge per target, the lightest
+     * @return the number of distinct targets, moved to the start of the range
+     */
+    private static int sortUnique(int[] targets, double[] weights, int from, int to) {
+        if(to - from <= INSERTION_SORT_DEGREE) {
+            for(int i = from + 1; i < to; i++) {
+                int target = targets[i];
+                double weight = weights[i];
+                int j = i - 1;
+
+                while(j >= from && (targets[j] > target || (targets[j] == target && weights[j] > weight))) {
+                    targets[j + 1] = targets[j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+
+                targets[j + 1] = target;
+                weights[j + 1] = weight;
+            }
+        } else {
+            //Packs the target with the position to sort without boxing, equal targets keeping the lightest first
+            long[] keys = new long[to - from];
+            double[] sorted = new double[to - from];
+
+            for(int i = from; i < to; i++) keys[i - from] = ((long) targets[i] << 32) | (i - from);
+
+            Arrays.sort(keys);
+
+            for(int i = 0; i < keys.length; i++) {
+                targets[from + i] = (int) (keys[i] >>> 32);
+                sorted[i] = weights[from + (int) keys[i]];
+            }
+
+            System.arraycopy(sorted, 0, weights, from, sorted.length);
+        }
+
+        int size = 0;
+
+        for(int i = from; i < to; i++) {
+            if(size > 0 && targets[from + size - 1] == targets[i]) {
+                weights[from + size - 1] = Math.min(weights[from + size - 1], weights[i]);
+            } else {
+                targets[from + size] = targets[i];
+                weights[from + size] = weights[i];
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Builds the graph as a Graph of the builder type, filling its vertex map in one pass
+     * @return the graph
+     * @throws GraphException
+     */
+    public Graph buildGraph() throws GraphException {
+        CompactGraph compact = build();
+        Graph graph = new GraphFactory().createGraph(directed ? GraphFactory.GraphTypes.DIRECTED : GraphFactory.GraphTypes.UNDIRECTED);
+        Map<String, List<Edge>> vertexMap = new HashMap<>(compact.vertexCount() * 2);
+
+        for(int v = 0; v < compact.vertexCount(); v++) {
+            List<Edge> edges = new LinkedList<>();
+
+            for(int e = compact.firstEdge(v), end = compact.firstEdge(v + 1); e < end; e++) {
+                edges.add(new Edge(compact.label(v), compact.label(compact.target(e)), compact.weight(e)));
+            }
+
+            vertexMap.put(compact.label(v), edges);
+        }
+
+        graph.setVertexMap(vertexMap);
+        graph.sortVertices();
+
+        return graph;
+    }
+}
@@ -0,0 +1,271 @@
+package core.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * A subgraph copied into its own compact graph, with the remap between its ids and the ids of the original graph
+ * Local ids follow the order of the original ids, so neighbor lists stay sorted without being sorted again.
+ *
+ */
+public class Subgraph {
+
+    /**
+     * Frontier size from which a breadth first level is expanded in parallel
+     */
+    private static final int PARALLEL_FRONTIER = 4096;
+
+    private final CompactGraph graph;
+    private final int[] originalIds;
+
+    private Subgraph(CompactGraph graph, int[] originalIds) {
+        this.graph = graph;
+        this.originalIds = originalIds;
+    }
+
+    /**
+     * Builds the subgraph induced by some vertices in one pass over their edges
+     * @param graph
+     * @param vertices the original ids of the vertices, in any order, duplicates being ignored
+     * @return the subgraph
+     */
+    public static Subgraph induced(CompactGraph graph, int[] vertices) {
+        int[] members = sortedUnique(vertices);
+        int k = members.length;
+        int[] offsets = new int[k + 1];
+
+        IntStream.range(0, k).parallel().forEach(i -> {
+            int count = 0;
+
+            for(int e = graph.firstEdge(members[i]), end = graph.firstEdge(members[i] + 1); e < end; e++) {
+                if(Arrays.binarySearch(members, graph.target(e)) >= 0) count++;
+            }
+
+            offsets[i + 1] = count;
+        });
+
+        for(int i = 0; i < k; i++) offsets[i + 1] += offsets[i];
+
+        int[] targets = new int[offsets[k]];
+        int[] edges = new int[targets.length];
+        String[] labels = new String[k];
+
+        IntStream.range(0, k).parallel().forEach(i -> {
+            int slot = offsets[i];
+
+            labels[i] = graph.label(members[i]);
+
+            for(int e = graph.firstEdge(members[i]), end = graph.firstEdge(members[i] + 1); e < end; e++) {
+                int local = Arrays.binarySearch(members, graph.target(e));
+
+                if(local >= 0) {
+                    targets[slot] = local;
+                    edges[slot++] = e;
+                }
+            }
+        });
+
+        CompactGraph subgraph = new CompactGraph(labels, offsets, targets, graph.getWeights().select(edges), graph.isDirected());
+
+        return new Subgraph(subgraph, members);
+    }
+
+    /**
+     * Builds the ego network of a vertex: the subgraph induced by the vertices at most hops out edges away from it
+     * @param graph
+     * @param center the original id of the center
+     * @param hops
+     * @return the subgraph, the center included
+     */
+    public static Subgraph egoNetwork(CompactGraph graph, int center, int hops) {
+        return induced(graph, neighborhood(graph, center, hops));
+    }
+
+    /**
+     *
+     * @param graph
+     * @param label
+     * @param hops
+     * @return the ego network of the vertex, null if the graph does not contain it
+     */
+    public static Subgraph egoNetwork(CompactGraph graph, String label, int hops) {
+        int center = graph.id(label);
+
+        return center < 0 ? null : egoNetwork(graph, center, hops);
+    }
+
+    /**
+     * Breadth first search limited to hops levels, large levels being expanded in parallel
+     * Visited vertices are marked in an atomic bit set, which costs n / 8 bytes instead of an int per vertex.
+     * @param graph
+     * @param center
+     * @param hops
+     * @return the original ids of the vertices at most hops out edges away from center, in breadth first order
+     */
+    public static int[] neighborhood(CompactGraph graph, int center, int hops) {
+        AtomicLongArray visited = new AtomicLongArray((graph.vertexCount() + 63) >>> 6);
+        int[] frontier = {center};
+        List<int[]> levels = new ArrayList<>();
+        int reached = 1;
+
+        mark(visited, center);
+        levels.add(frontier);
+
+        for(int level = 0; level < hops && frontier.length > 0; level++) {
+            int[] current = frontier;
+
+            if(current.length < PARALLEL_FRONTIER) {
+                frontier = expand(graph, current, 0, current.length, visited);
+            } else {
+                //Chunks expanded concurrently, each collecting its own part of the next level
+                int chunks = (current.length + PARALLEL_FRONTIER / 4 - 1) / (PARALLEL_FRONTIER / 4);
+                int chunkSize = (current.length + chunks - 1) / chunks;
+
+                int[][] parts = IntStream.range(0, chunks).parallel()
+                        .mapToObj(c -> expand(graph, current, c * chunkSize, Math.min(current.length, (c + 1) * chunkSize), visited))
+                        .toArray(int[][]::new);
+
+                int size = 0;
+
+                for(int[] part: parts) size += part.length;
+
+                frontier = new int[size];
+                size = 0;
+
+                for(int[] part: parts) {
+                    System.arraycopy(part, 0, frontier, size, part.length);
+                    size += part.length;
+                }
+            }
+
+            levels.add(frontier);
+            reached += frontier.length;
+        }
+
+        int[] vertices = new int[reached];
+        int size = 0;
+
+        for(int[] part: levels) {
+            System.arraycopy(part, 0, vertices, size, part.length);
+            size += part.length;
+        }
+
+        return vertices;
+    }
+
+    private static int[] expand(CompactGraph graph, int[] frontier, int from, int to, AtomicLongArray visited) {
+        int[] next = new int[16];
+        int size = 0;
+
+        for(int i = from; i < to; i++) {
+            int v = frontier[i];
+
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int w = graph.target(e);
+
+                if(mark(visited, w)) {
+                    if(size == next.length) next = Arrays.copyOf(next, size * 2);
+
+                    next[size++] = w;
+                }
+            }
+        }
+
+        return Arrays.copyOf(next, size);
+    }
+
+    /**
+     *
+     * @return true if v was not marked yet
+     */
+    private static boolean mark(AtomicLongArray bits, int v) {
+        int word = v >>> 6;
+        long bit = 1L << v;
+
+        while(true) {
+            long current = bits.get(word);
+
+            if((current & bit) != 0) return false;
+
+            if(bits.compareAndSet(word, current, current | bit)) return true;
+        }
+    }
+
+    /**
+     * Filters a graph to some vertices without copying it
+     * @param graph
+     * @param vertices the original ids of the kept vertices
+     * @return the view, in the ids of the original graph
+     */
+    public static FilteredGraph view(IndexedGraph graph, int[] vertices) {
+        boolean[] kept = new boolean[graph.vertexCount()];
+
+        for(int v: vertices) kept[v] = true;
+
+        return new FilteredGraph(graph, kept);
+    }
+
+    private static int[] sortedUnique(int[] vertices) {
+        int[] sorted = vertices.clone();
+        Arrays.parallelSort(sorted);
+
+        int size = 0;
+
+        for(int i = 0; i < sorted.length; i++) {
+            if(size == 0 || sorted[i] != sorted[size - 1]) sorted[size++] = sorted[i];
+        }
+
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     *
+     * @return the number of vertices of the subgraph
+     */
+    public int size() {
+        return originalIds.length;
+    }
+
+    /**
+     *
+     * @param local a vertex id of the subgraph
+     * @return its id in the original graph
+     */
+    public int originalId(int local) {
+        return originalIds[local];
+    }
+
+    /**
+     *
+     * @param original a vertex id of the original graph
+     * @return its id in the subgraph, -1 if the subgraph does not contain it
+     */
+    public int localId(int original) {
+        int local = Arrays.binarySearch(originalIds, original);
+
+        return local < 0 ? -1 : local;
+    }
+
+    /**
+     * Maps values computed on the subgraph, e.g. a clustering, back to the original ids
+     * @param values a value per subgraph vertex
+     * @param missing the value of the original vertices out of the subgraph
+     * @param vertexCount the number of vertices of the original graph
+     * @return a value per original vertex
+     */
+    public int[] toOriginal(int[] values, int missing, int vertexCount) {
+        int[] original = new int[vertexCount];
+        Arrays.fill(original, missing);
+
+        for(int local = 0; local < originalIds.length; local++) original[originalIds[local]] = values[local];
+
+        return original;
+    }
+}
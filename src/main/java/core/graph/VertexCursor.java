@@ -0,0 +1,84 @@
+package core.graph;
+
+import core.graph.components.Edge;
+import core.graph.components.Vertex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flyweight vertex: one object moved over the vertices of a graph, with one edge cursor reused for every vertex
+ * Usage: while(vertices.next()) { EdgeCursor edges = vertices.edges(); while(edges.next()) ... }
+ *
+ */
+public final class VertexCursor {
+    private final IndexedGraph graph;
+    private final EdgeCursor edges;
+    private int id = -1;
+
+    VertexCursor(IndexedGraph graph) {
+        this.graph = graph;
+        this.edges = new EdgeCursor(graph);
+    }
+
+    /**
+     * Moves to the next vertex id
+     * @return false once the vertices are exhausted
+     */
+    public boolean next() {
+        if(id + 1 >= graph.vertexCount()) return false;
+
+        id++;
+
+        return true;
+    }
+
+    /**
+     * Moves to the given vertex, the next call to next moving to the following id
+     * @param id
+     */
+    public void moveTo(int id) {
+        if(id < 0 || id >= graph.vertexCount()) throw new IndexOutOfBoundsException("No vertex " + id);
+
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return graph.label(id);
+    }
+
+    public int degree() {
+        return graph.degree(id);
+    }
+
+    /**
+     * Rewinds the edge cursor of the vertices to the out edges of the current vertex
+     * @return the edge cursor, shared by all the vertices of this cursor
+     */
+    public EdgeCursor edges() {
+        edges.reset(id);
+
+        return edges;
+    }
+
+    /**
+     * Creates a vertex object with its edges for the current vertex, which stays valid once the cursor moves
+     * @return the vertex
+     */
+    public Vertex materialize() {
+        return new Vertex(getLabel(), materializeEdges());
+    }
+
+    List<Edge> materializeEdges() {
+        List<Edge> list = new ArrayList<>(degree());
+        EdgeCursor cursor = edges();
+
+        while(cursor.next()) list.add(cursor.materialize());
+
+        return list;
+    }
+}
@@ -2,20 +2,24 @@ package core.graph.components;
 
 /**
  * Represents a graph edge which contains the source vertex, the destination vertex and the weight between them.
+ * The endpoint vertices are only created once asked for, the labels being enough for most uses.
  * @author matthiasbrownmarie
  *
  */
 public class Edge implements Comparable<Edge> {
+    private final String srcLabel, destLabel;
     private Vertex src, dest;
     private double weight;
 
     public Edge(String srcLabel, String destLabel, double weight) {
-        this.src = new Vertex(srcLabel);
-        this.dest = new Vertex(destLabel);
+        this.srcLabel = srcLabel;
+        this.destLabel = destLabel;
         this.weight = weight;
     }
 
     public Edge(Vertex src, Vertex dest, double weight) {
+        this.srcLabel = src.getLabel();
+        this.destLabel = dest.getLabel();
         this.src = src;
         this.dest = dest;
         this.weight = weight;
@@ -27,24 +31,36 @@ public class Edge implements Comparable<Edge> {
         if (obj instanceof Edge) {
             Edge edge = (Edge) obj;
 
-            return edge.getSrc().toString().contentEquals(src.toString()) && edge.getDest().toString().contentEquals(dest.toString());
+            return edge.getSrcLabel().contentEquals(srcLabel) && edge.getDestLabel().contentEquals(destLabel);
         } else if (obj instanceof String) {
-            String destLabel = (String) obj;
+            String label = (String) obj;
 
-            return destLabel.contentEquals(dest.toString());
+            return label.contentEquals(destLabel);
         }
 
         return false;
     }
 
     public Vertex getSrc() {
+        if(src == null) src = new Vertex(srcLabel);
+
         return src;
     }
 
     public Vertex getDest() {
+        if(dest == null) dest = new Vertex(destLabel);
+
         return dest;
     }
 
+    public String getSrcLabel() {
+        return srcLabel;
+    }
+
+    public String getDestLabel() {
+        return destLabel;
+    }
+
     public double getWeight() {
         return weight;
     }
@@ -56,13 +72,13 @@ public class Edge implements Comparable<Edge> {
     @Override
     public String toString() {
         // TODO Auto-generated method stub
-        return "(" + src.toString() + ", " + dest.toString() + ", " + String.valueOf(weight) + ")";
+        return "(" + getSrc().toString() + ", " + getDest().toString() + ", " + String.valueOf(weight) + ")";
     }
 
     @Override
     public int compareTo(Edge o) {
         // TODO Auto-generated method stub
-        return this.getDest().toString().compareTo(o.getDest().toString());
+        return this.getDestLabel().compareTo(o.getDestLabel());
     }
 
 }
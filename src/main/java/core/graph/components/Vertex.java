@@ -5,6 +5,7 @@ import java.util.List;
 
 /**
  * Represents a vertex with its label and its neighbors (i.e. its edges)
+ * The neighbors list is only allocated once asked for, most vertices being edge endpoints that never use it
  * @author matthiasbrownmarie
  *
  */
@@ -15,7 +16,6 @@ public class Vertex {
     public Vertex(String label) {
         // TODO Auto-generated constructor stub
         this.label = label;
-        this.edges = new ArrayList<>();
     }
 
     public Vertex(String label, List<Edge> edges) {
@@ -32,6 +32,8 @@ public class Vertex {
     }
 
     public List<Edge> getNeighbors() {
+        if(edges == null) edges = new ArrayList<>();
+
         return edges;
     }
 
@@ -39,7 +41,7 @@ public class Vertex {
     @Override
     public String toString() {
         // TODO Auto-generated method stub
-        return label + ": " + edges.toString();
+        return label + ": " + getNeighbors().toString();
     }
 
 }
@@ -0,0 +1,66 @@
+package core.jobs;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jobs submitted together, whose results come out in completion order
+ *
+ */
+public class Batch {
+    private final List<CancellationToken> tokens;
+    private final BlockingQueue<JobResult> results = new LinkedBlockingQueue<>();
+    private int taken;
+
+    Batch(List<CancellationToken> tokens) {
+        this.tokens = tokens;
+    }
+
+    void complete(JobResult result) {
+        results.add(result);
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Waits for the next finished job
+     * @return the result of the next finished job, null once every result was taken
+     * @throws InterruptedException
+     */
+    public synchronized JobResult next() throws InterruptedException {
+        if(taken == tokens.size()) return null;
+
+        JobResult result = results.take();
+        taken++;
+
+        return result;
+    }
+
+    /**
+     * Waits for the next finished job at most timeout
+     * @param timeout
+     * @param unit
+     * @return the result of the next finished job, null once every result was taken or on timeout
+     * @throws InterruptedException
+     */
+    public synchronized JobResult next(long timeout, TimeUnit unit) throws InterruptedException {
+        if(taken == tokens.size()) return null;
+
+        JobResult result = results.poll(timeout, unit);
+
+        if(result != null) taken++;
+
+        return result;
+    }
+
+    /**
+     * Asks every job to stop, running jobs finish with their current result and queued ones do not start
+     */
+    public void cancel() {
+        for(CancellationToken token: tokens) token.cancel();
+    }
+}
@@ -0,0 +1,43 @@
+package core.jobs;
+
+/**
+ * Cooperative cancellation of a job: the engines poll it between iterations and stop with their current result
+ * A token is cancelled explicitly or once its time budget is spent, the budget running from start
+ *
+ */
+public class CancellationToken {
+    private final long budget;
+    private volatile long deadline = Long.MAX_VALUE;
+    private volatile boolean cancelled;
+
+    /**
+     *
+     * @param budget the time budget in milliseconds, 0 for none, spent from start on
+     */
+    public CancellationToken(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Starts spending the time budget, once the job begins to run rather than while it is queued
+     */
+    public void start() {
+        if(budget > 0) deadline = System.nanoTime() + budget * 1000000;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     *
+     * @return true if the job was cancelled or ran out of time
+     */
+    public boolean isCancelled() {
+        return cancelled || isTimedOut();
+    }
+
+    public boolean isTimedOut() {
+        return deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0;
+    }
+}
@@ -0,0 +1,75 @@
+package core.jobs;
+
+import core.graph.CompactGraph;
+
+/**
+ * Outcome of a job
+ * Timed out and cancelled jobs still carry the result they had reached, failed jobs carry their error
+ *
+ */
+public class JobResult {
+
+    public enum Status {
+        COMPLETED,
+        TIMED_OUT,
+        CANCELLED,
+        FAILED
+    }
+
+    private final JobSpec spec;
+    private final Status status;
+    private final CompactGraph graph;
+    private final int[] clusterOf;
+    private final long elapsed;
+    private final Throwable error;
+
+    JobResult(JobSpec spec, Status status, CompactGraph graph, int[] clusterOf, long elapsed, Throwable error) {
+        this.spec = spec;
+        this.status = status;
+        this.graph = graph;
+        this.clusterOf = clusterOf;
+        this.elapsed = elapsed;
+        this.error = error;
+    }
+
+    public JobSpec getSpec() {
+        return spec;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     *
+     * @return the graph the job ran on, null if it could not be loaded
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     *
+     * @return the cluster of every vertex id of the graph, null if the job failed or was cancelled before starting
+     */
+    public int[] getClusterOf() {
+        return clusterOf;
+    }
+
+    /**
+     *
+     * @return the running time in milliseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return spec.getName() + ": " + status + " in " + elapsed + "ms" + (error == null ? "" : " (" + error.getMessage() + ")");
+    }
+}
@@ -0,0 +1,248 @@
+package core.jobs;
+
+import core.clustering.KMedoids;
+import core.clustering.StreamingClustering;
+import core.graph.CompactGraph;
+import core.graph.GraphFactory;
+import core.graph.ParallelGraphBuilder;
+import core.partition.MultilevelPartitioner;
+import utils.Stream;
+import utils.exceptions.GraphException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs batches of independent clustering jobs on a bounded pool of threads
+ * Every graph source is loaded once, on first use, and shared read-only by all the jobs naming it. Each job gets a
+ * cancellation token combining the batch cancellation and its time budget, polled by the engines between iterations.
+ *
+ */
+public class JobRunner implements AutoCloseable {
+
+    /**
+     * Edges streamed between two cancellation checks
+     */
+    private static final int STREAMING_CHECK_INTERVAL = 1 << 12;
+
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<CompactGraph>> graphs = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param threads the number of jobs running at the same time
+     */
+    public JobRunner(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "job-runner");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * Makes an already built graph available to the jobs under a source name
+     * @param source
+     * @param graph
+     */
+    public void register(String source, CompactGraph graph) {
+        graphs.put(source, CompletableFuture.completedFuture(graph));
+    }
+
+    /**
+     * Submits a batch, returns immediately
+     * @param specs
+     * @return the batch, giving the results as the jobs finish
+     */
+    public Batch submit(List<JobSpec> specs) {
+        return submit(specs, result -> {});
+    }
+
+    /**
+     * Submits a batch, returns immediately
+     * @param specs
+     * @param listener called with every result as soon as its job finishes, on the thread that ran it
+     * @return the batch, giving the results as the jobs finish
+     */
+    public Batch submit(List<JobSpec> specs, Consumer<JobResult> listener) {
+        List<CancellationToken> tokens = new ArrayList<>();
+
+        for(JobSpec spec: specs) tokens.add(new CancellationToken(spec.getTimeBudget()));
+
+        Batch batch = new Batch(tokens);
+
+        for(int i = 0; i < specs.size(); i++) {
+            JobSpec spec = specs.get(i);
+            CancellationToken token = tokens.get(i);
+
+            executor.execute(() -> {
+                JobResult result = run(spec, token);
+
+                try {
+                    listener.accept(result);
+                } finally {
+                    batch.complete(result);
+                }
+            });
+        }
+
+        return batch;
+    }
+
+    private JobResult run(JobSpec spec, CancellationToken token) {
+        long start = System.nanoTime();
+        CompactGraph graph = null;
+
+        token.start();
+
+        try {
+            if(token.isCancelled()) return new JobResult(spec, stoppedStatus(token), null, null, elapsed(start), null);
+
+            graph = graph(spec);
+
+            Outcome outcome = cluster(graph, spec, token);
+            //A job finishing after its deadline still completed, only a job its engine cut short did not
+            JobResult.Status status = outcome.stopped ? stoppedStatus(token) : JobResult.Status.COMPLETED;
+
+            return new JobResult(spec, status, graph, outcome.clusterOf, elapsed(start), null);
+        } catch (Exception e) {
+            return new JobResult(spec, JobResult.Status.FAILED, graph, null, elapsed(start), e);
+        }
+    }
+
+    private static JobResult.Status stoppedStatus(CancellationToken token) {
+        return token.isTimedOut() ? JobResult.Status.TIMED_OUT : JobResult.Status.CANCELLED;
+    }
+
+    private static long elapsed(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * Loads the graph of the job, waiting if another job is already loading it
+     */
+    private CompactGraph graph(JobSpec spec) throws GraphException {
+        String key = graphs.containsKey(spec.getSource()) ? spec.getSource() : spec.getSource() + (spec.isDirected() ? "#directed" : "#undirected");
+
+        CompletableFuture<CompactGraph> future = new CompletableFuture<>();
+        CompletableFuture<CompactGraph> loading = graphs.putIfAbsent(key, future);
+
+        if(loading == null) {
+            try {
+                future.complete(load(spec.getSource(), spec.isDirected()));
+            } catch (GraphException | RuntimeException e) {
+                future.completeExceptionally(e);
+                //A later batch may retry once the file is fixed
+                graphs.remove(key, future);
+            }
+
+            loading = future;
+        }
+
+        try {
+            return loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GraphException("Interrupted while loading " + spec.getSource(), e);
+        } catch (ExecutionException e) {
+            throw new GraphException("Cannot load " + spec.getSource(), e.getCause());
+        }
+    }
+
+    /**
+     * Reads the edges straight into CSR arrays, without building a Graph whose addEdge sorts the vertices every time
+     * An edge given twice is kept once, with its smallest weight.
+     */
+    private static CompactGraph load(String file, boolean directed) throws GraphException {
+        ParallelGraphBuilder builder = new ParallelGraphBuilder(directed ? GraphFactory.GraphTypes.DIRECTED : GraphFactory.GraphTypes.UNDIRECTED);
+        ParallelGraphBuilder.EdgeBuffer buffer = builder.buffer();
+
+        Stream.readEdges(file, 0, buffer::add);
+
+        return builder.build();
+    }
+
+    private static Outcome cluster(CompactGraph graph, JobSpec spec, CancellationToken token) throws GraphException {
+        switch (spec.getAlgorithm()) {
+            case KMEDOIDS:
+                KMedoids kMedoids = new KMedoids(graph, spec.getK());
+                kMedoids.setSeed(spec.getSeed());
+                kMedoids.setStopCondition(token::isCancelled);
+
+                int[] clusterOf = kMedoids.run().getClusterOf();
+
+                return new Outcome(clusterOf, kMedoids.isStopped());
+            case STREAMING:
+                return stream(graph, spec.getK(), token);
+            case PARTITION:
+                MultilevelPartitioner partitioner = new MultilevelPartitioner();
+                partitioner.setSeed(spec.getSeed());
+                partitioner.setStopCondition(token::isCancelled);
+
+                int[] partOf = partitioner.partition(graph, spec.getK());
+
+                return new Outcome(partOf, partitioner.isStopped());
+            default:
+                throw new GraphException("Unknown algorithm.");
+        }
+    }
+
+    /**
+     * Streams the edges of the graph through a streaming clustering, an undirected edge once
+     */
+    private static Outcome stream(CompactGraph graph, long maxVolume, CancellationToken token) throws GraphException {
+        StreamingClustering clustering = new StreamingClustering(maxVolume);
+        long count = 0;
+
+        for(int v = 0; v < graph.vertexCount(); v++) {
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int w = graph.target(e);
+
+                if(!graph.isDirected() && w < v) continue;
+
+                if(++count % STREAMING_CHECK_INTERVAL == 0 && token.isCancelled()) return new Outcome(communities(clustering, graph), true);
+
+                clustering.addEdge(v, w);
+            }
+        }
+
+        return new Outcome(communities(clustering, graph), false);
+    }
+
+    /**
+     * Ids of the stream are the graph ids, vertices never streamed (isolated or not reached yet) get -1
+     */
+    private static int[] communities(StreamingClustering clustering, CompactGraph graph) {
+        int[] streamed = clustering.getCommunities();
+        int[] clusterOf = new int[graph.vertexCount()];
+
+        for(int v = 0; v < clusterOf.length; v++) clusterOf[v] = v < streamed.length ? streamed[v] : -1;
+
+        return clusterOf;
+    }
+
+    /**
+     * The clusters of a job and whether its engine stopped before finishing
+     */
+    private static final class Outcome {
+        private final int[] clusterOf;
+        private final boolean stopped;
+
+        private Outcome(int[] clusterOf, boolean stopped) {
+            this.clusterOf = clusterOf;
+            this.stopped = stopped;
+        }
+    }
+
+    /**
+     * Stops the threads once the submitted jobs are done
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,91 @@
+package core.jobs;
+
+/**
+ * Describes one clustering job: the graph it runs on, the algorithm and its parameters
+ * Jobs naming the same source share one loaded graph
+ *
+ */
+public class JobSpec {
+
+    public enum Algorithms {
+        KMEDOIDS,
+        STREAMING,
+        PARTITION
+    }
+
+    private final String name;
+    private final String source;
+    private final Algorithms algorithm;
+    private final int k;
+
+    private boolean directed;
+    private long seed = 42;
+    private long timeBudget;
+
+    /**
+     *
+     * @param name identifies the job in its result
+     * @param source a csv edge file or the name of a graph registered on the runner
+     * @param algorithm
+     * @param k the number of clusters or parts, the maximum community volume for streaming
+     */
+    public JobSpec(String name, String source, Algorithms algorithm, int k) {
+        this.name = name;
+        this.source = source;
+        this.algorithm = algorithm;
+        this.k = k;
+    }
+
+    /**
+     *
+     * @param directed whether a csv source is loaded as a directed graph
+     */
+    public void setDirected(boolean directed) {
+        this.directed = directed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     *
+     * @param timeBudget the time in milliseconds after which the job stops with its current result, 0 for none
+     */
+    public void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Algorithms getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + algorithm + ", k=" + k + ", seed=" + seed + ")";
+    }
+}
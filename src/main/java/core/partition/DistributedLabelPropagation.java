@@ -0,0 +1,230 @@
+package core.partition;
+
+import core.clustering.Cluster;
+import core.clustering.Clustering;
+import utils.exceptions.GraphException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates label propagation over the shards of a partitioned graph, one worker per shard
+ * Workers are threads or separate JVMs talking to the coordinator over loopback sockets. Each round the coordinator
+ * sends every worker the changed labels of its ghosts and collects the changed labels of its owned vertices, so only
+ * boundary updates cross the sockets. The run stops when no label changes or after the maximum number of rounds.
+ *
+ */
+public class DistributedLabelPropagation {
+    public static final int DEFAULT_MAX_ROUNDS = 50;
+
+    /**
+     * Time given to the workers to connect, in milliseconds
+     */
+    private static final int CONNECT_TIMEOUT = 60000;
+
+    public enum WorkerModes {
+        THREADS,
+        PROCESSES
+    }
+
+    private final PartitionedGraph partitioned;
+    private int maxRounds = DEFAULT_MAX_ROUNDS;
+    private WorkerModes workerMode = WorkerModes.THREADS;
+
+    private int[] labels;
+    private int rounds;
+
+    public DistributedLabelPropagation(PartitionedGraph partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Processes need the classes of this project on the class path of the current JVM
+     * @param workerMode
+     */
+    public void setWorkerMode(WorkerModes workerMode) {
+        this.workerMode = workerMode;
+    }
+
+    /**
+     * Starts the workers, runs the rounds and stops the workers
+     * @return the community of every vertex id, communities being numbered from 0
+     * @throws GraphException if a worker cannot be started or fails
+     */
+    public int[] run() throws GraphException {
+        int parts = partitioned.partsCount();
+        int n = partitioned.getGraph().vertexCount();
+
+        labels = new int[n];
+
+        for(int v = 0; v < n; v++) labels[v] = v;
+
+        rounds = 0;
+
+        Process[] processes = new Process[parts];
+        Socket[] sockets = new Socket[parts];
+
+        try(ServerSocket server = new ServerSocket(0, parts, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT);
+
+            for(int p = 0; p < parts; p++) {
+                startWorker(server.getLocalPort(), p, processes);
+            }
+
+            DataInputStream[] ins = new DataInputStream[parts];
+            DataOutputStream[] outs = new DataOutputStream[parts];
+
+            //Shards are handed out in connection order
+            for(int p = 0; p < parts; p++) {
+                sockets[p] = server.accept();
+                ins[p] = new DataInputStream(new BufferedInputStream(sockets[p].getInputStream(), 1 << 16));
+                outs[p] = new DataOutputStream(new BufferedOutputStream(sockets[p].getOutputStream(), 1 << 16));
+
+                partitioned.getShard(p).write(outs[p]);
+            }
+
+            exchange(ins, outs, n);
+
+            for(DataOutputStream out: outs) {
+                out.writeInt(ShardWorker.STOP);
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new GraphException("Distributed clustering failed", e);
+        } finally {
+            for(Socket socket: sockets) {
+                if(socket == null) continue;
+
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    //Already closed by the worker
+                }
+            }
+
+            awaitProcesses(processes);
+        }
+
+        return getCommunities();
+    }
+
+    private void startWorker(int port, int part, Process[] processes) throws IOException {
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+
+        if(workerMode == WorkerModes.PROCESSES) {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+            processes[part] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    ShardWorker.class.getName(), host, String.valueOf(port)).inheritIO().start();
+        } else {
+            Thread thread = new Thread(new ShardWorker(host, port), "shard-worker-" + part);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void exchange(DataInputStream[] ins, DataOutputStream[] outs, int n) throws IOException {
+        boolean[] changed = new boolean[n];
+
+        while(rounds < maxRounds) {
+            //Every worker gets its updates before any answer is read so the shards sweep in parallel
+            for(int p = 0; p < outs.length; p++) {
+                Shard shard = partitioned.getShard(p);
+                int count = 0;
+
+                for(int local = shard.ownedCount(); local < shard.localCount(); local++) {
+                    if(changed[shard.globalId(local)]) count++;
+                }
+
+                outs[p].writeInt(ShardWorker.ROUND);
+                outs[p].writeInt(count);
+
+                for(int local = shard.ownedCount(); local < shard.localCount(); local++) {
+                    int global = shard.globalId(local);
+
+                    if(changed[global]) {
+                        outs[p].writeInt(local);
+                        outs[p].writeInt(labels[global]);
+                    }
+                }
+
+                outs[p].flush();
+            }
+
+            Arrays.fill(changed, false);
+            int changes = 0;
+
+            for(int p = 0; p < ins.length; p++) {
+                Shard shard = partitioned.getShard(p);
+
+                for(int count = ins[p].readInt(); count > 0; count--) {
+                    int global = shard.globalId(ins[p].readInt());
+
+                    labels[global] = ins[p].readInt();
+                    changed[global] = true;
+                    changes++;
+                }
+            }
+
+            rounds++;
+
+            if(changes == 0) break;
+        }
+    }
+
+    private static void awaitProcesses(Process[] processes) {
+        for(Process process: processes) {
+            if(process == null) continue;
+
+            try {
+                if(!process.waitFor(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)) process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the number of rounds of the last run
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Renumbers the labels of the last run from 0 in the order of the vertex ids
+     * @return the community of every vertex id
+     */
+    public int[] getCommunities() {
+        int[] communities = new int[labels.length];
+        int[] numbers = new int[labels.length];
+        Arrays.fill(numbers, -1);
+        int count = 0;
+
+        for(int v = 0; v < labels.length; v++) {
+            if(numbers[labels[v]] < 0) numbers[labels[v]] = count++;
+
+            communities[v] = numbers[labels[v]];
+        }
+
+        return communities;
+    }
+
+    /**
+     * Converts the last run to clusters, the centroid of a cluster being its member of highest degree
+     * @return the clusters
+     */
+    public Cluster[] toClusters() {
+        return Clustering.toClusters(partitioned.getGraph(), getCommunities());
+    }
+}
@@ -0,0 +1,33 @@
+package core.partition;
+
+import core.graph.CompactGraph;
+
+/**
+ * Places every vertex by the hash of its label
+ * Needs no pass over the edges and gives the same part to a label in any snapshot, but cuts most edges
+ *
+ */
+public class HashPartitioner implements Partitioner {
+
+    @Override
+    public int[] partition(CompactGraph graph, int parts) {
+        int[] partOf = new int[graph.vertexCount()];
+
+        for(int v = 0; v < partOf.length; v++) {
+            partOf[v] = Math.floorMod(mix(graph.label(v).hashCode()), parts);
+        }
+
+        return partOf;
+    }
+
+    /**
+     * Spreads the bits of String.hashCode, whose low bits are poor for similar labels
+     * @param hash
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B1;
+
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,644 @@
+package core.partition;
+
+import core.distance.IndexedMinHeap;
+import core.graph.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Multilevel k-way partitioner in the manner of METIS
+ * The graph is coarsened by heavy edge matching until it has a few vertices per part, the coarsest graph is split by
+ * greedy graph growing, and the partition is projected back level by level with a Fiduccia-Mattheyses style boundary
+ * refinement at each level. Matching and the gain computation of the refinement run in parallel.
+ * Directed graphs are partitioned as their undirected version, the weight of u-v being w(u, v) + w(v, u).
+ *
+ */
+public class MultilevelPartitioner implements Partitioner {
+
+    /**
+     * Parts may be up to 3% heavier than the average
+     */
+    public static final double DEFAULT_IMBALANCE = 0.03;
+
+    private static final int COARSEST_PER_PART = 20;
+    private static final int MATCHING_ROUNDS = 4;
+    private static final int INITIAL_TRIES = 8;
+    private static final int REFINEMENT_PASSES = 10;
+
+    private double imbalance = DEFAULT_IMBALANCE;
+    private long seed = 42;
+    private BooleanSupplier stopCondition = () -> false;
+    private boolean stopped;
+
+    /**
+     *
+     * @param imbalance how much heavier than the average a part may be, 0.03 allowing 3%
+     */
+    public void setImbalance(double imbalance) {
+        if(imbalance < 0) throw new IllegalArgumentException("Imbalance must be non negative");
+
+        this.imbalance = imbalance;
+    }
+
+    /**
+     *
+     * @param seed the seed of the initial partitioning and of the matching tie breaks
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Polled between levels. Once it returns true coarsening ends and the partition is only projected back to the
+     * graph, without refinement, so the result is still complete but with a larger cut and possibly unbalanced
+     * @param stopCondition
+     */
+    public void setStopCondition(BooleanSupplier stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     *
+     * @return true if the stop condition cut the last partitioning short
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public int[] partition(CompactGraph graph, int parts) {
+        if(parts < 1) throw new IllegalArgumentException("At least one part is needed");
+
+        stopped = false;
+
+        Level level = Level.of(graph);
+
+        if(parts == 1 || level.n <= parts) {
+            int[] partOf = new int[level.n];
+
+            for(int v = 0; v < level.n; v++) partOf[v] = v % parts;
+
+            return partOf;
+        }
+
+        long total = level.totalWeight();
+        long maxPartWeight = (long) Math.ceil((1 + imbalance) * total / parts);
+        //Coarse vertices heavier than this could not be balanced
+        long maxVertexWeight = Math.max(1, (long) (1.5 * total / (COARSEST_PER_PART * parts)));
+
+        List<Level> levels = new ArrayList<>();
+        levels.add(level);
+
+        while(level.n > COARSEST_PER_PART * parts) {
+            if(stopCondition.getAsBoolean()) {
+                stopped = true;
+                break;
+            }
+
+            int[] match = match(level, maxVertexWeight, seed + levels.size());
+            Level coarse = level.contract(match);
+
+            //Stops when matching does not shrink the graph anymore, e.g. on a star
+            if(coarse.n > 0.95 * level.n) break;
+
+            levels.add(coarse);
+            level = coarse;
+        }
+
+        //A stopped partitioning skips the refined tries of the initial partitioning
+        int[] partOf = stopped ? blocks(level, parts) : initialPartition(level, parts, maxPartWeight);
+
+        for(int i = levels.size() - 1; i >= 0; i--) {
+            Level current = levels.get(i);
+
+            if(i < levels.size() - 1) {
+                int[] coarsePartOf = partOf;
+                partOf = new int[current.n];
+
+                for(int v = 0; v < current.n; v++) partOf[v] = coarsePartOf[current.coarseOf[v]];
+            }
+
+            if(!stopped) stopped = stopCondition.getAsBoolean();
+
+            if(!stopped) refine(current, partOf, parts, maxPartWeight);
+        }
+
+        return partOf;
+    }
+
+    /**
+     * Heavy edge matching by handshakes: every unmatched vertex proposes to its heaviest unmatched neighbor in
+     * parallel and mutual proposals are matched, a few rounds then a sequential pass for the leftovers
+     * @param level
+     * @param maxVertexWeight pairs heavier than this are not matched
+     * @param seed breaks ties between edges of the same weight
+     * @return the vertex matched with every vertex, itself if unmatched
+     */
+    private static int[] match(Level level, long maxVertexWeight, long seed) {
+        int n = level.n;
+        int[] match = new int[n];
+        int[] proposal = new int[n];
+        Arrays.fill(match, -1);
+
+        for(int round = 0; round < MATCHING_ROUNDS; round++) {
+            long roundSeed = seed * 31 + round;
+
+            IntStream.range(0, n).parallel().forEach(v -> proposal[v] = match[v] < 0 ? heaviest(level, v, match, maxVertexWeight, roundSeed) : -1);
+
+            IntStream.range(0, n).parallel().forEach(v -> {
+                int u = proposal[v];
+
+                if(u >= 0 && proposal[u] == v) match[v] = u;
+            });
+        }
+
+        for(int v = 0; v < n; v++) {
+            if(match[v] >= 0) continue;
+
+            int u = heaviest(level, v, match, maxVertexWeight, seed);
+
+            if(u >= 0) {
+                match[v] = u;
+                match[u] = v;
+            } else {
+                match[v] = v;
+            }
+        }
+
+        return match;
+    }
+
+    private static int heaviest(Level level, int v, int[] match, long maxVertexWeight, long seed) {
+        int best = -1;
+        double bestWeight = -1;
+        long bestTie = 0;
+
+        for(int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+            int u = level.targets[e];
+
+            if(match[u] >= 0 || level.vertexWeights[v] + level.vertexWeights[u] > maxVertexWeight) continue;
+
+            //A hash of the pair spreads the proposals of unweighted graphs instead of all going to the lowest id
+            long tie = mix(seed ^ ((long) Math.min(u, v) << 32 | Math.max(u, v)));
+
+            if(level.weights[e] > bestWeight || (level.weights[e] == bestWeight && tie > bestTie)) {
+                best = u;
+                bestWeight = level.weights[e];
+                bestTie = tie;
+            }
+        }
+
+        return best;
+    }
+
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Greedy graph growing from random vertices, the best of a few refined tries
+     * @param level the coarsest level
+     * @param parts
+     * @param maxPartWeight
+     * @return the part of every vertex of the level
+     */
+    private int[] initialPartition(Level level, int parts, long maxPartWeight) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] best = null;
+        double bestCut = Double.POSITIVE_INFINITY;
+        long bestOverweight = Long.MAX_VALUE;
+
+        for(int attempt = 0; attempt < INITIAL_TRIES; attempt++) {
+            int[] partOf = grow(level, parts, random);
+
+            refine(level, partOf, parts, maxPartWeight);
+
+            long overweight = level.overweight(partOf, parts, maxPartWeight);
+            double cut = level.cut(partOf);
+
+            if(overweight < bestOverweight || (overweight == bestOverweight && cut < bestCut)) {
+                best = partOf;
+                bestCut = cut;
+                bestOverweight = overweight;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Consecutive ids of about the same weight in each part, in linear time
+     * @param level
+     * @param parts
+     * @return the part of every vertex of the level
+     */
+    private static int[] blocks(Level level, int parts) {
+        int[] partOf = new int[level.n];
+        long total = level.totalWeight();
+        long weight = 0;
+
+        for(int v = 0; v < level.n; v++) {
+            partOf[v] = (int) Math.min(parts - 1, weight * parts / total);
+            weight += level.vertexWeights[v];
+        }
+
+        return partOf;
+    }
+
+    /**
+     * Grows the parts one after the other from the most connected vertex of the frontier, in O(m log n)
+     * @param level
+     * @param parts
+     * @param random picks the vertex a part starts from, or starts again from when its frontier is empty
+     * @return the part of every vertex of the level
+     */
+    private static int[] grow(Level level, int parts, SplittableRandom random) {
+        int n = level.n;
+        int[] partOf = new int[n];
+        Arrays.fill(partOf, -1);
+
+        double[] connection = new double[n];
+        //Keyed by minus the connection to the growing part, so the most connected vertex comes first
+        IndexedMinHeap frontier = new IndexedMinHeap(n);
+        int[] order = shuffle(n, random);
+        int cursor = 0;
+        long remaining = level.totalWeight();
+        int unassigned = n;
+
+        for(int p = 0; p < parts - 1 && unassigned > 0; p++) {
+            long target = remaining / (parts - p);
+            long weight = 0;
+
+            while(weight < target && unassigned > 0) {
+                int next;
+
+                if(!frontier.isEmpty()) {
+                    next = frontier.poll();
+                } else {
+                    //Empty frontier: starts again from a random vertex, the part may span several components
+                    while(partOf[order[cursor]] >= 0) cursor++;
+
+                    next = order[cursor];
+                }
+
+                partOf[next] = p;
+                weight += level.vertexWeights[next];
+                unassigned--;
+
+                for(int e = level.offsets[next]; e < level.offsets[next + 1]; e++) {
+                    int u = level.targets[e];
+
+                    if(partOf[u] >= 0) continue;
+
+                    connection[u] += level.weights[e];
+                    frontier.offer(u, -connection[u]);
+                }
+            }
+
+            while(!frontier.isEmpty()) connection[frontier.poll()] = 0;
+
+            remaining -= weight;
+        }
+
+        for(int v = 0; v < n; v++) {
+            if(partOf[v] < 0) partOf[v] = parts - 1;
+        }
+
+        return partOf;
+    }
+
+    private static int[] shuffle(int n, SplittableRandom random) {
+        int[] order = new int[n];
+
+        for(int v = 0; v < n; v++) order[v] = v;
+
+        for(int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        return order;
+    }
+
+    /**
+     * Boundary refinement: the best move of every vertex is computed in parallel, then the moves are applied by
+     * decreasing gain after checking them again against the current partition and the balance constraint
+     * Only moves that reduce the cut, or keep it and improve the balance, are applied. Overweight parts are
+     * rebalanced first.
+     * @param level
+     * @param partOf
+     * @param parts
+     * @param maxPartWeight
+     */
+    private static void refine(Level level, int[] partOf, int parts, long maxPartWeight) {
+        int n = level.n;
+        long[] partWeights = new long[parts];
+
+        for(int v = 0; v < n; v++) partWeights[partOf[v]] += level.vertexWeights[v];
+
+        rebalance(level, partOf, partWeights, maxPartWeight);
+
+        ThreadLocal<double[]> connections = ThreadLocal.withInitial(() -> new double[parts]);
+        double[] gains = new double[n];
+        double[] connection = new double[parts];
+
+        for(int pass = 0; pass < REFINEMENT_PASSES; pass++) {
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double[] local = connections.get();
+                int target = bestMove(level, v, partOf, partWeights, local, maxPartWeight);
+
+                gains[v] = target < 0 ? Double.NEGATIVE_INFINITY : local[target] - local[partOf[v]];
+                clear(level, v, partOf, local);
+            });
+
+            Integer[] candidates = IntStream.range(0, n).filter(v -> gains[v] >= 0).boxed().toArray(Integer[]::new);
+
+            Arrays.sort(candidates, (a, b) -> Double.compare(gains[b], gains[a]));
+
+            int moves = 0;
+
+            for(int v: candidates) {
+                int target = bestMove(level, v, partOf, partWeights, connection, maxPartWeight);
+
+                if(target >= 0) {
+                    partWeights[partOf[v]] -= level.vertexWeights[v];
+                    partWeights[target] += level.vertexWeights[v];
+                    partOf[v] = target;
+                    moves++;
+                }
+
+                clear(level, v, partOf, connection);
+            }
+
+            if(moves == 0) break;
+        }
+    }
+
+    /**
+     * Fills connection with the weight from v to each neighboring part, to be cleared with clear
+     * @return the part v should move to, -1 if no move improves the cut or the balance
+     */
+    private static int bestMove(Level level, int v, int[] partOf, long[] partWeights, double[] connection, long maxPartWeight) {
+        int own = partOf[v];
+
+        for(int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+            connection[partOf[level.targets[e]]] += level.weights[e];
+        }
+
+        int best = -1;
+        double bestGain = 0;
+
+        for(int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+            int p = partOf[level.targets[e]];
+
+            if(p == own || partWeights[p] + level.vertexWeights[v] > maxPartWeight) continue;
+
+            double gain = connection[p] - connection[own];
+            boolean balances = partWeights[own] - partWeights[p] > level.vertexWeights[v];
+
+            if(gain > bestGain || (gain == bestGain && balances && (best < 0 || partWeights[p] < partWeights[best]))) {
+                best = p;
+                bestGain = gain;
+            }
+        }
+
+        return best;
+    }
+
+    private static void clear(Level level, int v, int[] partOf, double[] connection) {
+        connection[partOf[v]] = 0;
+
+        for(int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+            connection[partOf[level.targets[e]]] = 0;
+        }
+    }
+
+    /**
+     * Moves vertices out of the overweight parts, preferring the moves that cut the fewest edges
+     */
+    private static void rebalance(Level level, int[] partOf, long[] partWeights, long maxPartWeight) {
+        int parts = partWeights.length;
+        double[] connection = new double[parts];
+
+        for(int own = 0; own < parts; own++) {
+            if(partWeights[own] <= maxPartWeight) continue;
+
+            List<Integer> members = new ArrayList<>();
+
+            for(int v = 0; v < level.n; v++) {
+                if(partOf[v] == own) members.add(v);
+            }
+
+            double[] losses = new double[level.n];
+
+            for(int v: members) {
+                for(int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+                    int w = level.targets[e];
+
+                    losses[v] += partOf[w] == own ? level.weights[e] : -level.weights[e];
+                }
+            }
+
+            members.sort((a, b) -> Double.compare(losses[a], losses[b]));
+
+            for(int v: members) {
+                if(partWeights[own] <= maxPartWeight) break;
+
+                for(int e = level.offsets[v]; e < level.offsets[v + 1]; e++) {
+                    connection[partOf[level.targets[e]]] += level.weights[e];
+                }
+
+                int target = -1;
+
+                for(int p = 0; p < parts; p++) {
+                    if(p == own || partWeights[p] + level.vertexWeights[v] > maxPartWeight) continue;
+
+                    if(target < 0 || connection[p] > connection[target]) target = p;
+                }
+
+                Arrays.fill(connection, 0);
+
+                if(target < 0) continue;
+
+                partWeights[own] -= level.vertexWeights[v];
+                partWeights[target] += level.vertexWeights[v];
+                partOf[v] = target;
+            }
+        }
+    }
+
+    /**
+     * Undirected weighted graph of one level, without self loops nor parallel edges
+     */
+    private static final class Level {
+        private final int n;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final int[] vertexWeights;
+
+        /**
+         * Vertex of the next coarser level of every vertex, set by contract
+         */
+        private int[] coarseOf;
+
+        private Level(int n, int[] offsets, int[] targets, double[] weights, int[] vertexWeights) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.vertexWeights = vertexWeights;
+        }
+
+        private static Level of(CompactGraph graph) {
+            int n = graph.vertexCount();
+            CompactGraph reversed = graph.isDirected() ? graph.reverse() : null;
+            int[] vertexWeights = new int[n];
+            Arrays.fill(vertexWeights, 1);
+
+            Merger merger = new Merger(n, graph.edgesCount() * (reversed == null ? 1 : 2));
+
+            for(int v = 0; v < n; v++) {
+                for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                    merger.add(v, graph.target(e), graph.weight(e));
+                }
+
+                if(reversed != null) {
+                    for(int e = reversed.firstEdge(v), end = reversed.firstEdge(v + 1); e < end; e++) {
+                        merger.add(v, reversed.target(e), reversed.weight(e));
+                    }
+                }
+
+                merger.endVertex(v);
+            }
+
+            return merger.toLevel(vertexWeights);
+        }
+
+        /**
+         * Merges every matched pair into one vertex
+         * @param match
+         * @return the coarser level
+         */
+        private Level contract(int[] match) {
+            coarseOf = new int[n];
+            int coarseN = 0;
+
+            //The lower vertex of a pair numbers it
+            for(int v = 0; v < n; v++) {
+                if(match[v] >= v) {
+                    coarseOf[v] = coarseN;
+                    coarseOf[match[v]] = coarseN;
+                    coarseN++;
+                }
+            }
+
+            int[] vertexWeights = new int[coarseN];
+            Merger merger = new Merger(coarseN, targets.length);
+
+            for(int v = 0; v < n; v++) {
+                if(match[v] < v) continue;
+
+                int c = coarseOf[v];
+
+                for(int member = v; ; member = match[v]) {
+                    vertexWeights[c] += this.vertexWeights[member];
+
+                    for(int e = offsets[member]; e < offsets[member + 1]; e++) {
+                        merger.add(c, coarseOf[targets[e]], weights[e]);
+                    }
+
+                    if(member == match[v]) break;
+                }
+
+                merger.endVertex(c);
+            }
+
+            return merger.toLevel(vertexWeights);
+        }
+
+        private long totalWeight() {
+            long total = 0;
+
+            for(int weight: vertexWeights) total += weight;
+
+            return total;
+        }
+
+        private double cut(int[] partOf) {
+            double cut = 0;
+
+            for(int v = 0; v < n; v++) {
+                for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    if(partOf[targets[e]] != partOf[v]) cut += weights[e];
+                }
+            }
+
+            return cut / 2;
+        }
+
+        private long overweight(int[] partOf, int parts, long maxPartWeight) {
+            long[] partWeights = new long[parts];
+
+            for(int v = 0; v < n; v++) partWeights[partOf[v]] += vertexWeights[v];
+
+            long overweight = 0;
+
+            for(long weight: partWeights) overweight += Math.max(0, weight - maxPartWeight);
+
+            return overweight;
+        }
+    }
+
+    /**
+     * Builds adjacency arrays vertex by vertex, summing the weights of parallel edges and dropping self loops
+     * Vertices must be ended in increasing order
+     */
+    private static final class Merger {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final int[] slot;
+        private int size;
+
+        private Merger(int n, int capacity) {
+            this.offsets = new int[n + 1];
+            this.targets = new int[capacity];
+            this.weights = new double[capacity];
+            this.slot = new int[n];
+            Arrays.fill(slot, -1);
+        }
+
+        private void add(int v, int target, double weight) {
+            if(target == v) return;
+
+            if(slot[target] < 0) {
+                slot[target] = size;
+                targets[size] = target;
+                weights[size++] = weight;
+            } else {
+                weights[slot[target]] += weight;
+            }
+        }
+
+        private void endVertex(int v) {
+            for(int e = offsets[v]; e < size; e++) slot[targets[e]] = -1;
+
+            offsets[v + 1] = size;
+        }
+
+        private Level toLevel(int[] vertexWeights) {
+            return new Level(vertexWeights.length, offsets, Arrays.copyOf(targets, size), Arrays.copyOf(weights, size), vertexWeights);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package core.partition;
+
+import core.graph.CompactGraph;
+
+import java.util.Locale;
+
+/**
+ * Quality of a partition: the edges it cuts and how balanced its parts are
+ *
+ */
+public class PartitionStats {
+    private final int[] partSizes;
+    private final int cutEdges;
+    private final double edgeCut;
+
+    private PartitionStats(int[] partSizes, int cutEdges, double edgeCut) {
+        this.partSizes = partSizes;
+        this.cutEdges = cutEdges;
+        this.edgeCut = edgeCut;
+    }
+
+    /**
+     *
+     * @param graph
+     * @param partOf the part of every vertex id
+     * @param parts
+     * @return the statistics of the partition
+     */
+    public static PartitionStats of(CompactGraph graph, int[] partOf, int parts) {
+        int[] partSizes = new int[parts];
+        int cutEdges = 0;
+        double edgeCut = 0;
+
+        for(int v = 0; v < graph.vertexCount(); v++) {
+            partSizes[partOf[v]]++;
+
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                if(partOf[graph.target(e)] != partOf[v]) {
+                    cutEdges++;
+                    edgeCut += graph.weight(e);
+                }
+            }
+        }
+
+        //Undirected edges are stored in both directions
+        if(!graph.isDirected()) {
+            cutEdges /= 2;
+            edgeCut /= 2;
+        }
+
+        return new PartitionStats(partSizes, cutEdges, edgeCut);
+    }
+
+    public int partsCount() {
+        return partSizes.length;
+    }
+
+    public int partSize(int part) {
+        return partSizes[part];
+    }
+
+    /**
+     *
+     * @return the number of edges between two parts
+     */
+    public int getCutEdges() {
+        return cutEdges;
+    }
+
+    /**
+     *
+     * @return the total weight of the edges between two parts
+     */
+    public double getEdgeCut() {
+        return edgeCut;
+    }
+
+    /**
+     *
+     * @return how much larger than the average the largest part is, 0.05 meaning 5%
+     */
+    public double getImbalance() {
+        long total = 0;
+        int largest = 0;
+
+        for(int size: partSizes) {
+            total += size;
+            largest = Math.max(largest, size);
+        }
+
+        return total == 0 ? 0 : (double) largest * partSizes.length / total - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d parts, %d cut edges, edge cut %.2f, imbalance %.1f%%",
+                partSizes.length, cutEdges, edgeCut, 100 * getImbalance());
+    }
+}
@@ -0,0 +1,68 @@
+package core.partition;
+
+import core.graph.CompactGraph;
+
+/**
+ * A graph split into shards, each holding its owned vertices and their ghosts
+ *
+ */
+public class PartitionedGraph {
+    private final CompactGraph graph;
+    private final int[] partOf;
+    private final Shard[] shards;
+
+    public PartitionedGraph(CompactGraph graph, int[] partOf, int parts) {
+        this.graph = graph;
+        this.partOf = partOf;
+        this.shards = Shard.split(graph, partOf, parts);
+    }
+
+    /**
+     *
+     * @param graph
+     * @param partitioner
+     * @param parts
+     * @return the graph split by the partitioner
+     */
+    public static PartitionedGraph of(CompactGraph graph, Partitioner partitioner, int parts) {
+        if(parts < 1) throw new IllegalArgumentException("At least one part is needed");
+
+        return new PartitionedGraph(graph, partitioner.partition(graph, parts), parts);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int partsCount() {
+        return shards.length;
+    }
+
+    public int partOf(int v) {
+        return partOf[v];
+    }
+
+    public Shard getShard(int part) {
+        return shards[part];
+    }
+
+    /**
+     *
+     * @return the edge cut and balance of the partition
+     */
+    public PartitionStats getStats() {
+        return PartitionStats.of(graph, partOf, shards.length);
+    }
+
+    /**
+     *
+     * @return the total number of ghosts, i.e. of vertices replicated on another shard
+     */
+    public int ghostCount() {
+        int count = 0;
+
+        for(Shard shard: shards) count += shard.ghostCount();
+
+        return count;
+    }
+}
@@ -0,0 +1,18 @@
+package core.partition;
+
+import core.graph.CompactGraph;
+
+/**
+ * Splits the vertices of a graph into parts
+ *
+ */
+public interface Partitioner {
+
+    /**
+     *
+     * @param graph
+     * @param parts the number of parts
+     * @return the part in [0, parts) of every vertex id
+     */
+    int[] partition(CompactGraph graph, int parts);
+}
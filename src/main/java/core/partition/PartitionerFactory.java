@@ -0,0 +1,25 @@
+package core.partition;
+
+import utils.exceptions.GraphException;
+
+public class PartitionerFactory {
+
+    public enum PartitionerTypes {
+        HASH,
+        RANGE,
+        MULTILEVEL
+    }
+
+    public Partitioner createPartitioner(PartitionerTypes partitionerType) throws GraphException {
+        switch (partitionerType) {
+            case HASH:
+                return new HashPartitioner();
+            case RANGE:
+                return new RangePartitioner();
+            case MULTILEVEL:
+                return new MultilevelPartitioner();
+            default:
+                throw new GraphException("Unknown partitioner type.");
+        }
+    }
+}
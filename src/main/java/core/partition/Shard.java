@@ -0,0 +1,231 @@
+package core.partition;
+
+import core.graph.CompactGraph;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The vertices of one part with their edges, plus the ghost vertices: the neighbors owned by other parts
+ * Local ids [0, ownedCount) are the owned vertices and [ownedCount, localCount) the ghosts; only owned vertices have
+ * edges. Edges of a directed graph are followed both ways so that the ghosts are the whole halo of the part.
+ *
+ */
+public class Shard {
+    private final int part;
+    private final int ownedCount;
+    private final int[] globalIds;
+    private final int[] ghostOwners;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    /**
+     *
+     * @param part
+     * @param ownedCount
+     * @param globalIds the global id of every local id
+     * @param ghostOwners the part owning each ghost
+     * @param offsets ownedCount + 1 offsets into targets
+     * @param targets the local destination id of each edge
+     * @param weights the weight of each edge
+     */
+    public Shard(int part, int ownedCount, int[] globalIds, int[] ghostOwners, int[] offsets, int[] targets, double[] weights) {
+        this.part = part;
+        this.ownedCount = ownedCount;
+        this.globalIds = globalIds;
+        this.ghostOwners = ghostOwners;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Cuts the graph into one shard per part in two passes over the edges
+     * @param graph
+     * @param partOf the part of every vertex id
+     * @param parts
+     * @return the shards, indexed by part
+     */
+    public static Shard[] split(CompactGraph graph, int[] partOf, int parts) {
+        int n = graph.vertexCount();
+        CompactGraph reversed = graph.isDirected() ? graph.reverse() : null;
+
+        int[] ownedCounts = new int[parts];
+
+        for(int v = 0; v < n; v++) ownedCounts[partOf[v]]++;
+
+        //Local id of every vertex in its own part, owned vertices keep the global order
+        int[] localOf = new int[n];
+        int[] next = new int[parts];
+
+        for(int v = 0; v < n; v++) localOf[v] = next[partOf[v]]++;
+
+        Shard[] shards = new Shard[parts];
+        int[] ghostLocal = new int[n];
+        Arrays.fill(ghostLocal, -1);
+
+        for(int p = 0; p < parts; p++) {
+            int[] owned = new int[ownedCounts[p]];
+            int[] offsets = new int[owned.length + 1];
+
+            for(int v = 0, i = 0; v < n; v++) {
+                if(partOf[v] == p) owned[i++] = v;
+            }
+
+            for(int i = 0; i < owned.length; i++) {
+                int degree = graph.degree(owned[i]) + (reversed == null ? 0 : reversed.degree(owned[i]));
+
+                offsets[i + 1] = offsets[i] + degree;
+            }
+
+            int[] targets = new int[offsets[owned.length]];
+            double[] weights = new double[targets.length];
+            int[] ghosts = new int[16];
+            int ghostCount = 0;
+
+            for(int i = 0; i < owned.length; i++) {
+                int edge = offsets[i];
+
+                //Out edges then, for a directed graph, in edges
+                for(CompactGraph g = graph; g != null; g = (g == graph ? reversed : null)) {
+                    for(int e = g.firstEdge(owned[i]), end = g.firstEdge(owned[i] + 1); e < end; e++) {
+                        int w = g.target(e);
+
+                        if(partOf[w] == p) {
+                            targets[edge] = localOf[w];
+                        } else {
+                            if(ghostLocal[w] < 0) {
+                                if(ghostCount == ghosts.length) ghosts = Arrays.copyOf(ghosts, ghostCount * 2);
+
+                                ghostLocal[w] = owned.length + ghostCount;
+                                ghosts[ghostCount++] = w;
+                            }
+
+                            targets[edge] = ghostLocal[w];
+                        }
+
+                        weights[edge++] = g.weight(e);
+                    }
+                }
+            }
+
+            int[] globalIds = Arrays.copyOf(owned, owned.length + ghostCount);
+            int[] ghostOwners = new int[ghostCount];
+
+            for(int i = 0; i < ghostCount; i++) {
+                globalIds[owned.length + i] = ghosts[i];
+                ghostOwners[i] = partOf[ghosts[i]];
+                ghostLocal[ghosts[i]] = -1;
+            }
+
+            shards[p] = new Shard(p, owned.length, globalIds, ghostOwners, offsets, targets, weights);
+        }
+
+        return shards;
+    }
+
+    public int getPart() {
+        return part;
+    }
+
+    public int ownedCount() {
+        return ownedCount;
+    }
+
+    public int ghostCount() {
+        return globalIds.length - ownedCount;
+    }
+
+    /**
+     *
+     * @return the number of owned and ghost vertices
+     */
+    public int localCount() {
+        return globalIds.length;
+    }
+
+    /**
+     *
+     * @param local
+     * @return the global id of the local vertex
+     */
+    public int globalId(int local) {
+        return globalIds[local];
+    }
+
+    /**
+     *
+     * @param local a ghost local id
+     * @return the part owning the ghost
+     */
+    public int ghostOwner(int local) {
+        return ghostOwners[local - ownedCount];
+    }
+
+    public int edgesCount() {
+        return targets.length;
+    }
+
+    public int degree(int local) {
+        return offsets[local + 1] - offsets[local];
+    }
+
+    public int firstEdge(int local) {
+        return offsets[local];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Sends the shard to a worker
+     * @param out
+     * @throws IOException
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(part);
+        out.writeInt(ownedCount);
+        out.writeInt(globalIds.length);
+        out.writeInt(targets.length);
+
+        for(int id: globalIds) out.writeInt(id);
+
+        for(int owner: ghostOwners) out.writeInt(owner);
+
+        for(int offset: offsets) out.writeInt(offset);
+
+        for(int target: targets) out.writeInt(target);
+
+        for(double weight: weights) out.writeDouble(weight);
+    }
+
+    public static Shard read(DataInputStream in) throws IOException {
+        int part = in.readInt();
+        int ownedCount = in.readInt();
+        int[] globalIds = new int[in.readInt()];
+        int[] targets = new int[in.readInt()];
+        int[] ghostOwners = new int[globalIds.length - ownedCount];
+        int[] offsets = new int[ownedCount + 1];
+        double[] weights = new double[targets.length];
+
+        for(int i = 0; i < globalIds.length; i++) globalIds[i] = in.readInt();
+
+        for(int i = 0; i < ghostOwners.length; i++) ghostOwners[i] = in.readInt();
+
+        for(int i = 0; i < offsets.length; i++) offsets[i] = in.readInt();
+
+        for(int i = 0; i < targets.length; i++) targets[i] = in.readInt();
+
+        for(int i = 0; i < weights.length; i++) weights[i] = in.readDouble();
+
+        return new Shard(part, ownedCount, globalIds, ghostOwners, offsets, targets, weights);
+    }
+}
@@ -0,0 +1,124 @@
+package core.partition;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Runs label propagation on one shard for a coordinator, see DistributedLabelPropagation
+ * The worker connects to the coordinator, receives its shard, then answers rounds until told to stop: a round message
+ * carries the new labels of the ghosts, the answer the owned vertices whose label changed during the local sweep.
+ * Can run as a thread or as its own JVM with the coordinator host and port as arguments.
+ *
+ */
+public class ShardWorker implements Runnable {
+    static final int ROUND = 1;
+    static final int STOP = 2;
+
+    private final String host;
+    private final int port;
+
+    public ShardWorker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public static void main(String[] args) {
+        new ShardWorker(args[0], Integer.parseInt(args[1])).run();
+    }
+
+    @Override
+    public void run() {
+        try(Socket socket = new Socket(host, port);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+
+            serve(Shard.read(in), in, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Worker lost its coordinator", e);
+        }
+    }
+
+    private static void serve(Shard shard, DataInputStream in, DataOutputStream out) throws IOException {
+        int[] labels = new int[shard.localCount()];
+
+        for(int local = 0; local < labels.length; local++) labels[local] = shard.globalId(local);
+
+        int maxDegree = 0;
+
+        for(int v = 0; v < shard.ownedCount(); v++) maxDegree = Math.max(maxDegree, shard.degree(v));
+
+        long[] keys = new long[maxDegree];
+        int[] changed = new int[shard.ownedCount()];
+
+        while(in.readInt() == ROUND) {
+            for(int count = in.readInt(); count > 0; count--) {
+                int local = in.readInt();
+                labels[local] = in.readInt();
+            }
+
+            int changes = sweep(shard, labels, keys, changed);
+
+            out.writeInt(changes);
+
+            for(int i = 0; i < changes; i++) {
+                out.writeInt(changed[i]);
+                out.writeInt(labels[changed[i]]);
+            }
+
+            out.flush();
+        }
+    }
+
+    /**
+     * Moves every owned vertex to the label of largest weight among its neighbors
+     * A vertex only leaves its label for a strictly heavier one, which keeps boundary vertices from flipping forever
+     * @param shard
+     * @param labels
+     * @param keys
+     * @param changed receives the owned vertices whose label changed
+     * @return the number of changed vertices
+     */
+    static int sweep(Shard shard, int[] labels, long[] keys, int[] changed) {
+        int changes = 0;
+
+        for(int v = 0; v < shard.ownedCount(); v++) {
+            int first = shard.firstEdge(v);
+            int degree = shard.degree(v);
+
+            //Sorts the neighbor labels without boxing: label in the high bits, edge in the low bits
+            for(int i = 0; i < degree; i++) {
+                keys[i] = ((long) labels[shard.target(first + i)] << 32) | i;
+            }
+
+            Arrays.sort(keys, 0, degree);
+
+            int bestLabel = labels[v];
+            double bestWeight = 0;
+            double currentWeight = 0;
+
+            for(int i = 0; i < degree; ) {
+                int label = (int) (keys[i] >>> 32);
+                double weight = 0;
+
+                for(; i < degree && (int) (keys[i] >>> 32) == label; i++) {
+                    weight += shard.weight(first + (int) keys[i]);
+                }
+
+                if(label == labels[v]) currentWeight = weight;
+
+                if(weight > bestWeight) {
+                    bestWeight = weight;
+                    bestLabel = label;
+                }
+            }
+
+            if(bestWeight > currentWeight && bestLabel != labels[v]) {
+                labels[v] = bestLabel;
+                changed[changes++] = v;
+            }
+        }
+
+        return changes;
+    }
+}
@@ -0,0 +1,139 @@
+package core.reorder;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * A relabelling of the vertex ids of a graph together with its inverse
+ * Labels move with their vertices, so only results indexed by vertex id need to be mapped back.
+ *
+ */
+public class Permutation {
+    private final int[] newIds;
+    private final int[] oldIds;
+
+    /**
+     *
+     * @param oldIds the old id of every new id, in other words the vertices in their new order
+     */
+    public Permutation(int[] oldIds) {
+        this.oldIds = oldIds;
+        this.newIds = new int[oldIds.length];
+        Arrays.fill(newIds, -1);
+
+        for(int i = 0; i < oldIds.length; i++) {
+            if(newIds[oldIds[i]] >= 0) throw new IllegalArgumentException("Vertex " + oldIds[i] + " appears twice");
+
+            newIds[oldIds[i]] = i;
+        }
+    }
+
+    public static Permutation identity(int n) {
+        int[] oldIds = new int[n];
+
+        for(int i = 0; i < n; i++) oldIds[i] = i;
+
+        return new Permutation(oldIds);
+    }
+
+    public int size() {
+        return oldIds.length;
+    }
+
+    public int newId(int oldId) {
+        return newIds[oldId];
+    }
+
+    public int oldId(int newId) {
+        return oldIds[newId];
+    }
+
+    public Permutation inverse() {
+        return new Permutation(newIds.clone());
+    }
+
+    /**
+     * Builds the graph with every vertex moved to its new id, neighbor lists staying sorted by target id
+     * @param graph
+     * @return the reordered graph
+     */
+    public CompactGraph apply(CompactGraph graph) {
+        int n = graph.vertexCount();
+
+        if(n != oldIds.length) throw new IllegalArgumentException("The permutation does not match the graph");
+
+        String[] labels = new String[n];
+        int[] offsets = new int[n + 1];
+
+        for(int v = 0; v < n; v++) {
+            labels[v] = graph.label(oldIds[v]);
+            offsets[v + 1] = offsets[v] + graph.degree(oldIds[v]);
+        }
+
+        int[] targets = new int[graph.edgesCount()];
+        int[] edges = new int[targets.length];
+        long[] sorted = new long[0];
+
+        for(int v = 0; v < n; v++) {
+            int old = oldIds[v];
+            int first = graph.firstEdge(old);
+            int degree = graph.degree(old);
+
+            if(sorted.length < degree) sorted = new long[degree];
+
+            //Packs the new target id with the edge position to sort without boxing
+            for(int i = 0; i < degree; i++) {
+                sorted[i] = ((long) newIds[graph.target(first + i)] << 32) | i;
+            }
+
+            Arrays.sort(sorted, 0, degree);
+
+            for(int i = 0; i < degree; i++) {
+                targets[offsets[v] + i] = (int) (sorted[i] >>> 32);
+                edges[offsets[v] + i] = first + (int) sorted[i];
+            }
+        }
+
+        return new CompactGraph(labels, offsets, targets, graph.getWeights().select(edges), graph.isDirected());
+    }
+
+    /**
+     * Maps back a result computed on the reordered graph, e.g. the cluster of every vertex
+     * @param values indexed by new id
+     * @return the values indexed by old id
+     */
+    public int[] toOriginal(int[] values) {
+        int[] original = new int[values.length];
+
+        for(int v = 0; v < values.length; v++) original[oldIds[v]] = values[v];
+
+        return original;
+    }
+
+    /**
+     *
+     * @param values indexed by new id
+     * @return the values indexed by old id
+     */
+    public double[] toOriginal(double[] values) {
+        double[] original = new double[values.length];
+
+        for(int v = 0; v < values.length; v++) original[oldIds[v]] = values[v];
+
+        return original;
+    }
+
+    /**
+     *
+     * @param values indexed by old id
+     * @return the values indexed by new id
+     */
+    public int[] toReordered(int[] values) {
+        int[] reordered = new int[values.length];
+
+        for(int v = 0; v < values.length; v++) reordered[v] = values[oldIds[v]];
+
+        return reordered;
+    }
+}
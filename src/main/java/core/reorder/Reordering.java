@@ -0,0 +1,290 @@
+package core.reorder;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * Computes vertex orders that put vertices visited together close in memory
+ * Edges of a directed graph are followed both ways, locality does not depend on their direction.
+ *
+ */
+public class Reordering {
+
+    private static final int PROPAGATION_ROUNDS = 5;
+
+    public enum Orders {
+        /**
+         * Hubs first, the most accessed vertices share few cache lines
+         */
+        DEGREE,
+        /**
+         * Reverse Cuthill-McKee, a breadth first order that minimizes the bandwidth of the adjacency matrix
+         */
+        RCM,
+        /**
+         * Communities found by label propagation laid out contiguously, in the spirit of Rabbit order
+         */
+        COMMUNITY
+    }
+
+    /**
+     *
+     * @param graph
+     * @param order
+     * @return the permutation giving the order, to be applied to the graph
+     */
+    public static Permutation order(CompactGraph graph, Orders order) {
+        CompactGraph reversed = graph.isDirected() ? graph.reverse() : null;
+
+        switch (order) {
+            case DEGREE:
+                return degree(graph, reversed);
+            case RCM:
+                return reverseCuthillMcKee(graph, reversed);
+            case COMMUNITY:
+                return community(graph, reversed);
+            default:
+                throw new IllegalArgumentException("Unknown order");
+        }
+    }
+
+    private static int degree(CompactGraph graph, CompactGraph reversed, int v) {
+        return graph.degree(v) + (reversed == null ? 0 : reversed.degree(v));
+    }
+
+    /**
+     * Sorts by decreasing degree with a counting sort, vertices of the same degree keep their order
+     */
+    private static Permutation degree(CompactGraph graph, CompactGraph reversed) {
+        int n = graph.vertexCount();
+        int maxDegree = 0;
+
+        for(int v = 0; v < n; v++) maxDegree = Math.max(maxDegree, degree(graph, reversed, v));
+
+        int[] starts = new int[maxDegree + 2];
+
+        for(int v = 0; v < n; v++) starts[maxDegree - degree(graph, reversed, v) + 1]++;
+
+        for(int d = 0; d <= maxDegree; d++) starts[d + 1] += starts[d];
+
+        int[] oldIds = new int[n];
+
+        for(int v = 0; v < n; v++) oldIds[starts[maxDegree - degree(graph, reversed, v)]++] = v;
+
+        return new Permutation(oldIds);
+    }
+
+    /**
+     * Breadth first search of every component from a pseudo peripheral vertex, neighbors being queued by increasing
+     * degree, then reversed
+     */
+    private static Permutation reverseCuthillMcKee(CompactGraph graph, CompactGraph reversed) {
+        int n = graph.vertexCount();
+        int[] order = new int[n];
+        int[] levels = new int[n];
+        boolean[] visited = new boolean[n];
+        long[] neighbors = new long[16];
+        int count = 0;
+
+        //Components are started from their lowest degree vertex
+        Permutation byDegree = degree(graph, reversed);
+
+        for(int i = n - 1; i >= 0; i--) {
+            int start = byDegree.oldId(i);
+
+            if(visited[start]) continue;
+
+            start = peripheral(graph, reversed, start, levels, order, count);
+
+            visited[start] = true;
+            order[count++] = start;
+
+            for(int head = count - 1; head < count; head++) {
+                int v = order[head];
+                int size = 0;
+
+                for(CompactGraph g = graph; g != null; g = (g == graph ? reversed : null)) {
+                    for(int e = g.firstEdge(v), end = g.firstEdge(v + 1); e < end; e++) {
+                        int w = g.target(e);
+
+                        if(visited[w]) continue;
+
+                        visited[w] = true;
+
+                        if(size == neighbors.length) neighbors = Arrays.copyOf(neighbors, size * 2);
+
+                        neighbors[size++] = ((long) degree(graph, reversed, w) << 32) | w;
+                    }
+                }
+
+                Arrays.sort(neighbors, 0, size);
+
+                for(int j = 0; j < size; j++) order[count++] = (int) neighbors[j];
+            }
+        }
+
+        for(int i = 0, j = n - 1; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        return new Permutation(order);
+    }
+
+    private static int[] identity(int n) {
+        int[] ids = new int[n];
+
+        for(int i = 0; i < n; i++) ids[i] = i;
+
+        return ids;
+    }
+
+    /**
+     * George-Liu search: moves to the lowest degree vertex of the last breadth first level while the depth grows
+     * @param start an unvisited vertex
+     * @param levels scratch array
+     * @param queue scratch array, used from offset on
+     * @return a vertex of the component of start with a large eccentricity
+     */
+    private static int peripheral(CompactGraph graph, CompactGraph reversed, int start, int[] levels, int[] queue, int offset) {
+        int depth = -1;
+
+        while(true) {
+            int tail = offset;
+            queue[tail++] = start;
+            levels[start] = 0;
+
+            int last = start;
+
+            for(int head = offset; head < tail; head++) {
+                int v = queue[head];
+
+                for(CompactGraph g = graph; g != null; g = (g == graph ? reversed : null)) {
+                    for(int e = g.firstEdge(v), end = g.firstEdge(v + 1); e < end; e++) {
+                        int w = g.target(e);
+
+                        if(w == start || levels[w] > 0) continue;
+
+                        levels[w] = levels[v] + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+
+            int eccentricity = levels[queue[tail - 1]];
+
+            for(int i = tail - 1; i >= offset && levels[queue[i]] == eccentricity; i--) {
+                if(degree(graph, reversed, queue[i]) <= degree(graph, reversed, last) || last == start) last = queue[i];
+            }
+
+            for(int i = offset; i < tail; i++) levels[queue[i]] = 0;
+
+            if(eccentricity <= depth) return start;
+
+            depth = eccentricity;
+            start = last;
+        }
+    }
+
+    /**
+     * Label propagation finds the communities, which are laid out in the order a breadth first search meets them,
+     * the members of a community keeping their breadth first order
+     */
+    private static Permutation community(CompactGraph graph, CompactGraph reversed) {
+        int n = graph.vertexCount();
+        int[] labels = identity(n);
+        long[] keys = new long[16];
+
+        for(int round = 0; round < PROPAGATION_ROUNDS; round++) {
+            int changes = 0;
+
+            for(int v = 0; v < n; v++) {
+                int size = 0;
+
+                for(CompactGraph g = graph; g != null; g = (g == graph ? reversed : null)) {
+                    for(int e = g.firstEdge(v), end = g.firstEdge(v + 1); e < end; e++) {
+                        if(size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+
+                        keys[size++] = labels[g.target(e)];
+                    }
+                }
+
+                Arrays.sort(keys, 0, size);
+
+                //Most frequent neighbor label, the current one winning ties
+                int best = labels[v];
+                int bestCount = 0;
+
+                for(int i = 0; i < size; ) {
+                    int label = (int) keys[i];
+                    int j = i;
+
+                    while(j < size && keys[j] == label) j++;
+
+                    if(j - i > bestCount || (j - i == bestCount && label == labels[v])) {
+                        best = label;
+                        bestCount = j - i;
+                    }
+
+                    i = j;
+                }
+
+                if(best != labels[v]) {
+                    labels[v] = best;
+                    changes++;
+                }
+            }
+
+            if(changes == 0) break;
+        }
+
+        int[] bfs = new int[n];
+        boolean[] visited = new boolean[n];
+        int count = 0;
+
+        for(int start = 0; start < n; start++) {
+            if(visited[start]) continue;
+
+            visited[start] = true;
+            bfs[count++] = start;
+
+            for(int head = count - 1; head < count; head++) {
+                int v = bfs[head];
+
+                for(CompactGraph g = graph; g != null; g = (g == graph ? reversed : null)) {
+                    for(int e = g.firstEdge(v), end = g.firstEdge(v + 1); e < end; e++) {
+                        int w = g.target(e);
+
+                        if(!visited[w]) {
+                            visited[w] = true;
+                            bfs[count++] = w;
+                        }
+                    }
+                }
+            }
+        }
+
+        //Communities numbered by first appearance in the search, then a counting sort of the search order
+        int[] rank = new int[n];
+        Arrays.fill(rank, -1);
+        int communities = 0;
+
+        for(int v: bfs) {
+            if(rank[labels[v]] < 0) rank[labels[v]] = communities++;
+        }
+
+        int[] starts = new int[communities + 1];
+
+        for(int v = 0; v < n; v++) starts[rank[labels[v]] + 1]++;
+
+        for(int c = 0; c < communities; c++) starts[c + 1] += starts[c];
+
+        int[] oldIds = new int[n];
+
+        for(int v: bfs) oldIds[starts[rank[labels[v]]]++] = v;
+
+        return new Permutation(oldIds);
+    }
+}
@@ -0,0 +1,64 @@
+package core.weighted;
+
+import core.distance.IndexedMinHeap;
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * Point to point shortest path guided by a heuristic
+ * A vertex whose distance improves after it was settled is queued again, so a heuristic that is admissible but not
+ * consistent still gives shortest paths.
+ *
+ */
+public class AStar {
+
+    /**
+     *
+     * @param graph a graph with non negative weights
+     * @param src
+     * @param target
+     * @param heuristic
+     * @return the shortest path from src to target
+     */
+    public static Path search(CompactGraph graph, int src, int target, Heuristic heuristic) {
+        int n = graph.vertexCount();
+        double[] distances = new double[n];
+        int[] parents = new int[n];
+
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        distances[src] = 0;
+        heap.offer(src, heuristic.estimate(src, target));
+
+        int settled = 0;
+
+        while(!heap.isEmpty()) {
+            int v = heap.poll();
+            settled++;
+
+            if(v == target) break;
+
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int w = graph.target(e);
+                double weight = graph.weight(e);
+
+                if(weight < 0) throw new IllegalArgumentException("Negative weight on an edge of " + graph.label(v));
+
+                double distance = distances[v] + weight;
+
+                if(distance < distances[w]) {
+                    distances[w] = distance;
+                    parents[w] = v;
+                    heap.offer(w, distance + heuristic.estimate(w, target));
+                }
+            }
+        }
+
+        if(distances[target] == Double.POSITIVE_INFINITY) return new Path(new int[0], Double.POSITIVE_INFINITY, settled);
+
+        return new Path(new ShortestPathTree(graph, src, distances, parents).pathTo(target), distances[target], settled);
+    }
+}
@@ -0,0 +1,28 @@
+package core.weighted;
+
+import core.distance.ShortestPaths;
+import core.graph.CompactGraph;
+
+/**
+ * Single source shortest paths with double precision distances and parents
+ * Runs the search of {@link ShortestPaths}, keeping the parents to rebuild the paths.
+ *
+ */
+public class Dijkstra {
+
+    /**
+     *
+     * @param graph a graph with non negative weights
+     * @param src
+     * @return the shortest path tree of src
+     */
+    public static ShortestPathTree run(CompactGraph graph, int src) {
+        int n = graph.vertexCount();
+        double[] distances = new double[n];
+        int[] parents = new int[n];
+
+        ShortestPaths.dijkstra(graph, new int[] {src}, distances, null, parents);
+
+        return new ShortestPathTree(graph, src, distances, parents);
+    }
+}
@@ -0,0 +1,22 @@
+package core.weighted;
+
+/**
+ * Estimate of the remaining distance used by A*
+ * It must never exceed the real distance for A* to return shortest paths
+ *
+ */
+public interface Heuristic {
+
+    /**
+     * Turns A* into Dijkstra
+     */
+    Heuristic ZERO = (v, target) -> 0;
+
+    /**
+     *
+     * @param v
+     * @param target
+     * @return a lower bound of the distance from v to target
+     */
+    double estimate(int v, int target);
+}
@@ -0,0 +1,22 @@
+package core.weighted;
+
+import core.distance.LandmarkDistanceOracle;
+
+/**
+ * ALT heuristic: the triangle inequality lower bound given by the distances to and from landmarks
+ * The oracle already lowers the bound by the rounding of its float distances, so it stays admissible.
+ *
+ */
+public class LandmarkHeuristic implements Heuristic {
+
+    private final LandmarkDistanceOracle oracle;
+
+    public LandmarkHeuristic(LandmarkDistanceOracle oracle) {
+        this.oracle = oracle;
+    }
+
+    @Override
+    public double estimate(int v, int target) {
+        return oracle.lowerBound(v, target);
+    }
+}
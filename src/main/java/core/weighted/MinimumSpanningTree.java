@@ -0,0 +1,237 @@
+package core.weighted;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Minimum spanning forests by Kruskal and by parallel Boruvka
+ * Directed graphs are treated as undirected, an edge being usable in both directions.
+ *
+ */
+public class MinimumSpanningTree {
+
+    private static final int INSERTION_SORT_LIMIT = 16;
+
+    /**
+     * Sorts the edges once and adds them lightest first unless they close a cycle
+     * @param graph
+     * @return the minimum spanning forest
+     */
+    public static SpanningForest kruskal(CompactGraph graph) {
+        int n = graph.vertexCount();
+        int m = 0;
+
+        for(int v = 0; v < n; v++) {
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                if(keep(graph, v, graph.target(e))) m++;
+            }
+        }
+
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+
+        for(int v = 0, i = 0; v < n; v++) {
+            for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                if(!keep(graph, v, graph.target(e))) continue;
+
+                sources[i] = v;
+                targets[i] = graph.target(e);
+                weights[i++] = graph.weight(e);
+            }
+        }
+
+        int[] order = sortByWeight(weights);
+        UnionFind sets = new UnionFind(n);
+        Forest forest = new Forest(graph);
+
+        for(int i = 0; i < m && forest.size < n - 1; i++) {
+            int edge = order[i];
+
+            if(sets.union(sources[edge], targets[edge])) forest.add(sources[edge], targets[edge], weights[edge]);
+        }
+
+        return forest.toSpanningForest();
+    }
+
+    /**
+     * An undirected edge is stored twice, only its copy from the lower id is kept
+     */
+    private static boolean keep(CompactGraph graph, int v, int w) {
+        return v != w && (graph.isDirected() || v < w);
+    }
+
+    /**
+     * Every round each component picks its lightest outgoing edge and the picked edges merge the components
+     * The lightest edge of every vertex is searched in parallel, ties being broken by the vertex pair so that the
+     * picked edges never close a cycle. Takes at most log2(n) rounds.
+     * @param graph
+     * @return the minimum spanning forest
+     */
+    public static SpanningForest boruvka(CompactGraph graph) {
+        int n = graph.vertexCount();
+        CompactGraph reversed = graph.isDirected() ? graph.reverse() : null;
+
+        int[] component = new int[n];
+        int[] bestTarget = new int[n];
+        double[] bestWeight = new double[n];
+        int[] componentBest = new int[n];
+
+        for(int v = 0; v < n; v++) component[v] = v;
+
+        UnionFind sets = new UnionFind(n);
+        Forest forest = new Forest(graph);
+        boolean merged = true;
+
+        while(merged && forest.size < n - 1) {
+            IntStream.range(0, n).parallel().forEach(v -> {
+                bestTarget[v] = -1;
+                lightest(graph, v, component, bestTarget, bestWeight);
+
+                if(reversed != null) lightest(reversed, v, component, bestTarget, bestWeight);
+            });
+
+            //Lightest edge of every component, by the vertex it leaves from
+            Arrays.fill(componentBest, -1);
+
+            for(int v = 0; v < n; v++) {
+                if(bestTarget[v] < 0) continue;
+
+                int c = component[v];
+
+                if(componentBest[c] < 0 || lighter(v, bestTarget[v], bestWeight[v], componentBest[c], bestTarget[componentBest[c]], bestWeight[componentBest[c]])) {
+                    componentBest[c] = v;
+                }
+            }
+
+            merged = false;
+
+            for(int c = 0; c < n; c++) {
+                int v = componentBest[c];
+
+                if(v >= 0 && sets.union(v, bestTarget[v])) {
+                    forest.add(v, bestTarget[v], bestWeight[v]);
+                    merged = true;
+                }
+            }
+
+            for(int v = 0; v < n; v++) component[v] = sets.find(v);
+        }
+
+        return forest.toSpanningForest();
+    }
+
+    private static void lightest(CompactGraph graph, int v, int[] component, int[] bestTarget, double[] bestWeight) {
+        for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+            int w = graph.target(e);
+
+            if(component[w] == component[v]) continue;
+
+            if(bestTarget[v] < 0 || lighter(v, w, graph.weight(e), v, bestTarget[v], bestWeight[v])) {
+                bestTarget[v] = w;
+                bestWeight[v] = graph.weight(e);
+            }
+        }
+    }
+
+    /**
+     * Total order on edges: by weight, then by the lower and the higher endpoint
+     */
+    private static boolean lighter(int u1, int v1, double weight1, int u2, int v2, double weight2) {
+        if(weight1 != weight2) return weight1 < weight2;
+
+        int low1 = Math.min(u1, v1), low2 = Math.min(u2, v2);
+
+        if(low1 != low2) return low1 < low2;
+
+        return Math.max(u1, v1) < Math.max(u2, v2);
+    }
+
+    /**
+     * Sorts indices by weight without boxing them
+     * @param weights
+     * @return the indices of the weights in increasing weight order
+     */
+    static int[] sortByWeight(double[] weights) {
+        int[] order = new int[weights.length];
+
+        for(int i = 0; i < order.length; i++) order[i] = i;
+
+        sort(order, weights, 0, order.length - 1);
+
+        return order;
+    }
+
+    private static void sort(int[] order, double[] weights, int low, int high) {
+        while(high - low > INSERTION_SORT_LIMIT) {
+            double pivot = median(weights[order[low]], weights[order[(low + high) >>> 1]], weights[order[high]]);
+            int i = low, j = high;
+
+            while(i <= j) {
+                while(weights[order[i]] < pivot) i++;
+
+                while(weights[order[j]] > pivot) j--;
+
+                if(i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+
+            //Recurses on the smaller side to bound the stack
+            if(j - low < high - i) {
+                sort(order, weights, low, j);
+                low = i;
+            } else {
+                sort(order, weights, i, high);
+                high = j;
+            }
+        }
+
+        for(int i = low + 1; i <= high; i++) {
+            int item = order[i];
+            int j = i - 1;
+
+            for(; j >= low && weights[order[j]] > weights[item]; j--) order[j + 1] = order[j];
+
+            order[j + 1] = item;
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /**
+     * Growable list of forest edges
+     */
+    private static final class Forest {
+        private final CompactGraph graph;
+        private final int[] sources;
+        private final int[] targets;
+        private final double[] weights;
+        private int size;
+
+        private Forest(CompactGraph graph) {
+            int capacity = Math.max(graph.vertexCount() - 1, 0);
+
+            this.graph = graph;
+            this.sources = new int[capacity];
+            this.targets = new int[capacity];
+            this.weights = new double[capacity];
+        }
+
+        private void add(int source, int target, double weight) {
+            sources[size] = source;
+            targets[size] = target;
+            weights[size++] = weight;
+        }
+
+        private SpanningForest toSpanningForest() {
+            return new SpanningForest(graph, Arrays.copyOf(sources, size), Arrays.copyOf(targets, size), Arrays.copyOf(weights, size));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package core.weighted;
+
+/**
+ * A path found by a point to point search
+ *
+ */
+public class Path {
+    private final int[] vertices;
+    private final double length;
+    private final int settled;
+
+    Path(int[] vertices, double length, int settled) {
+        this.vertices = vertices;
+        this.length = length;
+        this.settled = settled;
+    }
+
+    /**
+     *
+     * @return the vertices from the source to the target, empty if the target is not reachable
+     */
+    public int[] getVertices() {
+        return vertices.clone();
+    }
+
+    /**
+     *
+     * @return the total weight of the path, infinity if the target is not reachable
+     */
+    public double getLength() {
+        return length;
+    }
+
+    public boolean exists() {
+        return vertices.length > 0;
+    }
+
+    /**
+     *
+     * @return the number of vertices taken out of the heap, which measures how well the heuristic guided the search
+     */
+    public int getSettled() {
+        return settled;
+    }
+}
@@ -0,0 +1,80 @@
+package core.weighted;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * Distances from a source with the parent of every reached vertex
+ *
+ */
+public class ShortestPathTree {
+    private final CompactGraph graph;
+    private final int source;
+    private final double[] distances;
+    private final int[] parents;
+
+    ShortestPathTree(CompactGraph graph, int source, double[] distances, int[] parents) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.parents = parents;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the distance from the source, infinity if v is not reachable
+     */
+    public double distance(int v) {
+        return distances[v];
+    }
+
+    public boolean hasPath(int v) {
+        return distances[v] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     *
+     * @param v
+     * @return the vertex before v on its shortest path, -1 for the source and unreachable vertices
+     */
+    public int parent(int v) {
+        return parents[v];
+    }
+
+    /**
+     *
+     * @param v
+     * @return the vertices from the source to v, empty if v is not reachable
+     */
+    public int[] pathTo(int v) {
+        if(!hasPath(v)) return new int[0];
+
+        int length = 1;
+
+        for(int u = v; parents[u] >= 0; u = parents[u]) length++;
+
+        int[] path = new int[length];
+
+        for(int u = v, i = length - 1; i >= 0; u = parents[u], i--) path[i] = u;
+
+        return path;
+    }
+
+    /**
+     *
+     * @return a copy of the distances of every vertex id
+     */
+    public double[] getDistances() {
+        return Arrays.copyOf(distances, distances.length);
+    }
+}
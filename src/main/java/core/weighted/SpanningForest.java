@@ -0,0 +1,93 @@
+package core.weighted;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+
+/**
+ * Minimum spanning forest of a graph: a minimum spanning tree per connected component
+ *
+ */
+public class SpanningForest {
+    private final CompactGraph graph;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] weights;
+
+    SpanningForest(CompactGraph graph, int[] sources, int[] targets, double[] weights) {
+        this.graph = graph;
+        this.sources = sources;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int edgesCount() {
+        return sources.length;
+    }
+
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public double weight(int edge) {
+        return weights[edge];
+    }
+
+    public double totalWeight() {
+        double total = 0;
+
+        for(double weight: weights) total += weight;
+
+        return total;
+    }
+
+    /**
+     *
+     * @return the number of trees, i.e. of connected components of the graph
+     */
+    public int treesCount() {
+        return graph.vertexCount() - sources.length;
+    }
+
+    /**
+     * Single linkage clustering: removes the heaviest forest edges until k trees are left
+     * @param k the number of clusters, at least the number of trees
+     * @return the cluster of every vertex id, clusters being numbered from 0
+     */
+    public int[] cluster(int k) {
+        int n = graph.vertexCount();
+
+        if(k < treesCount() || k > n) throw new IllegalArgumentException("k must be between " + treesCount() + " and " + n);
+
+        int[] order = MinimumSpanningTree.sortByWeight(weights);
+        UnionFind sets = new UnionFind(n);
+
+        //Keeps the lightest edges, which is the forest without its k - trees heaviest edges
+        for(int i = 0; i < order.length - (k - treesCount()); i++) {
+            sets.union(sources[order[i]], targets[order[i]]);
+        }
+
+        int[] clusterOf = new int[n];
+        int[] numbers = new int[n];
+        Arrays.fill(numbers, -1);
+        int count = 0;
+
+        for(int v = 0; v < n; v++) {
+            int root = sets.find(v);
+
+            if(numbers[root] < 0) numbers[root] = count++;
+
+            clusterOf[v] = numbers[root];
+        }
+
+        return clusterOf;
+    }
+}
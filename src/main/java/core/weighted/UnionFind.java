@@ -0,0 +1,65 @@
+package core.weighted;
+
+/**
+ * Disjoint sets of the ints [0, n) with union by size and path halving
+ *
+ */
+public class UnionFind {
+    private final int[] parent;
+    private final int[] size;
+    private int setsCount;
+
+    public UnionFind(int n) {
+        this.parent = new int[n];
+        this.size = new int[n];
+        this.setsCount = n;
+
+        for(int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    /**
+     *
+     * @param x
+     * @return the representative of the set of x
+     */
+    public int find(int x) {
+        while(parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+
+        return x;
+    }
+
+    /**
+     * Merges the sets of x and y
+     * @param x
+     * @param y
+     * @return false if they were already in the same set
+     */
+    public boolean union(int x, int y) {
+        int rootX = find(x);
+        int rootY = find(y);
+
+        if(rootX == rootY) return false;
+
+        if(size[rootX] < size[rootY]) {
+            int swap = rootX;
+            rootX = rootY;
+            rootY = swap;
+        }
+
+        parent[rootY] = rootX;
+        size[rootX] += size[rootY];
+        setsCount--;
+
+        return true;
+    }
+
+    public int setsCount() {
+        return setsCount;
+    }
+}
@@ -0,0 +1,310 @@
+package gui;
+
+import core.graph.CompactGraph;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Force directed layout (Fruchterman-Reingold forces) computed without a display
+ * Repulsion between all vertices is approximated with a Barnes-Hut quadtree, so an iteration costs O(V log V + E),
+ * and the forces of the vertices are computed in parallel
+ *
+ */
+public class BarnesHutLayout {
+    public static final int DEFAULT_ITERATIONS = 100;
+
+    private static final int MAX_DEPTH = 32;
+    private static final int EMPTY = -1;
+    private static final int INTERNAL = -2;
+
+    private final CompactGraph graph;
+    private final CompactGraph reversed;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] forceX;
+    private final double[] forceY;
+
+    private double theta = 0.8;
+
+    /**
+     * Optimal distance between two adjacent vertices
+     */
+    private final double k = 1.0;
+
+    //Quadtree stored in arrays, node 0 being the root
+    private int nodesCount;
+    private double[] mass = new double[0];
+    private double[] sumX = new double[0];
+    private double[] sumY = new double[0];
+    private double[] centerX = new double[0];
+    private double[] centerY = new double[0];
+    private double[] half = new double[0];
+    private int[] point = new int[0];
+    private int[] children = new int[0];
+
+    /**
+     * Places the vertices at random positions in a square whose area grows with the number of vertices
+     * @param graph
+     * @param seed
+     */
+    public BarnesHutLayout(CompactGraph graph, long seed) {
+        int n = graph.vertexCount();
+
+        this.graph = graph;
+        this.reversed = graph.isDirected() ? graph.reverse() : null;
+        this.x = new double[n];
+        this.y = new double[n];
+        this.forceX = new double[n];
+        this.forceY = new double[n];
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double side = Math.sqrt(Math.max(n, 1)) * k;
+
+        for(int v = 0; v < n; v++) {
+            x[v] = random.nextDouble() * side;
+            y[v] = random.nextDouble() * side;
+        }
+    }
+
+    /**
+     *
+     * @param theta the opening angle, 0 computes every pair exactly, larger values are faster and coarser
+     */
+    public void setTheta(double theta) {
+        this.theta = theta;
+    }
+
+    /**
+     * Runs the layout with a linearly decreasing temperature
+     * @param iterations
+     */
+    public void run(int iterations) {
+        int n = graph.vertexCount();
+
+        if(n == 0) return;
+
+        double initialTemperature = Math.sqrt(n) * k / 10;
+
+        for(int i = 0; i < iterations; i++) {
+            double temperature = initialTemperature * (1.0 - (double) i / iterations);
+
+            buildTree();
+
+            IntStream.range(0, n).parallel().forEach(this::computeForce);
+
+            IntStream.range(0, n).parallel().forEach(v -> {
+                double length = Math.sqrt(forceX[v] * forceX[v] + forceY[v] * forceY[v]);
+
+                if(length > 0) {
+                    double step = Math.min(length, temperature) / length;
+
+                    x[v] += forceX[v] * step;
+                    y[v] += forceY[v] * step;
+                }
+            });
+        }
+    }
+
+    private void computeForce(int v) {
+        double fx = 0;
+        double fy = 0;
+
+        //Repulsion, walking the quadtree with an explicit stack
+        int[] stack = new int[4 * MAX_DEPTH + 4];
+        int top = 0;
+        stack[top++] = 0;
+
+        double thetaSquared = theta * theta;
+
+        while(top > 0) {
+            int node = stack[--top];
+
+            if(mass[node] == 0) continue;
+
+            double comX = sumX[node] / mass[node];
+            double comY = sumY[node] / mass[node];
+            double dx = x[v] - comX;
+            double dy = y[v] - comY;
+            double distanceSquared = dx * dx + dy * dy;
+
+            if(point[node] >= 0 || 4 * half[node] * half[node] < thetaSquared * distanceSquared) {
+                double bodies = mass[node];
+
+                if(point[node] == v) {
+                    //Leaves only hold several vertices at the maximum depth, v does not repel itself
+                    bodies -= 1;
+
+                    if(bodies <= 0) continue;
+                }
+
+                double distance = Math.max(Math.sqrt(distanceSquared), 0.01);
+                double force = k * k * bodies / distance;
+
+                fx += dx / distance * force;
+                fy += dy / distance * force;
+            } else {
+                for(int quadrant = 0; quadrant < 4; quadrant++) {
+                    int child = children[4 * node + quadrant];
+
+                    if(child != 0) stack[top++] = child;
+                }
+            }
+        }
+
+        //Attraction along the edges, in both directions for directed graphs
+        for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+            int w = graph.target(e);
+            double dx = x[v] - x[w];
+            double dy = y[v] - y[w];
+            double distance = Math.sqrt(dx * dx + dy * dy);
+
+            fx -= dx * distance / k;
+            fy -= dy * distance / k;
+        }
+
+        if(reversed != null) {
+            for(int e = reversed.firstEdge(v), end = reversed.firstEdge(v + 1); e < end; e++) {
+                int w = reversed.target(e);
+                double dx = x[v] - x[w];
+                double dy = y[v] - y[w];
+                double distance = Math.sqrt(dx * dx + dy * dy);
+
+                fx -= dx * distance / k;
+                fy -= dy * distance / k;
+            }
+        }
+
+        forceX[v] = fx;
+        forceY[v] = fy;
+    }
+
+    private void buildTree() {
+        int n = graph.vertexCount();
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        for(int v = 0; v < n; v++) {
+            minX = Math.min(minX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxX = Math.max(maxX, x[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+
+        nodesCount = 0;
+        newNode((minX + maxX) / 2, (minY + maxY) / 2, Math.max(maxX - minX, maxY - minY) / 2 + 1e-9);
+
+        for(int v = 0; v < n; v++) {
+            insert(v);
+        }
+    }
+
+    private void insert(int v) {
+        int node = 0;
+        int depth = 0;
+
+        while(true) {
+            if(point[node] == EMPTY && mass[node] == 0) {
+                point[node] = v;
+                addBody(node, v);
+                return;
+            }
+
+            if(point[node] >= 0) {
+                if(depth >= MAX_DEPTH) {
+                    //Nearly identical positions, the leaf keeps aggregating bodies
+                    addBody(node, v);
+                    return;
+                }
+
+                //Pushes the single body of the leaf one level down
+                int previous = point[node];
+                point[node] = INTERNAL;
+
+                int child = child(node, previous);
+                point[child] = previous;
+                addBody(child, previous);
+            }
+
+            addBody(node, v);
+
+            node = child(node, v);
+            depth++;
+        }
+    }
+
+    private void addBody(int node, int v) {
+        mass[node] += 1;
+        sumX[node] += x[v];
+        sumY[node] += y[v];
+    }
+
+    /**
+     * Returns the child of node containing v, creating it if needed
+     * @param node
+     * @param v
+     * @return the child node
+     */
+    private int child(int node, int v) {
+        int quadrant = (x[v] >= centerX[node] ? 1 : 0) + (y[v] >= centerY[node] ? 2 : 0);
+        int child = children[4 * node + quadrant];
+
+        if(child == 0) {
+            double childHalf = half[node] / 2;
+            double cx = centerX[node] + ((quadrant & 1) == 0 ? -childHalf : childHalf);
+            double cy = centerY[node] + ((quadrant & 2) == 0 ? -childHalf : childHalf);
+
+            child = newNode(cx, cy, childHalf);
+            children[4 * node + quadrant] = child;
+        }
+
+        return child;
+    }
+
+    private int newNode(double cx, double cy, double size) {
+        if(nodesCount == mass.length) {
+            int capacity = Math.max(16, mass.length * 2);
+
+            mass = Arrays.copyOf(mass, capacity);
+            sumX = Arrays.copyOf(sumX, capacity);
+            sumY = Arrays.copyOf(sumY, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            half = Arrays.copyOf(half, capacity);
+            point = Arrays.copyOf(point, capacity);
+            children = Arrays.copyOf(children, 4 * capacity);
+        }
+
+        int node = nodesCount++;
+
+        mass[node] = 0;
+        sumX[node] = 0;
+        sumY[node] = 0;
+        centerX[node] = cx;
+        centerY[node] = cy;
+        half[node] = size;
+        point[node] = EMPTY;
+        Arrays.fill(children, 4 * node, 4 * node + 4, 0);
+
+        return node;
+    }
+
+    /**
+     *
+     * @return the x coordinate of every vertex id
+     */
+    public double[] getX() {
+        return x;
+    }
+
+    /**
+     *
+     * @return the y coordinate of every vertex id
+     */
+    public double[] getY() {
+        return y;
+    }
+}
@@ -0,0 +1,280 @@
+package gui;
+
+import core.clustering.Assignment;
+import core.clustering.QuotientGraph;
+import core.graph.CompactGraph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.ui.view.Viewer;
+import org.graphstream.ui.view.ViewerListener;
+import org.graphstream.ui.view.ViewerPipe;
+
+import java.util.Arrays;
+
+/**
+ * Displays a clustering as its quotient graph and expands a cluster into its vertices only when the user drills into
+ * it, so the layout never holds more than the super-nodes plus the members of the expanded clusters
+ *
+ */
+public class ClusterExplorer implements ViewerListener {
+    private static final long LAYOUT_SEED = 42;
+
+    /**
+     * Members are shown under their own prefix, a vertex labelled like a super-node would otherwise take its id
+     */
+    private static final String MEMBER_PREFIX = "vertex:";
+
+    /**
+     * Attribute holding the cluster of a super-node, the only nodes a click expands
+     */
+    private static final String CLUSTER_ATTRIBUTE = "cluster";
+
+    private final QuotientGraph quotient;
+    private final Assignment assignment;
+    private final CompactGraph base;
+    private final org.graphstream.graph.Graph graphLayout;
+    private final boolean[] expanded;
+    private CompactGraph reversed;
+
+    /**
+     * Weight from the member being linked to every collapsed cluster, zero outside of expand
+     * The clusters touched are listed so linking a member costs its degree rather than the number of clusters.
+     * Whether a cluster is listed is kept apart from its weight, since edges of weight 0 or opposite signs still link it.
+     */
+    private final double[] towardCluster;
+    private final boolean[] listed;
+    private int[] touched = new int[16];
+    private int touchedCount;
+
+    private volatile boolean listening;
+
+    public ClusterExplorer(QuotientGraph quotient) {
+        this.quotient = quotient;
+        this.assignment = quotient.getAssignment();
+        this.base = assignment.getGraph();
+        this.graphLayout = new SingleGraph("clusters");
+        this.expanded = new boolean[assignment.clustersCount()];
+        this.towardCluster = new double[assignment.clustersCount()];
+        this.listed = new boolean[assignment.clustersCount()];
+
+        build();
+    }
+
+    private void build() {
+        CompactGraph clusters = quotient.getGraph();
+
+        Visualizer.getInstance().setStyle(graphLayout);
+
+        for(int c = 0; c < clusters.vertexCount(); c++) {
+            Node node = graphLayout.addNode(clusters.label(c));
+
+            node.addAttribute(CLUSTER_ATTRIBUTE, c);
+            node.addAttribute("ui.label", "C" + c + " (" + quotient.memberCount(c) + ")");
+            //Area proportional to the number of members
+            node.addAttribute("ui.style", "size: " + (int) (20 + 4 * Math.sqrt(quotient.memberCount(c))) + "px; fill-color: "
+                    + GraphExporter.hex(GraphExporter.clusterColor(c)) + ";");
+        }
+
+        for(int c = 0; c < clusters.vertexCount(); c++) {
+            for(int e = clusters.firstEdge(c), end = clusters.firstEdge(c + 1); e < end; e++) {
+                Visualizer.getInstance().addEdge(graphLayout, clusters.label(c), clusters.label(clusters.target(e)), clusters.weight(e), clusters.isDirected());
+            }
+        }
+
+        BarnesHutLayout layout = new BarnesHutLayout(clusters, LAYOUT_SEED);
+        layout.run(BarnesHutLayout.DEFAULT_ITERATIONS);
+
+        //Super-nodes are spread enough to leave room for an expanded cluster
+        double[] x = layout.getX();
+        double[] y = layout.getY();
+
+        for(int c = 0; c < clusters.vertexCount(); c++) {
+            x[c] *= 10;
+            y[c] *= 10;
+        }
+
+        Visualizer.getInstance().applyPositions(graphLayout, clusters, x, y);
+    }
+
+    /**
+     *
+     * @return the layout graph of the explorer
+     */
+    public org.graphstream.graph.Graph getGraphLayout() {
+        return graphLayout;
+    }
+
+    /**
+     * Opens the viewer and expands a cluster when its super-node is clicked
+     * @return the viewer
+     */
+    public Viewer display() {
+        Viewer viewer = graphLayout.display(false);
+        ViewerPipe pipe = viewer.newViewerPipe();
+
+        pipe.addViewerListener(this);
+        pipe.addSink(graphLayout);
+
+        listening = true;
+
+        Thread pump = new Thread(() -> {
+            try {
+                while(listening) {
+                    pipe.blockingPump(100);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "cluster-explorer");
+
+        pump.setDaemon(true);
+        pump.start();
+
+        return viewer;
+    }
+
+    /**
+     * Replaces the super-node of the cluster by its members and their edges
+     * Edges between a member and a collapsed cluster are merged into one edge with its super-node, in each direction
+     * @param cluster
+     */
+    public synchronized void expand(int cluster) {
+        if(expanded[cluster]) return;
+
+        String superNodeId = QuotientGraph.LABEL_PREFIX + cluster;
+        Node superNode = graphLayout.getNode(superNodeId);
+
+        Object[] center = superNode.getAttribute("xyz");
+        double centerX = ((Number) center[0]).doubleValue();
+        double centerY = ((Number) center[1]).doubleValue();
+
+        graphLayout.removeNode(superNode);
+        expanded[cluster] = true;
+
+        int[] members = assignment.members(cluster);
+        String style = "fill-color: " + GraphExporter.hex(GraphExporter.clusterColor(cluster)) + ";";
+
+        //Members on a disk around the former super-node
+        double radius = Math.sqrt(members.length);
+
+        for(int i = 0; i < members.length; i++) {
+            Node node = graphLayout.addNode(memberId(members[i]));
+            double angle = 2 * Math.PI * i / members.length;
+            double distance = radius * Math.sqrt((i + 0.5) / members.length);
+
+            node.addAttribute("ui.label", base.label(members[i]));
+            node.addAttribute("ui.style", style);
+            node.setAttribute("xyz", centerX + distance * Math.cos(angle), centerY + distance * Math.sin(angle), 0);
+        }
+
+        for(int v: members) {
+            for(int e = base.firstEdge(v), end = base.firstEdge(v + 1); e < end; e++) {
+                int w = base.target(e);
+                int other = assignment.clusterOf(w);
+
+                if(other < 0) continue;
+
+                if(expanded[other]) {
+                    Visualizer.getInstance().addEdge(graphLayout, memberId(v), memberId(w), base.weight(e), base.isDirected());
+                } else {
+                    touch(other, base.weight(e));
+                }
+            }
+
+            for(int i = 0; i < touchedCount; i++) {
+                int other = touched[i];
+
+                Visualizer.getInstance().addEdge(graphLayout, memberId(v), QuotientGraph.LABEL_PREFIX + other, towardCluster[other], base.isDirected());
+                untouch(other);
+            }
+
+            touchedCount = 0;
+        }
+
+        //Members of the other expanded clusters and the collapsed super-nodes were linked to the removed super-node
+        if(base.isDirected()) {
+            if(reversed == null) reversed = base.reverse();
+
+            for(int v: members) {
+                for(int e = reversed.firstEdge(v), end = reversed.firstEdge(v + 1); e < end; e++) {
+                    int w = reversed.target(e);
+                    int other = assignment.clusterOf(w);
+
+                    if(other < 0 || other == cluster) continue;
+
+                    if(expanded[other]) {
+                        Visualizer.getInstance().addEdge(graphLayout, memberId(w), memberId(v), reversed.weight(e), true);
+                    } else {
+                        touch(other, reversed.weight(e));
+                    }
+                }
+
+                for(int i = 0; i < touchedCount; i++) {
+                    int other = touched[i];
+
+                    Visualizer.getInstance().addEdge(graphLayout, QuotientGraph.LABEL_PREFIX + other, memberId(v), towardCluster[other], true);
+                    untouch(other);
+                }
+
+                touchedCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Adds weight toward a collapsed cluster, listing the cluster the first time it is touched
+     */
+    private void touch(int cluster, double weight) {
+        if(!listed[cluster]) {
+            if(touchedCount == touched.length) touched = Arrays.copyOf(touched, 2 * touched.length);
+
+            touched[touchedCount++] = cluster;
+            listed[cluster] = true;
+        }
+
+        towardCluster[cluster] += weight;
+    }
+
+    private void untouch(int cluster) {
+        towardCluster[cluster] = 0;
+        listed[cluster] = false;
+    }
+
+    /**
+     *
+     * @param v a vertex of the clustered graph
+     * @return the id of its node once its cluster is expanded
+     */
+    public String memberId(int v) {
+        return MEMBER_PREFIX + base.label(v);
+    }
+
+    public synchronized boolean isExpanded(int cluster) {
+        return expanded[cluster];
+    }
+
+    /**
+     * Stops listening to the viewer
+     */
+    public void close() {
+        listening = false;
+    }
+
+    @Override
+    public void viewClosed(String viewName) {
+        close();
+    }
+
+    @Override
+    public void buttonPushed(String id) {
+    }
+
+    @Override
+    public void buttonReleased(String id) {
+        Node node = graphLayout.getNode(id);
+
+        if(node != null && node.hasAttribute(CLUSTER_ATTRIBUTE)) {
+            expand(((Number) node.getAttribute(CLUSTER_ATTRIBUTE)).intValue());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package gui;
+
+import core.graph.CompactGraph;
+import utils.exceptions.GraphException;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Renders a laid out graph to SVG or PNG without a display
+ * Vertices may be colored by cluster; labels are only drawn for small graphs
+ *
+ */
+public class GraphExporter {
+    private static final int MARGIN = 20;
+    private static final int LABELS_LIMIT = 500;
+
+    private final CompactGraph graph;
+    private final double[] x;
+    private final double[] y;
+    private int[] clusterOf;
+
+    /**
+     *
+     * @param graph
+     * @param x the x coordinate of every vertex id
+     * @param y the y coordinate of every vertex id
+     */
+    public GraphExporter(CompactGraph graph, double[] x, double[] y) {
+        this.graph = graph;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Colors every vertex after its cluster, -1 for unassigned vertices
+     * @param clusterOf
+     */
+    public void setClusters(int[] clusterOf) {
+        this.clusterOf = clusterOf;
+    }
+
+    /**
+     * Exports to the format given by the file extension (.svg or .png)
+     * @param file
+     * @param width
+     * @param height
+     * @throws GraphException
+     */
+    public void export(String file, int width, int height) throws GraphException {
+        String lowerCase = file.toLowerCase();
+
+        if(lowerCase.endsWith(".svg")) {
+            exportSvg(file, width, height);
+        } else if(lowerCase.endsWith(".png")) {
+            exportPng(file, width, height);
+        } else {
+            throw new GraphException("Unsupported export format " + file);
+        }
+    }
+
+    public void exportSvg(String file, int width, int height) throws GraphException {
+        double[][] screen = toScreen(width, height);
+        double radius = radius(width, height);
+
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height + "\">\n");
+            writer.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+            writer.write("<g stroke=\"#3E3E3D\" stroke-opacity=\"0.4\" stroke-width=\"0.5\">\n");
+
+            for(int v = 0; v < graph.vertexCount(); v++) {
+                for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                    int w = graph.target(e);
+
+                    //Undirected edges are stored twice
+                    if(!graph.isDirected() && w < v) continue;
+
+                    writer.write(String.format(Locale.ROOT, "<line x1=\"%.1f\" y1=\"%.1f\" x2=\"%.1f\" y2=\"%.1f\"/>\n",
+                            screen[0][v], screen[1][v], screen[0][w], screen[1][w]));
+                }
+            }
+
+            writer.write("</g>\n<g stroke=\"none\">\n");
+
+            for(int v = 0; v < graph.vertexCount(); v++) {
+                writer.write(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"%.1f\" fill=\"%s\"/>\n",
+                        screen[0][v], screen[1][v], radius, hex(color(v))));
+            }
+
+            writer.write("</g>\n");
+
+            if(graph.vertexCount() <= LABELS_LIMIT) {
+                writer.write("<g font-family=\"sans-serif\" font-size=\"10\">\n");
+
+                for(int v = 0; v < graph.vertexCount(); v++) {
+                    writer.write(String.format(Locale.ROOT, "<text x=\"%.1f\" y=\"%.1f\">%s</text>\n",
+                            screen[0][v] + radius, screen[1][v] - radius, escape(graph.label(v))));
+                }
+
+                writer.write("</g>\n");
+            }
+
+            writer.write("</svg>\n");
+        } catch (IOException e) {
+            throw new GraphException("Cannot export " + file, e);
+        }
+    }
+
+    public void exportPng(String file, int width, int height) throws GraphException {
+        double[][] screen = toScreen(width, height);
+        double radius = radius(width, height);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+
+            graphics.setColor(new Color(0x3E, 0x3E, 0x3D, 100));
+            graphics.setStroke(new BasicStroke(0.5f));
+
+            Line2D.Double line = new Line2D.Double();
+
+            for(int v = 0; v < graph.vertexCount(); v++) {
+                for(int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                    int w = graph.target(e);
+
+                    if(!graph.isDirected() && w < v) continue;
+
+                    line.setLine(screen[0][v], screen[1][v], screen[0][w], screen[1][w]);
+                    graphics.draw(line);
+                }
+            }
+
+            Ellipse2D.Double circle = new Ellipse2D.Double();
+
+            for(int v = 0; v < graph.vertexCount(); v++) {
+                graphics.setColor(color(v));
+                circle.setFrame(screen[0][v] - radius, screen[1][v] - radius, 2 * radius, 2 * radius);
+                graphics.fill(circle);
+            }
+
+            if(graph.vertexCount() <= LABELS_LIMIT) {
+                graphics.setColor(Color.BLACK);
+                graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 10));
+
+                for(int v = 0; v < graph.vertexCount(); v++) {
+                    graphics.drawString(graph.label(v), (float) (screen[0][v] + radius), (float) (screen[1][v] - radius));
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        try {
+            ImageIO.write(image, "png", new File(file));
+        } catch (IOException e) {
+            throw new GraphException("Cannot export " + file, e);
+        }
+    }
+
+    /**
+     * Scales the layout coordinates to the image keeping the aspect ratio
+     * @param width
+     * @param height
+     * @return the screen x and y of every vertex
+     */
+    private double[][] toScreen(int width, int height) {
+        int n = graph.vertexCount();
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+        for(int v = 0; v < n; v++) {
+            minX = Math.min(minX, x[v]);
+            minY = Math.min(minY, y[v]);
+            maxX = Math.max(maxX, x[v]);
+            maxY = Math.max(maxY, y[v]);
+        }
+
+        double scale = Math.min((width - 2.0 * MARGIN) / Math.max(maxX - minX, 1e-9), (height - 2.0 * MARGIN) / Math.max(maxY - minY, 1e-9));
+
+        double[][] screen = new double[2][n];
+
+        for(int v = 0; v < n; v++) {
+            screen[0][v] = MARGIN + (x[v] - minX) * scale;
+            //Screen y grows downwards
+            screen[1][v] = height - MARGIN - (y[v] - minY) * scale;
+        }
+
+        return screen;
+    }
+
+    private double radius(int width, int height) {
+        double perVertex = Math.sqrt((double) width * height / Math.max(graph.vertexCount(), 1));
+
+        return Math.max(0.5, Math.min(8, perVertex / 6));
+    }
+
+    private Color color(int v) {
+        if(clusterOf == null) return new Color(0x8A, 0x8B, 0x8B);
+
+        return clusterColor(clusterOf[v]);
+    }
+
+    /**
+     * Golden ratio hues keep consecutive clusters apart
+     * @param cluster
+     * @return the color of the cluster, light gray for -1 (unassigned)
+     */
+    static Color clusterColor(int cluster) {
+        if(cluster < 0) return Color.LIGHT_GRAY;
+
+        float hue = (float) ((cluster * 0.618033988749895) % 1.0);
+
+        return Color.getHSBColor(hue, 0.65f, 0.85f);
+    }
+
+    static String hex(Color color) {
+        return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,219 @@
+package gui;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Animates attribute updates on a layout graph without blocking the caller
+ * A producer thread runs the computation and feeds its updates to a bounded queue (it waits when the animation lags
+ * behind), a scheduled renderer thread applies a batch of updates per frame
+ * A frame holds the lock of the layout graph, which is not thread-safe, so code changing the graph meanwhile, e.g.
+ * the sync of Visualizer.newGraph, must synchronize on it too.
+ *
+ */
+public class Playback {
+    public static final long DEFAULT_FRAME_PERIOD = 250;
+    public static final int DEFAULT_UPDATES_PER_FRAME = 1;
+    public static final int QUEUE_CAPACITY = 4096;
+
+    /**
+     * Sets an attribute of a node
+     */
+    public static final class Update {
+        private final String label;
+        private final String attribute;
+        private final Object value;
+
+        public Update(String label, String attribute, Object value) {
+            this.label = label;
+            this.attribute = attribute;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Marks the end of the computation
+     */
+    private static final Update END = new Update(null, null, null);
+
+    private final org.graphstream.graph.Graph graphLayout;
+    private final BlockingQueue<Update> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final ExecutorService producer = Executors.newSingleThreadExecutor(daemon("playback-producer"));
+    private final ScheduledExecutorService renderer = Executors.newSingleThreadScheduledExecutor(daemon("playback-renderer"));
+
+    private ScheduledFuture<?> frames;
+    private long framePeriod = DEFAULT_FRAME_PERIOD;
+    private volatile int updatesPerFrame = DEFAULT_UPDATES_PER_FRAME;
+    private volatile boolean skipping;
+    private volatile int applied;
+    private volatile Throwable failure;
+
+    public Playback(org.graphstream.graph.Graph graphLayout) {
+        this.graphLayout = graphLayout;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+    /**
+     * Starts the computation and the animation, returns immediately
+     * @param computation produces the updates, run on the producer thread
+     * @return this playback
+     */
+    public Playback start(Supplier<? extends Iterable<Update>> computation) {
+        producer.execute(() -> {
+            try {
+                for(Update update: computation.get()) {
+                    queue.put(update);
+                }
+
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                //An error too must end the playback, otherwise END never comes and the renderer polls forever
+                fail(e);
+            }
+        });
+
+        schedule();
+
+        return this;
+    }
+
+    private synchronized void schedule() {
+        if(frames != null) frames.cancel(false);
+
+        if(!renderer.isShutdown()) frames = renderer.scheduleAtFixedRate(this::renderFrame, 0, framePeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the updates of one frame, all the available ones when skipping to the end
+     * An exception escaping a frame would silently cancel the later frames, so it ends the playback instead.
+     */
+    private void renderFrame() {
+        try {
+            applyUpdates();
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private void applyUpdates() {
+        int budget = skipping ? Integer.MAX_VALUE : updatesPerFrame;
+
+        for(int i = 0; i < budget; i++) {
+            Update update = queue.poll();
+
+            if(update == null) return;
+
+            if(update == END) {
+                finish();
+                return;
+            }
+
+            synchronized (graphLayout) {
+                org.graphstream.graph.Node node = graphLayout.getNode(update.label);
+
+                if(node != null) node.setAttribute(update.attribute, update.value);
+            }
+
+            applied++;
+        }
+    }
+
+    private void finish() {
+        renderer.shutdown();
+        producer.shutdown();
+        finished.countDown();
+    }
+
+    /**
+     * Ends the playback on an error of the computation or of the rendering, the updates not applied yet are dropped
+     * The producer is interrupted before the queue is cleared, so it cannot refill the queue and block on it again.
+     */
+    private void fail(Throwable throwable) {
+        failure = throwable;
+        producer.shutdownNow();
+        queue.clear();
+        finish();
+    }
+
+    /**
+     * Changes the speed of the animation
+     * @param framePeriod the delay between two frames in milliseconds
+     * @param updatesPerFrame the number of updates applied in one frame
+     */
+    public void setSpeed(long framePeriod, int updatesPerFrame) {
+        if(framePeriod <= 0 || updatesPerFrame <= 0) throw new IllegalArgumentException("Speed must be positive");
+
+        this.updatesPerFrame = updatesPerFrame;
+
+        synchronized (this) {
+            this.framePeriod = framePeriod;
+
+            if(frames != null) schedule();
+        }
+    }
+
+    /**
+     * Applies all the remaining updates as soon as they are computed
+     */
+    public void skipToEnd() {
+        skipping = true;
+    }
+
+    /**
+     * Stops the computation and the animation, the updates already applied are kept
+     */
+    public void cancel() {
+        producer.shutdownNow();
+        renderer.shutdownNow();
+        queue.clear();
+        finished.countDown();
+    }
+
+    /**
+     * Waits until every update is applied or the playback is cancelled
+     * @param timeout
+     * @param unit
+     * @return true if the playback ended before the timeout
+     * @throws InterruptedException
+     * @throws ExecutionException if the computation or the rendering failed, caused by the failure
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException {
+        boolean ended = finished.await(timeout, unit);
+
+        if(failure != null) throw new ExecutionException("Playback failed", failure);
+
+        return ended;
+    }
+
+    /**
+     *
+     * @return the exception that ended the playback, null if none
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     *
+     * @return the number of updates applied so far
+     */
+    public int getApplied() {
+        return applied;
+    }
+}
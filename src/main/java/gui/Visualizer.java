@@ -1,18 +1,31 @@
 package gui;
 
+import core.clustering.Assignment;
+import core.clustering.QuotientGraph;
+import core.graph.CompactGraph;
 import core.graph.DirectedGraph;
 import core.graph.Graph;
+import core.graph.GraphListener;
 import core.graph.components.Edge;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.SingleGraph;
+import utils.exceptions.GraphException;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class Visualizer {
     private static Visualizer instance;
 
+    /**
+     * Attribute of the layout graph holding the next numeric edge id
+     */
+    private static final String NEXT_EDGE_ID = "layout.nextEdgeId";
+
+    private static final long LAYOUT_SEED = 42;
+
     private Visualizer() {}
 
     public static synchronized Visualizer getInstance() {
@@ -23,6 +36,12 @@ public class Visualizer {
         return instance;
     }
 
+    /**
+     * Builds the layout graph once, places its nodes with a Barnes-Hut force directed layout and keeps it in sync
+     * with the graph: later changes are sent to the layout as deltas instead of rebuilding it
+     * @param graph
+     * @return the layout graph
+     */
     public org.graphstream.graph.Graph newGraph(Graph graph) {
         org.graphstream.graph.Graph graphLayout = new SingleGraph("graph");
         Map<String, List<Edge>> vertexMap = graph.getVertexMap();
@@ -33,6 +52,14 @@ public class Visualizer {
 
         setStyle(graphLayout);
 
+        CompactGraph compactGraph = CompactGraph.of(graph);
+        BarnesHutLayout layout = new BarnesHutLayout(compactGraph, LAYOUT_SEED);
+        layout.run(BarnesHutLayout.DEFAULT_ITERATIONS);
+
+        applyPositions(graphLayout, compactGraph, layout.getX(), layout.getY());
+
+        graph.addListener(new LayoutSync(graph, graphLayout, directed));
+
         return graphLayout;
     }
 
@@ -45,35 +72,156 @@ public class Visualizer {
         //Adding edges
         for(List<Edge> edges: vertexMap.values()) {
             for(Edge edge: edges) {
-                String srcId = edge.getSrc().getLabel();
-                String destId = edge.getDest().getLabel();
-                double weight = edge.getWeight();
+                addEdge(graphLayout, edge.getSrcLabel(), edge.getDestLabel(), edge.getWeight(), directed);
+            }
+        }
+    }
 
-                if(graphLayout.getNode(srcId) == null) graphLayout.addNode(srcId);
+    /**
+     * Adds an edge to the layout unless it is already drawn
+     * Edge ids are consecutive numbers, so they never collide whatever the node ids
+     * @param graphLayout
+     * @param srcId
+     * @param destId
+     * @param weight
+     * @param directed
+     */
+    void addEdge(org.graphstream.graph.Graph graphLayout, String srcId, String destId, double weight, boolean directed) {
+        if(graphLayout.getNode(srcId) == null) graphLayout.addNode(srcId);
 
-                if(graphLayout.getNode(destId) == null) graphLayout.addNode(destId);
+        if(graphLayout.getNode(destId) == null) graphLayout.addNode(destId);
 
-                if(graphLayout.getEdge(srcId +  destId) == null && graphLayout.getEdge(destId + srcId) == null) {
-                    org.graphstream.graph.Edge edgeLayout = graphLayout.addEdge(srcId + destId, srcId, destId, directed);
+        Node src = graphLayout.getNode(srcId);
 
-                    //Setting weight
-                    edgeLayout.setAttribute("weight", weight);
-                    edgeLayout.addAttribute("ui.label", weight);
-                }
-            }
+        //Undirected graphs store every edge in both directions but it is drawn once
+        boolean exists = directed ? src.hasEdgeToward(destId) : src.hasEdgeBetween(destId);
+
+        if(!exists) {
+            long id = graphLayout.hasAttribute(NEXT_EDGE_ID) ? ((Number) graphLayout.getAttribute(NEXT_EDGE_ID)).longValue() : 0;
+            graphLayout.setAttribute(NEXT_EDGE_ID, id + 1);
+
+            org.graphstream.graph.Edge edgeLayout = graphLayout.addEdge(String.valueOf(id), srcId, destId, directed);
+
+            //Setting weight
+            edgeLayout.setAttribute("weight", weight);
+            edgeLayout.addAttribute("ui.label", weight);
         }
     }
 
-    public void traverse(ArrayList<String> traversal, org.graphstream.graph.Graph graphLayout) throws InterruptedException {
+    /**
+     * Sets the position of every node, the viewer must then be opened without automatic layout
+     * @param graphLayout
+     * @param compactGraph
+     * @param x
+     * @param y
+     */
+    public void applyPositions(org.graphstream.graph.Graph graphLayout, CompactGraph compactGraph, double[] x, double[] y) {
+        for(int v = 0; v < compactGraph.vertexCount(); v++) {
+            Node node = graphLayout.getNode(compactGraph.label(v));
 
-        graphLayout.display();
-
-        for(String label: traversal) {
-            Thread.sleep(1500);
-            graphLayout.getNode(label).addAttribute("ui.class", "selected");
+            if(node != null) node.setAttribute("xyz", x[v], y[v], 0);
         }
     }
 
+    /**
+     * Shows a clustering as one node per cluster, a cluster being expanded into its vertices when clicked
+     * @param assignment
+     * @return the explorer, already displayed
+     */
+    public ClusterExplorer explore(Assignment assignment) {
+        ClusterExplorer explorer = new ClusterExplorer(new QuotientGraph(assignment));
+
+        explorer.display();
+
+        return explorer;
+    }
+
+    /**
+     * Lays the graph out and renders it to an SVG or PNG file without any display
+     * @param graph
+     * @param file the output file, its extension gives the format
+     * @param width
+     * @param height
+     * @throws GraphException
+     */
+    public void export(Graph graph, String file, int width, int height) throws GraphException {
+        export(CompactGraph.of(graph), null, file, width, height);
+    }
+
+    /**
+     * Lays the graph out and renders it to an SVG or PNG file, coloring the vertices by cluster
+     * @param compactGraph
+     * @param clusterOf the cluster of every vertex id, may be null
+     * @param file the output file, its extension gives the format
+     * @param width
+     * @param height
+     * @throws GraphException
+     */
+    public void export(CompactGraph compactGraph, int[] clusterOf, String file, int width, int height) throws GraphException {
+        BarnesHutLayout layout = new BarnesHutLayout(compactGraph, LAYOUT_SEED);
+        layout.run(BarnesHutLayout.DEFAULT_ITERATIONS);
+
+        GraphExporter exporter = new GraphExporter(compactGraph, layout.getX(), layout.getY());
+        exporter.setClusters(clusterOf);
+        exporter.export(file, width, height);
+    }
+
+    /**
+     * Animates an already computed traversal, returns immediately
+     * @param traversal
+     * @param graphLayout
+     * @return the playback, to change its speed, skip to the end or wait for it
+     */
+    public Playback traverse(ArrayList<String> traversal, org.graphstream.graph.Graph graphLayout) {
+        return traverse(() -> traversal, graphLayout);
+    }
+
+    /**
+     * Computes a traversal on a background thread and animates it, returns immediately
+     * @param traversal computes the visited labels in order
+     * @param graphLayout
+     * @return the playback, to change its speed, skip to the end or wait for it
+     */
+    public Playback traverse(Supplier<? extends List<String>> traversal, org.graphstream.graph.Graph graphLayout) {
+
+        graphLayout.display(false);
+
+        return new Playback(graphLayout).start(() -> {
+            List<Playback.Update> updates = new ArrayList<>();
+
+            for(String label: traversal.get()) {
+                updates.add(new Playback.Update(label, "ui.class", "selected"));
+            }
+
+            return updates;
+        });
+    }
+
+    /**
+     * Colors the vertices cluster by cluster, returns immediately
+     * @param assignment
+     * @param graphLayout
+     * @return the playback, to change its speed, skip to the end or wait for it
+     */
+    public Playback playClustering(Assignment assignment, org.graphstream.graph.Graph graphLayout) {
+
+        graphLayout.display(false);
+
+        return new Playback(graphLayout).start(() -> {
+            List<Playback.Update> updates = new ArrayList<>();
+
+            for(int cluster = 0; cluster < assignment.clustersCount(); cluster++) {
+                String style = "fill-color: " + GraphExporter.hex(GraphExporter.clusterColor(cluster)) + ";";
+
+                for(int v: assignment.members(cluster)) {
+                    updates.add(new Playback.Update(assignment.getGraph().label(v), "ui.style", style));
+                }
+            }
+
+            return updates;
+        });
+    }
+
 
     public void setStyle(org.graphstream.graph.Graph graphLayout) {
         String workDir = System.getProperty("user.dir") + "/src/main/resources/stylesheet";
@@ -85,4 +233,90 @@ public class Visualizer {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Applies the changes of a graph to its layout
+     * New nodes are placed at the barycenter of their placed neighbors so the layout stays stable.
+     * The layout graph is not thread-safe, so every change holds its lock, like the frames of a Playback.
+     */
+    private class LayoutSync implements GraphListener {
+        private final Graph graph;
+        private final org.graphstream.graph.Graph graphLayout;
+        private final boolean directed;
+
+        private LayoutSync(Graph graph, org.graphstream.graph.Graph graphLayout, boolean directed) {
+            this.graph = graph;
+            this.graphLayout = graphLayout;
+            this.directed = directed;
+        }
+
+        @Override
+        public void edgeAdded(String src, String dest) {
+            double weight = 0;
+
+            for(Edge edge: graph.getVertexMap().get(src)) {
+                if(edge.equals(dest)) weight = edge.getWeight();
+            }
+
+            synchronized (graphLayout) {
+                boolean newSrc = graphLayout.getNode(src) == null;
+                boolean newDest = graphLayout.getNode(dest) == null;
+
+                addEdge(graphLayout, src, dest, weight, directed);
+
+                if(newSrc) place(src);
+
+                if(newDest) place(dest);
+            }
+        }
+
+        private void place(String label) {
+            Node node = graphLayout.getNode(label);
+            node.addAttribute("ui.label", label);
+
+            double x = 0, y = 0;
+            int count = 0;
+
+            for(org.graphstream.graph.Edge edge: node.getEachEdge()) {
+                Node neighbor = edge.getOpposite(node);
+
+                if(neighbor.hasAttribute("xyz")) {
+                    Object[] xyz = neighbor.getAttribute("xyz");
+                    x += ((Number) xyz[0]).doubleValue();
+                    y += ((Number) xyz[1]).doubleValue();
+                    count++;
+                }
+            }
+
+            if(count > 0) node.setAttribute("xyz", x / count + Math.random() * 0.1, y / count + Math.random() * 0.1, 0);
+        }
+
+        @Override
+        public void edgeRemoved(String src, String dest) {
+            synchronized (graphLayout) {
+                Node node = graphLayout.getNode(src);
+
+                if(node == null) return;
+
+                org.graphstream.graph.Edge edge = directed ? node.getEdgeToward(dest) : node.getEdgeBetween(dest);
+
+                if(edge != null) graphLayout.removeEdge(edge);
+            }
+        }
+
+        @Override
+        public void vertexRemoved(String label) {
+            synchronized (graphLayout) {
+                if(graphLayout.getNode(label) != null) graphLayout.removeNode(label);
+            }
+        }
+
+        @Override
+        public void graphCleared() {
+            synchronized (graphLayout) {
+                for(Node node: new ArrayList<Node>(graphLayout.getNodeSet())) {
+                    graphLayout.removeNode(node);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package utils;
 
+import core.distance.ShortestPaths;
+import core.graph.CompactGraph;
+import core.graph.EdgeWeights;
 import core.graph.Graph;
+import core.graph.IndexedGraph;
+import core.graph.NeighborIterator;
 import core.graph.components.Edge;
 
 import java.util.*;
@@ -42,7 +47,7 @@ public class GraphTraversal {
             result.add(label);
 
             for (Edge edge : vertexMap.get(label)) {
-                String nextLabel = edge.getDest().toString();
+                String nextLabel = edge.getDestLabel();
 
                 if (!visited.get(nextLabel)) {
                     queue.add(nextLabel);
@@ -95,7 +100,7 @@ public class GraphTraversal {
             Logs.debug(vertexMap.get(label).toString());
 
             while(edgesIterator.hasNext()) {
-                String nextLabel = edgesIterator.next().getDest().toString();
+                String nextLabel = edgesIterator.next().getDestLabel();
 
                 if(!visited.get(nextLabel)) {
                     stack.push(nextLabel);
@@ -126,4 +131,92 @@ public class GraphTraversal {
         return depthFirstTraversal(g, g.getVertexMap().keySet().stream().findFirst().get());
     }
 
+    /**
+     * Performs a breadth first traversal of an indexed graph, plain or compressed
+     * @param g
+     * @param src the source vertex id
+     * @return the ids of the reached vertices in visit order
+     */
+    public static int[] breadthFirstTraversal(IndexedGraph g, int src) {
+        int[] queue = new int[g.vertexCount()];
+        boolean[] visited = new boolean[queue.length];
+        NeighborIterator neighbors = g.neighbors();
+        int tail = 0;
+
+        queue[tail++] = src;
+        visited[src] = true;
+
+        for(int head = 0; head < tail; head++) {
+            for(neighbors.reset(queue[head]); neighbors.hasNext(); ) {
+                int w = neighbors.next();
+
+                if(!visited[w]) {
+                    visited[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        return Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * Computes the shortest path distance from src to every reachable vertex with Dijkstra on a compact snapshot of
+     * the graph
+     * @param g
+     * @param src
+     * @return the distance of each reachable vertex, empty if g does not contain src
+     */
+    public static Map<String, Double> shortestDistances(Graph g, String src) {
+        CompactGraph snapshot = CompactGraph.of(g, EdgeWeights.WeightStorages.DOUBLE);
+        int id = snapshot.id(src);
+
+        Map<String, Double> distances = new HashMap<String, Double>();
+
+        if(id < 0) return distances;
+
+        double[] dist = new double[snapshot.vertexCount()];
+
+        ShortestPaths.dijkstra(snapshot, new int[] {id}, dist, null, null);
+
+        for(int v = 0; v < dist.length; v++) {
+            if(dist[v] != Double.POSITIVE_INFINITY) distances.put(snapshot.label(v), dist[v]);
+        }
+
+        return distances;
+    }
+
+    /**
+     * Returns the vertices at most hops edges away from src
+     * @param g
+     * @param src
+     * @param hops
+     * @return the neighborhood of src, src included
+     */
+    public static Set<String> neighborhood(Graph g, String src, int hops) {
+        Map<String, List<Edge>> vertexMap = g.getVertexMap();
+
+        Set<String> visited = new HashSet<String>();
+        List<String> frontier = new ArrayList<String>();
+
+        visited.add(src);
+        frontier.add(src);
+
+        for(int level = 0; level < hops && !frontier.isEmpty(); level++) {
+            List<String> next = new ArrayList<String>();
+
+            for(String label: frontier) {
+                for(Edge edge: vertexMap.get(label)) {
+                    String nextLabel = edge.getDestLabel();
+
+                    if(visited.add(nextLabel)) next.add(nextLabel);
+                }
+            }
+
+            frontier = next;
+        }
+
+        return visited;
+    }
+
 }
@@ -1,13 +1,16 @@
 package utils;
 
+import core.graph.CompressedGraph;
 import core.graph.DirectedGraph;
 import core.graph.Graph;
 import core.graph.UndirectedGraph;
+import utils.exceptions.GraphException;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Used to import/export a graph from/to a csv file
@@ -15,6 +18,33 @@ import java.io.IOException;
  *
  */
 public class Stream {
+
+    /**
+     * Magic number of the binary edge files
+     */
+    public static final int EDGES_MAGIC = 0x45444753;
+
+    /**
+     * Receives the edges of a file one at a time
+     */
+    public interface EdgeConsumer {
+        void accept(String src, String dest, double weight) throws GraphException;
+    }
+
+    /**
+     * Receives the edges of a binary file one at a time
+     */
+    public interface IdEdgeConsumer {
+        void accept(int src, int dest, double weight) throws GraphException;
+    }
+
+    /**
+     * Writes the content of a binary file
+     */
+    public interface BinaryWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+
     /**
      * Retrieves a graph from file with pattern src, dest, weight
      * @param file
@@ -65,4 +95,185 @@ public class Stream {
 
         return null;
     }
+
+    /**
+     * Reads the edges of a csv file with pattern src, dest, weight without building a graph
+     * @param file
+     * @param skip the number of edges to skip, e.g. the edges already processed before a checkpoint
+     * @param consumer
+     * @return the number of edges passed to the consumer
+     * @throws GraphException if the file cannot be read or a line is malformed
+     */
+    public static long readEdges(String file, long skip, EdgeConsumer consumer) throws GraphException {
+        long count = 0;
+
+        try(BufferedReader bufferedReader = new BufferedReader(new FileReader(file), 1 << 16)) {
+            String line = bufferedReader.readLine();
+            long lineNumber = 0;
+            long edgeNumber = 0;
+
+            while(line != null) {
+                lineNumber++;
+
+                if(!line.isEmpty() && ++edgeNumber > skip) {
+                    String[] graph_data = line.split(",");
+
+                    if(graph_data.length < 3) throw new GraphException("Malformed edge at line " + lineNumber);
+
+                    consumer.accept(graph_data[0], graph_data[1], Double.parseDouble(graph_data[2]));
+                    count++;
+                }
+
+                line = bufferedReader.readLine();
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new GraphException("Cannot read " + file, e);
+        }
+
+        return count;
+    }
+
+    /**
+     * Reads the edges of a binary file written by {@link #exportBinaryEdges(String, String)}
+     * @param file
+     * @param skip the number of edges to skip
+     * @param consumer
+     * @return the number of edges passed to the consumer
+     * @throws GraphException if the file cannot be read or is not a binary edge file
+     */
+    public static long readBinaryEdges(String file, long skip, IdEdgeConsumer consumer) throws GraphException {
+        long count = 0;
+
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if(input.readInt() != EDGES_MAGIC) throw new GraphException(file + " is not a binary edge file");
+
+            long edgesCount = input.readLong();
+
+            //Records have a fixed size (src, dest, weight)
+            long skipped = Math.min(skip, edgesCount);
+            long remaining = skipped * 12;
+
+            while(remaining > 0) {
+                int bytes = input.skipBytes((int) Math.min(remaining, Integer.MAX_VALUE));
+
+                if(bytes <= 0) throw new EOFException();
+
+                remaining -= bytes;
+            }
+
+            for(long i = skipped; i < edgesCount; i++) {
+                consumer.accept(input.readInt(), input.readInt(), input.readFloat());
+                count++;
+            }
+        } catch (IOException e) {
+            throw new GraphException("Cannot read " + file, e);
+        }
+
+        return count;
+    }
+
+    /**
+     * Converts a csv edge file with integer labels to the binary format (int src, int dest, float weight)
+     * A binary file is about three times smaller and needs no parsing
+     * @param csvFile
+     * @param binaryFile
+     * @return the number of edges written
+     * @throws GraphException if a label is not an integer or a file cannot be accessed
+     */
+    public static long exportBinaryEdges(String csvFile, String binaryFile) throws GraphException {
+        try {
+            long count;
+
+            try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile), 1 << 16))) {
+                output.writeInt(EDGES_MAGIC);
+                output.writeLong(0);
+
+                count = readEdges(csvFile, 0, (src, dest, weight) -> {
+                    try {
+                        output.writeInt(Integer.parseInt(src.trim()));
+                        output.writeInt(Integer.parseInt(dest.trim()));
+                        output.writeFloat((float) weight);
+                    } catch (IOException | NumberFormatException e) {
+                        throw new GraphException("Cannot convert " + csvFile, e);
+                    }
+                });
+            }
+
+            //Patches the edges count once known
+            try(RandomAccessFile header = new RandomAccessFile(binaryFile, "rw")) {
+                header.seek(4);
+                header.writeLong(count);
+            }
+
+            return count;
+        } catch (IOException e) {
+            throw new GraphException("Cannot convert " + csvFile, e);
+        }
+    }
+
+    /**
+     * Saves a compressed graph to a binary file
+     * @param graph
+     * @param file
+     * @throws GraphException if the file cannot be written
+     */
+    public static void exportCompressedGraph(CompressedGraph graph, String file) throws GraphException {
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            graph.write(output);
+        } catch (IOException e) {
+            throw new GraphException("Cannot write " + file, e);
+        }
+    }
+
+    /**
+     * Writes a binary file atomically: the content goes to a unique temporary file next to the target, is forced to
+     * the disk and then moved over the target in one step, so a crash leaves either the old file or the new one
+     * @param file
+     * @param writer
+     * @throws GraphException if the file cannot be written or the file system cannot replace it atomically
+     */
+    public static void writeAtomically(String file, BinaryWriter writer) throws GraphException {
+        Path target = Paths.get(file).toAbsolutePath();
+        Path temporary = null;
+
+        try {
+            //Unique, so that writers sharing a target never write into the same temporary file
+            temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+            try(FileOutputStream stream = new FileOutputStream(temporary.toFile())) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+
+                writer.write(output);
+                output.flush();
+                stream.getChannel().force(true);
+            }
+
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new GraphException("Cannot write " + file, e);
+        } finally {
+            //Left over only if the content or the move failed
+            if(temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    //Only a stray temporary file is left behind, the outcome of the write stands
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a compressed graph saved by {@link #exportCompressedGraph(CompressedGraph, String)}
+     * @param file
+     * @return the graph
+     * @throws GraphException if the file cannot be read or does not hold a compressed graph
+     */
+    public static CompressedGraph importCompressedGraph(String file) throws GraphException {
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            return CompressedGraph.read(input);
+        } catch (IOException e) {
+            throw new GraphException("Cannot read " + file, e);
+        }
+    }
 }
@@ -0,0 +1,275 @@
+package utils.cache;
+
+import core.graph.Graph;
+import core.graph.GraphListener;
+import utils.GraphTraversal;
+
+import java.util.*;
+
+/**
+ * Caches traversal, distance and neighborhood queries answered on a graph
+ * Every entry remembers the vertices it visited (its region). The cache listens to the graph and drops the entries
+ * whose region contains a vertex touched by addEdge, removeEdge or removeVertex, other entries stay valid.
+ *
+ */
+public class GraphQueryCache implements GraphListener {
+
+    private enum QueryTypes {
+        BREADTH_FIRST,
+        DEPTH_FIRST,
+        DISTANCES,
+        NEIGHBORHOOD
+    }
+
+    private static final class Query {
+        private final QueryTypes type;
+        private final String src;
+        private final int param;
+
+        private Query(QueryTypes type, String src, int param) {
+            this.type = type;
+            this.src = src;
+            this.param = param;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Query)) return false;
+
+            Query query = (Query) obj;
+
+            return type == query.type && param == query.param && src.equals(query.src);
+        }
+
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + src.hashCode()) * 31 + param;
+        }
+    }
+
+    private static final class Entry {
+        private final Object result;
+        private final Collection<String> region;
+
+        private Entry(Object result, Collection<String> region) {
+            this.result = result;
+            this.region = region;
+        }
+    }
+
+    private final Graph graph;
+    private final LruCache<Query, Entry> cache;
+
+    /**
+     * Cached queries indexed by the vertices of their region
+     */
+    private final Map<String, Set<Query>> regions = new HashMap<>();
+
+    private long invalidations;
+
+    /**
+     * Creates the cache and registers it on the graph
+     * @param graph
+     * @param capacity the maximum number of cached queries
+     */
+    public GraphQueryCache(Graph graph, int capacity) {
+        this.graph = graph;
+        this.cache = new LruCache<>(capacity);
+
+        cache.setEvictionListener((query, entry) -> unindex(query, entry));
+
+        graph.addListener(this);
+    }
+
+    /**
+     * Unregisters the cache from the graph
+     */
+    public void close() {
+        graph.removeListener(this);
+        invalidateAll();
+    }
+
+    /**
+     *
+     * @param src
+     * @return the breadth first traversal from src
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> breadthFirstTraversal(String src) {
+        Query query = new Query(QueryTypes.BREADTH_FIRST, src, 0);
+        Entry entry = cache.get(query);
+
+        if(entry == null) {
+            List<String> result = Collections.unmodifiableList(GraphTraversal.breadthFirstTraversal(graph, src));
+            entry = store(query, result, result);
+        }
+
+        return (List<String>) entry.result;
+    }
+
+    /**
+     *
+     * @param src
+     * @return the depth first traversal from src
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> depthFirstTraversal(String src) {
+        Query query = new Query(QueryTypes.DEPTH_FIRST, src, 0);
+        Entry entry = cache.get(query);
+
+        if(entry == null) {
+            List<String> result = Collections.unmodifiableList(GraphTraversal.depthFirstTraversal(graph, src));
+            entry = store(query, result, result);
+        }
+
+        return (List<String>) entry.result;
+    }
+
+    /**
+     *
+     * @param src
+     * @return the shortest path distance from src to every reachable vertex
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Double> shortestDistances(String src) {
+        Query query = new Query(QueryTypes.DISTANCES, src, 0);
+        Entry entry = cache.get(query);
+
+        if(entry == null) {
+            Map<String, Double> result = Collections.unmodifiableMap(GraphTraversal.shortestDistances(graph, src));
+            entry = store(query, result, result.keySet());
+        }
+
+        return (Map<String, Double>) entry.result;
+    }
+
+    /**
+     *
+     * @param src
+     * @param dest
+     * @return the shortest path distance from src to dest, infinity if dest is not reachable
+     */
+    public double distance(String src, String dest) {
+        Double distance = shortestDistances(src).get(dest);
+
+        return distance == null ? Double.POSITIVE_INFINITY : distance;
+    }
+
+    /**
+     *
+     * @param src
+     * @param hops
+     * @return the vertices at most hops edges away from src
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> neighborhood(String src, int hops) {
+        Query query = new Query(QueryTypes.NEIGHBORHOOD, src, hops);
+        Entry entry = cache.get(query);
+
+        if(entry == null) {
+            Set<String> result = Collections.unmodifiableSet(GraphTraversal.neighborhood(graph, src, hops));
+            entry = store(query, result, result);
+        }
+
+        return (Set<String>) entry.result;
+    }
+
+    private synchronized Entry store(Query query, Object result, Collection<String> region) {
+        Entry entry = new Entry(result, region);
+
+        //Unindexes the previous entry first, its region may share labels with the new one
+        Entry previous = cache.invalidate(query);
+
+        if(previous != null) unindex(query, previous);
+
+        //Indexes before inserting so that an immediate eviction finds the query in the index
+        for(String label: region) {
+            regions.computeIfAbsent(label, l -> new HashSet<>()).add(query);
+        }
+
+        cache.put(query, entry);
+
+        return entry;
+    }
+
+    private synchronized void unindex(Query query, Entry entry) {
+        for(String label: entry.region) {
+            Set<Query> queries = regions.get(label);
+
+            if(queries != null) {
+                queries.remove(query);
+
+                if(queries.isEmpty()) regions.remove(label);
+            }
+        }
+    }
+
+    /**
+     * Drops every cached query whose region contains the vertex
+     * @param label
+     */
+    private synchronized void invalidateRegion(String label) {
+        Set<Query> queries = regions.get(label);
+
+        if(queries == null) return;
+
+        for(Query query: new ArrayList<>(queries)) {
+            Entry entry = cache.invalidate(query);
+
+            if(entry != null) {
+                unindex(query, entry);
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        cache.invalidateAll();
+        regions.clear();
+    }
+
+    @Override
+    public void edgeAdded(String src, String dest) {
+        invalidateRegion(src);
+    }
+
+    @Override
+    public void edgeRemoved(String src, String dest) {
+        invalidateRegion(src);
+    }
+
+    @Override
+    public void vertexRemoved(String label) {
+        invalidateRegion(label);
+    }
+
+    @Override
+    public void graphCleared() {
+        invalidateAll();
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return cache.toString() + ", invalidations=" + getInvalidations();
+    }
+}
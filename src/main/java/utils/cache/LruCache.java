@@ -0,0 +1,117 @@
+package utils.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Size bounded cache evicting the least recently used entry
+ * Counts hits and misses, all operations are synchronized
+ *
+ */
+public class LruCache<K, V> {
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    private BiConsumer<K, V> evictionListener;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(int capacity) {
+        if(capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+
+        this.capacity = capacity;
+
+        //Access order turns the linked map into an LRU list
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if(size() <= LruCache.this.capacity) return false;
+
+                evictions++;
+
+                if(evictionListener != null) evictionListener.accept(eldest.getKey(), eldest.getValue());
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Called with every entry dropped to respect the capacity (not with invalidated ones)
+     * @param evictionListener
+     */
+    public synchronized void setEvictionListener(BiConsumer<K, V> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     *
+     * @param key
+     * @return the cached value or null, counted as a hit or a miss
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+
+        if(value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     *
+     * @param key
+     * @return the removed value or null
+     */
+    public synchronized V invalidate(K key) {
+        return entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     *
+     * @return hits / (hits + misses), 0 before the first lookup
+     */
+    public synchronized double hitRate() {
+        long total = hits + misses;
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "size=" + entries.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions;
+    }
+}
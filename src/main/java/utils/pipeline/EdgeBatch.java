@@ -0,0 +1,75 @@
+package utils.pipeline;
+
+import java.util.Arrays;
+
+/**
+ * Edges passed between two stages at once, stored in parallel arrays
+ * A batch belongs to one stage at a time, which may modify it in place before passing it on.
+ *
+ */
+public class EdgeBatch {
+    private String[] sources;
+    private String[] destinations;
+    private double[] weights;
+    private int size;
+
+    public EdgeBatch(int capacity) {
+        sources = new String[capacity];
+        destinations = new String[capacity];
+        weights = new double[capacity];
+    }
+
+    public void add(String src, String dest, double weight) {
+        if(size == sources.length) {
+            int capacity = Math.max(16, size * 2);
+
+            sources = Arrays.copyOf(sources, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+
+        sources[size] = src;
+        destinations[size] = dest;
+        weights[size++] = weight;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String src(int i) {
+        return sources[i];
+    }
+
+    public String dest(int i) {
+        return destinations[i];
+    }
+
+    public double weight(int i) {
+        return weights[i];
+    }
+
+    public void setWeight(int i, double weight) {
+        weights[i] = weight;
+    }
+
+    /**
+     * Keeps the edges accepted by the filter, in order
+     * @param filter
+     */
+    public void retain(EdgeFilter filter) {
+        int kept = 0;
+
+        for(int i = 0; i < size; i++) {
+            if(!filter.accept(sources[i], destinations[i], weights[i])) continue;
+
+            sources[kept] = sources[i];
+            destinations[kept] = destinations[i];
+            weights[kept++] = weights[i];
+        }
+
+        Arrays.fill(sources, kept, size, null);
+        Arrays.fill(destinations, kept, size, null);
+        size = kept;
+    }
+}
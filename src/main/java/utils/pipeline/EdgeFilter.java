@@ -0,0 +1,27 @@
+package utils.pipeline;
+
+/**
+ * Decides which edges go on to the next stage
+ *
+ */
+public interface EdgeFilter {
+
+    boolean accept(String src, String dest, double weight);
+
+    /**
+     *
+     * @param threshold
+     * @return a filter keeping the edges weighing at least threshold
+     */
+    static EdgeFilter minWeight(double threshold) {
+        return (src, dest, weight) -> weight >= threshold;
+    }
+
+    /**
+     *
+     * @return a filter dropping the self loops
+     */
+    static EdgeFilter noSelfLoops() {
+        return (src, dest, weight) -> !src.equals(dest);
+    }
+}
@@ -0,0 +1,102 @@
+package utils.pipeline;
+
+import utils.exceptions.GraphException;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.Iterator;
+
+/**
+ * Where the lines of a pipeline come from, read by a single thread
+ * A failed or cancelled pipeline closes the source from another thread to stop a blocked read, so close may be called
+ * twice and while a read is in progress.
+ *
+ */
+public interface LineSource extends Closeable {
+
+    /**
+     *
+     * @return the next line, null once the source is exhausted
+     * @throws IOException
+     */
+    String readLine() throws IOException;
+
+    /**
+     *
+     * @param file a csv edge file
+     * @return the lines of the file
+     * @throws GraphException if the file cannot be opened
+     */
+    static LineSource file(String file) throws GraphException {
+        try {
+            return reader(new BufferedReader(new FileReader(file), 1 << 16));
+        } catch (FileNotFoundException e) {
+            throw new GraphException("Cannot read " + file, e);
+        }
+    }
+
+    /**
+     * Reads lines from a socket; a slow pipeline stops reading, so the sender is slowed down by TCP flow control
+     * @param host
+     * @param port
+     * @return the lines sent until the peer closes the connection
+     * @throws GraphException if the connection fails
+     */
+    static LineSource socket(String host, int port) throws GraphException {
+        try {
+            Socket socket = new Socket(host, port);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()), 1 << 16);
+
+            return new LineSource() {
+                @Override
+                public String readLine() throws IOException {
+                    return reader.readLine();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    socket.close();
+                }
+            };
+        } catch (IOException e) {
+            throw new GraphException("Cannot connect to " + host + ":" + port, e);
+        }
+    }
+
+    /**
+     *
+     * @param reader
+     * @return the lines of the reader, which is closed with the source
+     */
+    static LineSource reader(BufferedReader reader) {
+        return new LineSource() {
+            @Override
+            public String readLine() throws IOException {
+                return reader.readLine();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    /**
+     * In process source, e.g. for tests or lines already in memory
+     * @param lines
+     * @return the lines of the iterator
+     */
+    static LineSource of(Iterator<String> lines) {
+        return new LineSource() {
+            @Override
+            public String readLine() {
+                return lines.hasNext() ? lines.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
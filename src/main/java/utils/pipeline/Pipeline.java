@@ -0,0 +1,262 @@
+package utils.pipeline;
+
+import utils.Stream;
+import utils.exceptions.GraphException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Reactive edge pipeline: source, parse, filter/transform and sink stages connected by Flow publishers
+ * Lines travel in batches through bounded buffers. A stage only asks for the next batch once it has handed the last
+ * one on, so a slow sink slows the source down instead of filling the memory. Every stage runs on its own thread.
+ * Lines follow the csv pattern src, dest, weight of Stream. The sink is any Stream.EdgeConsumer, e.g.
+ * parallelGraphBuilder.buffer()::add, the sink running on a single thread, or
+ * (src, dest, weight) -> streamingClustering.addEdge(src, dest).
+ *
+ */
+public class Pipeline {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final int DEFAULT_BUFFER_SIZE = 16;
+
+    private final LineSource source;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    /**
+     * Filters and weight transforms, applied in the order they were added
+     */
+    private final List<StageProcessor.Stage<EdgeBatch, EdgeBatch>> operations = new ArrayList<>();
+
+    public Pipeline(LineSource source) {
+        this.source = source;
+    }
+
+    /**
+     *
+     * @param batchSize the number of lines or edges passed between two stages at once
+     */
+    public void setBatchSize(int batchSize) {
+        if(batchSize <= 0) throw new IllegalArgumentException("The batch size must be positive");
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     *
+     * @param bufferSize the number of batches that may wait between two stages
+     */
+    public void setBufferSize(int bufferSize) {
+        if(bufferSize <= 0) throw new IllegalArgumentException("The buffer size must be positive");
+
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Drops the edges rejected by the filter
+     * @param filter
+     */
+    public void addFilter(EdgeFilter filter) {
+        operations.add(batch -> {
+            batch.retain(filter);
+
+            return batch;
+        });
+    }
+
+    /**
+     * Replaces the weight of every edge
+     * @param transform
+     */
+    public void addWeightTransform(DoubleUnaryOperator transform) {
+        operations.add(batch -> {
+            for(int i = 0; i < batch.size(); i++) batch.setWeight(i, transform.applyAsDouble(batch.weight(i)));
+
+            return batch;
+        });
+    }
+
+    /**
+     * Starts the pipeline, returns immediately
+     * Cancelling the result stops reading the source and closes it.
+     * @param sink receives the edges one at a time, from a single thread
+     * @return the number of edges passed to the sink, completed exceptionally with a GraphException if a line is
+     * malformed, the source cannot be read or the sink fails
+     */
+    public CompletableFuture<Long> run(Stream.EdgeConsumer sink) {
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pipeline");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        result.whenComplete((count, failure) -> {
+            //Unblocks a read waiting on the source, e.g. a socket, once the result is cancelled or failed
+            if(failure != null) closeSource();
+        });
+
+        //The stages deliver on the executor until the reader has closed the publisher and the sink has its last
+        //signal, which may come after the result is over
+        CompletableFuture<Void> read = new CompletableFuture<>();
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        CompletableFuture.allOf(read, drained).whenComplete((ignored, failure) -> executor.shutdown());
+
+        SubmissionPublisher<List<String>> lines = new SubmissionPublisher<>(executor, bufferSize);
+        StageProcessor<List<String>, EdgeBatch> parser = new StageProcessor<>(executor, bufferSize, new Parser());
+        List<StageProcessor.Stage<EdgeBatch, EdgeBatch>> stages = new ArrayList<>(operations);
+        StageProcessor<EdgeBatch, EdgeBatch> transformer = new StageProcessor<>(executor, bufferSize, batch -> {
+            for(StageProcessor.Stage<EdgeBatch, EdgeBatch> stage: stages) stage.apply(batch);
+
+            return batch.size() == 0 ? null : batch;
+        });
+
+        lines.subscribe(parser);
+        parser.subscribe(transformer);
+        transformer.subscribe(new Sink(sink, result, drained));
+
+        executor.execute(() -> read(lines, result, read));
+
+        return result;
+    }
+
+    /**
+     * Reads the source in batches of lines until it is exhausted or the pipeline is over
+     * Once the pipeline is over the publisher is closed without an error, letting the batches in flight drain.
+     */
+    private void read(SubmissionPublisher<List<String>> lines, CompletableFuture<Long> result,
+                      CompletableFuture<Void> read) {
+        try(LineSource input = source) {
+            List<String> batch = new ArrayList<>(batchSize);
+            String line;
+
+            while(!result.isDone() && (line = input.readLine()) != null) {
+                //Blank lines are kept for the parser to count, so it reports the line numbers of the source
+                batch.add(line);
+
+                if(batch.size() == batchSize && !result.isDone()) {
+                    //Blocks while the parser is bufferSize batches behind
+                    lines.submit(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if(!batch.isEmpty() && !result.isDone()) lines.submit(batch);
+
+            lines.close();
+        } catch (IOException | RuntimeException e) {
+            close(lines, result, new GraphException("Cannot read the pipeline source", e));
+        } catch (Error e) {
+            close(lines, result, e);
+
+            throw e;
+        } finally {
+            read.complete(null);
+        }
+    }
+
+    /**
+     * Fails the pipeline unless it is already over, e.g. the source failed because a cancel closed it
+     */
+    private static void close(SubmissionPublisher<List<String>> lines, CompletableFuture<Long> result,
+                              Throwable failure) {
+        if(result.isDone()) lines.close();
+        else lines.closeExceptionally(failure);
+    }
+
+    private void closeSource() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            //The result is already failed or cancelled, nothing is left to report it to
+        }
+    }
+
+    /**
+     * Parses csv lines, numbering them to report malformed ones
+     * Blank lines are counted, then skipped, as Stream does.
+     */
+    private final class Parser implements StageProcessor.Stage<List<String>, EdgeBatch> {
+        private long lineNumber;
+
+        @Override
+        public EdgeBatch apply(List<String> lines) throws GraphException {
+            EdgeBatch batch = new EdgeBatch(lines.size());
+
+            for(String line: lines) {
+                lineNumber++;
+
+                if(line.isEmpty()) continue;
+
+                String[] data = line.split(",");
+
+                if(data.length < 3) throw new GraphException("Malformed edge at line " + lineNumber);
+
+                try {
+                    batch.add(data[0], data[1], Double.parseDouble(data[2]));
+                } catch (NumberFormatException e) {
+                    throw new GraphException("Malformed edge at line " + lineNumber, e);
+                }
+            }
+
+            return batch;
+        }
+    }
+
+    /**
+     * Last stage, completes the result
+     * Once the result is over the sink keeps requesting and drops the batches, so the stages drain and it still
+     * receives the last signal.
+     */
+    private static final class Sink implements Flow.Subscriber<EdgeBatch> {
+        private final Stream.EdgeConsumer consumer;
+        private final CompletableFuture<Long> result;
+        private final CompletableFuture<Void> drained;
+        private Flow.Subscription subscription;
+        private long count;
+
+        private Sink(Stream.EdgeConsumer consumer, CompletableFuture<Long> result, CompletableFuture<Void> drained) {
+            this.consumer = consumer;
+            this.result = result;
+            this.drained = drained;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(EdgeBatch batch) {
+            if(!result.isDone()) {
+                try {
+                    for(int i = 0; i < batch.size(); i++) consumer.accept(batch.src(i), batch.dest(i), batch.weight(i));
+
+                    count += batch.size();
+                } catch (GraphException | RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+            drained.complete(null);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(count);
+            drained.complete(null);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package utils.pipeline;
+
+import utils.exceptions.GraphException;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A pipeline stage: transforms every item it receives and publishes the result to the next stage
+ * Items are requested one at a time and publishing blocks while the buffer of the next stage is full, so a slow
+ * stage holds back every stage before it.
+ *
+ */
+class StageProcessor<T, R> extends SubmissionPublisher<R> implements Flow.Processor<T, R> {
+
+    interface Stage<T, R> {
+        /**
+         *
+         * @param item
+         * @return the item to publish, null to publish nothing
+         * @throws GraphException to fail the pipeline
+         */
+        R apply(T item) throws GraphException;
+    }
+
+    private final Stage<T, R> stage;
+    private Flow.Subscription subscription;
+
+    /**
+     *
+     * @param executor the executor delivering the published items
+     * @param bufferSize the number of items the next stage may have waiting
+     * @param stage
+     */
+    StageProcessor(Executor executor, int bufferSize, Stage<T, R> stage) {
+        super(executor, bufferSize);
+
+        this.stage = stage;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(T item) {
+        try {
+            R result = stage.apply(item);
+
+            if(result != null) submit(result);
+
+            subscription.request(1);
+        } catch (GraphException | RuntimeException e) {
+            subscription.cancel();
+            closeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+}
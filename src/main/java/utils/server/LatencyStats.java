@@ -0,0 +1,92 @@
+package utils.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram
+ * Latencies are counted in logarithmic buckets, eight per power of two, so a percentile is known within 12.5% with a
+ * fixed 4 KB footprint whatever the number of samples.
+ *
+ */
+public class LatencyStats {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     *
+     * @param nanos the latency of one request
+     */
+    public void record(long nanos) {
+        if(nanos < 0) nanos = 0;
+
+        buckets.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static int bucket(long nanos) {
+        if(nanos < SUB_BUCKETS) return (int) nanos;
+
+        //The highest bit gives the power of two, the next three bits the bucket within it
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+
+        return shift * SUB_BUCKETS + (int) (nanos >>> shift);
+    }
+
+    private static long upperBound(int bucket) {
+        if(bucket < SUB_BUCKETS) return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+
+        return ((long) (bucket % SUB_BUCKETS + SUB_BUCKETS + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     *
+     * @return the highest latency recorded, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     *
+     * @param percentile in [0, 100]
+     * @return the latency under which percentile % of the requests were answered, in nanoseconds, 0 if none was
+     */
+    public long percentile(double percentile) {
+        long total = count.get();
+
+        if(total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+
+        for(int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+
+            if(seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Forgets the recorded latencies, concurrent records may be lost
+     */
+    public void reset() {
+        for(int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+
+        count.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,345 @@
+package utils.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.clustering.Assignment;
+import core.graph.CompactGraph;
+import utils.exceptions.GraphException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Embedded HTTP server answering cluster lookups on a frozen clustering, bound to localhost
+ * GET /cluster?vertex=X gives the cluster, the centroid and the distance to the centroid of X,
+ * GET /members?cluster=C (or ?vertex=X) the members of a cluster, POST /cluster looks up every vertex of the body,
+ * one label per line, in one request, and GET /stats gives the latency percentiles in microseconds.
+ * Answers are read from the int arrays of the assignment, member lists are encoded once per cluster and kept.
+ * swap replaces the clustering atomically: requests already running finish on the previous one.
+ *
+ */
+public class QueryServer implements AutoCloseable {
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Maximum number of vertices in a batch request
+     */
+    public static final int MAX_BATCH_SIZE = 1 << 16;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicReference<Snapshot> snapshot;
+    private final LatencyStats stats = new LatencyStats();
+
+    /**
+     * A clustering as served, with the responses computed from it
+     */
+    private static final class Snapshot {
+        private final Assignment assignment;
+        private final CompactGraph graph;
+        private final long version;
+        private final AtomicReferenceArray<byte[]> members;
+
+        private Snapshot(Assignment assignment, long version) {
+            this.assignment = assignment;
+            this.graph = assignment.getGraph();
+            this.version = version;
+            this.members = new AtomicReferenceArray<>(assignment.clustersCount());
+        }
+    }
+
+    /**
+     * Starts serving on localhost with DEFAULT_THREADS threads
+     * @param assignment
+     * @param port 0 for any free port
+     * @throws GraphException if the port cannot be bound
+     */
+    public QueryServer(Assignment assignment, int port) throws GraphException {
+        this(assignment, port, DEFAULT_THREADS);
+    }
+
+    /**
+     * Starts serving on localhost
+     * @param assignment
+     * @param port 0 for any free port
+     * @param threads the number of requests answered at the same time
+     * @throws GraphException if the port cannot be bound
+     */
+    public QueryServer(Assignment assignment, int port, int threads) throws GraphException {
+        this.snapshot = new AtomicReference<>(new Snapshot(assignment, 1));
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new GraphException("Cannot bind port " + port, e);
+        }
+
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "query-server");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        server.setExecutor(executor);
+        server.createContext("/cluster", exchange -> handle(exchange, true));
+        server.createContext("/members", exchange -> handle(exchange, false));
+        server.createContext("/stats", this::stats);
+        server.start();
+    }
+
+    /**
+     * Serves a new clustering without interrupting the requests
+     * @param assignment
+     * @return the version of the new clustering
+     */
+    public long swap(Assignment assignment) {
+        return snapshot.updateAndGet(current -> new Snapshot(assignment, current.version + 1)).version;
+    }
+
+    /**
+     *
+     * @return the version of the clustering served, starting at 1 and increased by every swap
+     */
+    public long getVersion() {
+        return snapshot.get().version;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     *
+     * @return the latencies of the lookups, from the request received to the response sent
+     */
+    public LatencyStats getStats() {
+        return stats;
+    }
+
+    private void handle(HttpExchange exchange, boolean lookup) throws IOException {
+        long start = System.nanoTime();
+        //Read once, so a swap cannot mix two clusterings in one response
+        Snapshot current = snapshot.get();
+
+        try {
+            Map<String, String> query = query(exchange);
+            String method = exchange.getRequestMethod();
+
+            if(lookup && method.equals("POST")) {
+                send(exchange, 200, batch(current, exchange.getRequestBody()));
+            } else if(!method.equals("GET")) {
+                send(exchange, 405, error("Unsupported method " + method));
+            } else if(lookup) {
+                int v = vertex(current, query);
+
+                send(exchange, v < 0 ? 404 : 200, v < 0 ? error("Unknown vertex") : cluster(current, v, new StringBuilder()).toString());
+            } else {
+                int cluster = query.containsKey("cluster") ? Integer.parseInt(query.get("cluster")) : -1;
+
+                if(query.containsKey("vertex")) {
+                    int v = vertex(current, query);
+                    cluster = v < 0 ? -1 : current.assignment.clusterOf(v);
+                }
+
+                if(cluster < 0 || cluster >= current.assignment.clustersCount()) {
+                    send(exchange, 404, error("Unknown cluster"));
+                } else {
+                    send(exchange, 200, members(current, cluster));
+                }
+            }
+        } catch (NumberFormatException e) {
+            send(exchange, 400, error("Malformed cluster"));
+        } catch (GraphException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } finally {
+            exchange.close();
+            stats.record(System.nanoTime() - start);
+        }
+    }
+
+    private static int vertex(Snapshot current, Map<String, String> query) throws GraphException {
+        String label = query.get("vertex");
+
+        if(label == null) throw new GraphException("Missing vertex");
+
+        return current.graph.id(label);
+    }
+
+    /**
+     * Appends {"vertex": ..., "cluster": ..., "centroid": ..., "distance": ...}
+     */
+    private static StringBuilder cluster(Snapshot current, int v, StringBuilder json) {
+        int cluster = current.assignment.clusterOf(v);
+        double distance = current.assignment.distanceToCentroid(v);
+
+        json.append("{\"vertex\":");
+        string(current.graph.label(v), json);
+        json.append(",\"cluster\":").append(cluster).append(",\"centroid\":");
+
+        if(cluster < 0) {
+            json.append("null");
+        } else {
+            string(current.graph.label(current.assignment.centroid(cluster)), json);
+        }
+
+        json.append(",\"distance\":");
+
+        if(cluster < 0 || Double.isNaN(distance)) {
+            json.append("null");
+        } else {
+            //Distances are stored as floats, printing them as floats avoids the digits of the widening
+            json.append((float) distance);
+        }
+
+        return json.append('}');
+    }
+
+    /**
+     * Looks up the vertices of the body, one label per line, in a json array in the same order
+     */
+    private static String batch(Snapshot current, InputStream body) throws IOException, GraphException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        StringBuilder json = new StringBuilder("[");
+        String label;
+        int count = 0;
+
+        while((label = reader.readLine()) != null) {
+            if(label.isEmpty()) continue;
+
+            if(++count > MAX_BATCH_SIZE) throw new GraphException("More than " + MAX_BATCH_SIZE + " vertices in the batch");
+
+            if(count > 1) json.append(',');
+
+            int v = current.graph.id(label);
+
+            if(v < 0) {
+                json.append("{\"vertex\":");
+                string(label, json);
+                json.append(",\"cluster\":-1,\"centroid\":null,\"distance\":null}");
+            } else {
+                cluster(current, v, json);
+            }
+        }
+
+        return json.append(']').toString();
+    }
+
+    /**
+     * Encodes the members of a cluster on first request, the later ones reuse the bytes
+     */
+    private static byte[] members(Snapshot current, int cluster) {
+        byte[] cached = current.members.get(cluster);
+
+        if(cached != null) return cached;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"cluster\":").append(cluster).append(",\"centroid\":");
+        string(current.graph.label(current.assignment.centroid(cluster)), json);
+        json.append(",\"size\":").append(current.assignment.size(cluster)).append(",\"members\":[");
+
+        int[] members = current.assignment.members(cluster);
+
+        for(int i = 0; i < members.length; i++) {
+            if(i > 0) json.append(',');
+
+            string(current.graph.label(members[i]), json);
+        }
+
+        byte[] response = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        //Concurrent first requests encode the same bytes, either copy can be kept
+        current.members.compareAndSet(cluster, null, response);
+
+        return response;
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try {
+            String json = "{\"version\":" + getVersion() +
+                    ",\"count\":" + stats.getCount() +
+                    ",\"p50\":" + stats.percentile(50) / 1000 +
+                    ",\"p99\":" + stats.percentile(99) / 1000 +
+                    ",\"p999\":" + stats.percentile(99.9) / 1000 +
+                    ",\"max\":" + stats.getMax() / 1000 + "}";
+
+            send(exchange, 200, json);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+
+        if(query == null) return parameters;
+
+        for(String parameter: query.split("&")) {
+            int equals = parameter.indexOf('=');
+
+            if(equals < 0) continue;
+
+            parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+
+        return parameters;
+    }
+
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        string(message, json);
+
+        return json.append('}').toString();
+    }
+
+    private static void string(String value, StringBuilder json) {
+        json.append('"');
+
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if(c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if(c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+
+        json.append('"');
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+
+        try(OutputStream body = exchange.getResponseBody()) {
+            body.write(json);
+        }
+    }
+
+    /**
+     * Stops accepting requests, waiting at most a second for the running ones
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,188 @@
+package core.clustering;
+
+import core.graph.CompactGraph;
+import core.graph.UndirectedGraph;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AgglomerativeTest {
+
+    /**
+     * Merges the two closest clusters until none are linked, recomputing every linkage from the member pairs
+     * @return the heights of the merges, in order
+     */
+    private static List<Double> bruteForce(CompactGraph graph, Agglomerative.Linkages linkage) {
+        int n = graph.vertexCount();
+        double[][] distances = new double[n][n];
+
+        for(double[] row: distances) Arrays.fill(row, Double.POSITIVE_INFINITY);
+
+        for(int v = 0; v < n; v++) {
+            for(int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) distances[v][graph.target(e)] = graph.weight(e);
+        }
+
+        List<List<Integer>> clusters = new ArrayList<>();
+
+        for(int v = 0; v < n; v++) clusters.add(new ArrayList<>(Collections.singletonList(v)));
+
+        List<Double> heights = new ArrayList<>();
+
+        while(true) {
+            double best = Double.POSITIVE_INFINITY;
+            int bestI = -1;
+            int bestJ = -1;
+
+            for(int i = 0; i < clusters.size(); i++) {
+                for(int j = i + 1; j < clusters.size(); j++) {
+                    double distance = linkage(linkage, clusters.get(i), clusters.get(j), distances);
+
+                    if(distance < best) {
+                        best = distance;
+                        bestI = i;
+                        bestJ = j;
+                    }
+                }
+            }
+
+            if(bestI < 0) return heights;
+
+            heights.add(best);
+            clusters.get(bestI).addAll(clusters.remove(bestJ));
+        }
+    }
+
+    private static double linkage(Agglomerative.Linkages linkage, List<Integer> a, List<Integer> b, double[][] distances) {
+        double result = linkage == Agglomerative.Linkages.SINGLE ? Double.POSITIVE_INFINITY : 0;
+
+        for(int x: a) {
+            for(int y: b) {
+                if(linkage == Agglomerative.Linkages.SINGLE) {
+                    result = Math.min(result, distances[x][y]);
+                } else if(linkage == Agglomerative.Linkages.COMPLETE) {
+                    result = Math.max(result, distances[x][y]);
+                } else {
+                    result += distances[x][y];
+                }
+            }
+        }
+
+        return linkage == Agglomerative.Linkages.AVERAGE ? result / (a.size() * b.size()) : result;
+    }
+
+    private static CompactGraph randomGraph(Random random, double density) {
+        int n = 12 + random.nextInt(20);
+        UndirectedGraph graph = new UndirectedGraph();
+
+        for(int v = 0; v < n; v++) graph.addVertex("v" + v);
+
+        for(int u = 0; u < n; u++) {
+            for(int v = u + 1; v < n; v++) {
+                //Distinct weights, so the order of the merges is unique
+                if(random.nextDouble() < density) graph.addEdge("v" + u, "v" + v, random.nextInt(1000) / 10.0 + random.nextDouble() * 1e-6);
+            }
+        }
+
+        return CompactGraph.of(graph);
+    }
+
+    private static void assertMatchesBruteForce(Agglomerative.Linkages linkage, double density) {
+        Random random = new Random(5);
+
+        for(int trial = 0; trial < 20; trial++) {
+            CompactGraph graph = randomGraph(random, density);
+            Dendrogram dendrogram = Agglomerative.cluster(graph, linkage);
+            List<Double> expected = bruteForce(graph, linkage);
+
+            assertEquals(expected.size(), dendrogram.mergesCount());
+
+            for(int i = 0; i < expected.size(); i++) assertEquals(expected.get(i), dendrogram.height(i), 1e-9);
+        }
+    }
+
+    @Test
+    public void singleLinkageMatchesBruteForce() {
+        assertMatchesBruteForce(Agglomerative.Linkages.SINGLE, 0.2);
+    }
+
+    @Test
+    public void averageLinkageMatchesBruteForce() {
+        assertMatchesBruteForce(Agglomerative.Linkages.AVERAGE, 1);
+    }
+
+    @Test
+    public void completeLinkageMatchesBruteForce() {
+        assertMatchesBruteForce(Agglomerative.Linkages.COMPLETE, 1);
+    }
+
+    @Test
+    public void sparseCompleteLinkageMatchesBruteForce() {
+        assertMatchesBruteForce(Agglomerative.Linkages.COMPLETE, 0.3);
+    }
+
+    @Test
+    public void wardHeightsAreMonotone() {
+        Random random = new Random(7);
+
+        for(int trial = 0; trial < 20; trial++) {
+            Dendrogram dendrogram = Agglomerative.cluster(randomGraph(random, 0.5), Agglomerative.Linkages.WARD);
+
+            for(int i = 1; i < dendrogram.mergesCount(); i++) assertTrue(dendrogram.height(i) >= dendrogram.height(i - 1));
+        }
+    }
+
+    @Test
+    public void cutGivesKClusters() {
+        Random random = new Random(9);
+        Dendrogram dendrogram = Agglomerative.cluster(randomGraph(random, 0.3), Agglomerative.Linkages.AVERAGE);
+        int n = dendrogram.getGraph().vertexCount();
+
+        for(int k = dendrogram.rootsCount(); k <= n; k++) {
+            Set<Integer> clusters = new HashSet<>();
+
+            for(int c: dendrogram.cut(k)) clusters.add(c);
+
+            assertEquals(k, clusters.size());
+        }
+    }
+
+    @Test
+    public void completeLinkageOfAPathHasSeveralRoots() {
+        UndirectedGraph graph = new UndirectedGraph();
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("b", "c", 2);
+
+        Dendrogram dendrogram = Agglomerative.cluster(CompactGraph.of(graph), Agglomerative.Linkages.COMPLETE);
+
+        assertEquals(2, dendrogram.rootsCount());
+        assertEquals(2, Clustering.cluster_agglomerative(graph, 2, Agglomerative.Linkages.COMPLETE).length);
+        assertEquals(1, Clustering.cluster_agglomerative(graph, 1, Agglomerative.Linkages.SINGLE).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cutBelowTheRootsFails() {
+        UndirectedGraph graph = new UndirectedGraph();
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("b", "c", 2);
+
+        Clustering.cluster_agglomerative(graph, 1, Agglomerative.Linkages.COMPLETE);
+    }
+
+    @Test
+    public void cutAtHeightKeepsLowerMerges() {
+        UndirectedGraph graph = new UndirectedGraph();
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("b", "c", 5);
+        graph.addEdge("x", "y", 2);
+
+        Dendrogram dendrogram = Agglomerative.cluster(CompactGraph.of(graph), Agglomerative.Linkages.SINGLE);
+        CompactGraph compact = dendrogram.getGraph();
+        int[] clusterOf = dendrogram.cutAtHeight(1.5);
+
+        assertEquals(clusterOf[compact.id("a")], clusterOf[compact.id("b")]);
+        assertNotEquals(clusterOf[compact.id("b")], clusterOf[compact.id("c")]);
+        assertNotEquals(clusterOf[compact.id("x")], clusterOf[compact.id("y")]);
+    }
+}
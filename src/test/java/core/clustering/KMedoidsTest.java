@@ -0,0 +1,118 @@
+package core.clustering;
+
+import core.graph.CompactGraph;
+import core.graph.UndirectedGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import utils.exceptions.GraphException;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KMedoidsTest {
+    private static final long SEED = 7;
+    private static final int K = 6;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A long path of random weights with random shortcuts, on which the centroids take several rounds to settle
+     */
+    private static CompactGraph randomGraph(long seed) {
+        Random random = new Random(seed);
+        UndirectedGraph graph = new UndirectedGraph();
+        int n = 300;
+
+        for(int v = 1; v < n; v++) graph.addEdge("v" + (v - 1), "v" + v, 1 + random.nextInt(10));
+
+        for(int i = 0; i < n / 10; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+
+            if(u != v) graph.addEdge("v" + u, "v" + v, 5 + random.nextInt(20));
+        }
+
+        return CompactGraph.of(graph);
+    }
+
+    private static KMedoids kMedoids(CompactGraph graph) {
+        KMedoids kMedoids = new KMedoids(graph, K);
+        kMedoids.setSeed(SEED);
+
+        return kMedoids;
+    }
+
+    @Test
+    public void resumedRunMatchesUninterruptedRun() throws GraphException {
+        CompactGraph graph = randomGraph(1);
+        KMedoids uninterrupted = kMedoids(graph);
+        Assignment expected = uninterrupted.run();
+
+        assertTrue(uninterrupted.getIterations() > 2);
+
+        String file = folder.getRoot().toPath().resolve("checkpoint").toString();
+        int[] rounds = new int[1];
+        KMedoids interrupted = kMedoids(graph);
+        interrupted.setCheckpoint(file, 1);
+        interrupted.setStopCondition(() -> ++rounds[0] > 2);
+        interrupted.run();
+
+        assertTrue(interrupted.isStopped());
+        assertNull(interrupted.getCheckpointFailure());
+        assertEquals(2, ClusteringCheckpoint.read(file).getIteration());
+
+        KMedoids resumed = KMedoids.resume(graph, file);
+        Assignment assignment = resumed.run();
+
+        assertFalse(resumed.isStopped());
+        assertEquals(uninterrupted.getIterations(), resumed.getIterations());
+        assertArrayEquals(expected.getClusterOf(), assignment.getClusterOf());
+
+        for(int c = 0; c < K; c++) assertEquals(expected.centroid(c), assignment.centroid(c));
+    }
+
+    @Test(expected = GraphException.class)
+    public void checkpointOfAnotherGraphIsRejected() throws GraphException {
+        CompactGraph graph = randomGraph(1);
+        String file = folder.getRoot().toPath().resolve("checkpoint").toString();
+        KMedoids kMedoids = kMedoids(graph);
+        kMedoids.setCheckpoint(file, 1);
+        kMedoids.run();
+
+        assertTrue(folder.getRoot().toPath().resolve("checkpoint").toFile().exists());
+
+        //Same vertices and edges, only the weights are shuffled
+        int m = graph.edgesCount();
+        int[] offsets = new int[graph.vertexCount() + 1];
+        int[] targets = new int[m];
+        double[] weights = new double[m];
+        String[] labels = new String[graph.vertexCount()];
+
+        for(int v = 0; v < labels.length; v++) {
+            labels[v] = graph.label(v);
+            offsets[v + 1] = graph.firstEdge(v + 1);
+        }
+
+        for(int e = 0; e < m; e++) {
+            targets[e] = graph.target(e);
+            weights[e] = graph.weight(m - 1 - e);
+        }
+
+        KMedoids.resume(new CompactGraph(labels, offsets, targets, weights, false), file);
+    }
+
+    @Test(expected = GraphException.class)
+    public void checkpointOfASmallerGraphIsRejected() throws GraphException {
+        UndirectedGraph graph = new UndirectedGraph();
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("b", "c", 1);
+
+        String file = folder.getRoot().toPath().resolve("checkpoint").toString();
+        new ClusteringCheckpoint(2, 2, 1, SEED, 1, 1, new int[] {0}, new int[] {0, 0}).write(file);
+
+        KMedoids.resume(CompactGraph.of(graph), file);
+    }
+}
@@ -0,0 +1,59 @@
+package core.distance;
+
+import core.graph.CompactGraph;
+import core.graph.DirectedGraph;
+import core.graph.UndirectedGraph;
+import core.weighted.Dijkstra;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathsTest {
+
+    private static CompactGraph path(int n, double weight) {
+        UndirectedGraph graph = new UndirectedGraph();
+
+        for(int v = 0; v + 1 < n; v++) graph.addEdge("v" + v, "v" + (v + 1), weight);
+
+        return CompactGraph.of(graph);
+    }
+
+    @Test
+    public void testDistancesAndParents() {
+        CompactGraph graph = path(5, 2);
+
+        assertArrayEquals(new float[] {0, 2, 4, 6, 8}, ShortestPaths.dijkstra(graph, 0), 0);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Dijkstra.run(graph, 0).pathTo(4));
+    }
+
+    @Test
+    public void testMultiSourceOwners() {
+        CompactGraph graph = path(5, 1);
+        float[] dist = new float[5];
+        int[] owner = new int[5];
+
+        ShortestPaths.multiSourceDijkstra(graph, new int[] {0, 4}, dist, owner);
+
+        assertArrayEquals(new float[] {0, 1, 2, 1, 0}, dist, 0);
+        assertEquals(0, owner[1]);
+        assertEquals(1, owner[3]);
+    }
+
+    @Test
+    public void testSearchAfterNegativeWeightFailure() {
+        DirectedGraph negative = new DirectedGraph();
+        negative.addEdge("a", "b", 1);
+        negative.addEdge("a", "c", 1);
+        negative.addEdge("a", "d", 1);
+        negative.addEdge("b", "e", -1);
+
+        try {
+            ShortestPaths.dijkstra(CompactGraph.of(negative), 0);
+            fail("A negative weight should be rejected");
+        } catch (IllegalArgumentException e) {
+            //Leaves queued vertices behind unless the heap is reset
+        }
+
+        assertArrayEquals(new float[] {0, 3}, ShortestPaths.dijkstra(path(2, 3), 0), 0);
+    }
+}
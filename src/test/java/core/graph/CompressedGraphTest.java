@@ -0,0 +1,192 @@
+package core.graph;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedGraphTest {
+
+    /**
+     * Builds sorted CSR lists, each copying part of the list before it with probability similarity
+     * @param duplicates probability of repeating a target, as parallel edges do
+     */
+    private static CompactGraph randomGraph(Random random, int n, double similarity, double duplicates) {
+        int[] offsets = new int[n + 1];
+        int[][] lists = new int[n][];
+
+        for(int v = 0; v < n; v++) {
+            int degree = random.nextInt(12);
+            int[] list = new int[degree];
+
+            for(int j = 0; j < degree; j++) {
+                if(j > 0 && random.nextDouble() < duplicates) {
+                    list[j] = list[j - 1];
+                } else if(v > 0 && j < lists[v - 1].length && random.nextDouble() < similarity) {
+                    list[j] = lists[v - 1][j];
+                } else {
+                    list[j] = random.nextInt(n);
+                }
+            }
+
+            Arrays.sort(list);
+            lists[v] = list;
+            offsets[v + 1] = offsets[v] + degree;
+        }
+
+        int[] targets = new int[offsets[n]];
+        double[] weights = new double[targets.length];
+        String[] labels = new String[n];
+
+        for(int v = 0; v < n; v++) {
+            labels[v] = "v" + v;
+            System.arraycopy(lists[v], 0, targets, offsets[v], lists[v].length);
+        }
+
+        for(int e = 0; e < weights.length; e++) weights[e] = random.nextInt(100);
+
+        return new CompactGraph(labels, offsets, targets, weights, true);
+    }
+
+    private static void assertSameGraph(CompactGraph expected, CompressedGraph actual) {
+        assertEquals(expected.vertexCount(), actual.vertexCount());
+        assertEquals(expected.edgesCount(), actual.edgesCount());
+        assertEquals(expected.isDirected(), actual.isDirected());
+
+        CompactGraph decoded = actual.toCompactGraph();
+        NeighborIterator neighbors = actual.neighbors();
+
+        for(int v = 0; v < expected.vertexCount(); v++) {
+            assertEquals(expected.label(v), actual.label(v));
+            assertEquals(v, actual.id(expected.label(v)));
+            assertEquals(expected.degree(v), actual.degree(v));
+
+            neighbors.reset(v);
+
+            for(int e = expected.firstEdge(v); e < expected.firstEdge(v + 1); e++) {
+                assertTrue(neighbors.hasNext());
+                assertEquals(expected.target(e), neighbors.next());
+                assertEquals(expected.weight(e), neighbors.weight(), 0);
+                assertEquals(expected.target(e), decoded.target(e));
+                assertEquals(expected.weight(e), decoded.weight(e), 0);
+            }
+
+            assertFalse(neighbors.hasNext());
+        }
+    }
+
+    private static byte[] write(CompressedGraph graph) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            graph.write(out);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static CompressedGraph read(byte[] bytes) throws IOException {
+        return CompressedGraph.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void randomGraphsRoundTrip() throws IOException {
+        Random random = new Random(3);
+
+        for(int trial = 0; trial < 20; trial++) {
+            CompactGraph graph = randomGraph(random, 1 + random.nextInt(200), random.nextDouble(), 0);
+            CompressedGraph compressed = CompressedGraph.of(graph);
+
+            assertSameGraph(graph, compressed);
+            assertSameGraph(graph, read(write(compressed)));
+        }
+    }
+
+    @Test
+    public void referenceChainsRoundTrip() throws IOException {
+        //Every list copies most of the previous one, so references chain up to MAX_REFERENCE_CHAIN
+        CompactGraph graph = randomGraph(new Random(5), 300, 0.95, 0);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertSameGraph(graph, compressed);
+        assertSameGraph(graph, read(write(compressed)));
+    }
+
+    @Test
+    public void identicalListsAreReferenced() {
+        int n = 50;
+        int degree = 20;
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[n * degree];
+        String[] labels = new String[n];
+
+        for(int v = 0; v < n; v++) {
+            labels[v] = "v" + v;
+            offsets[v + 1] = offsets[v] + degree;
+
+            for(int j = 0; j < degree; j++) targets[v * degree + j] = 2 * j;
+        }
+
+        CompactGraph graph = new CompactGraph(labels, offsets, targets, new double[targets.length], true);
+        CompressedGraph compressed = CompressedGraph.of(graph);
+
+        assertSameGraph(graph, compressed);
+        //A copied list takes a few bytes against one per gap
+        assertTrue(compressed.bytes() < graph.edgesCount() / 2);
+    }
+
+    @Test
+    public void duplicateTargetsRoundTrip() throws IOException {
+        Random random = new Random(7);
+
+        for(int trial = 0; trial < 20; trial++) {
+            CompactGraph graph = randomGraph(random, 1 + random.nextInt(100), 0.7, 0.4);
+            CompressedGraph compressed = CompressedGraph.of(graph);
+
+            assertSameGraph(graph, compressed);
+            assertSameGraph(graph, read(write(compressed)));
+        }
+    }
+
+    @Test
+    public void emptyGraphRoundTrip() throws IOException {
+        CompactGraph graph = new CompactGraph(new String[] {"a", "b"}, new int[3], new int[0], new double[0], false);
+
+        assertSameGraph(graph, read(write(CompressedGraph.of(graph))));
+    }
+
+    @Test(expected = IOException.class)
+    public void wrongMagicIsRejected() throws IOException {
+        byte[] bytes = write(CompressedGraph.of(randomGraph(new Random(9), 10, 0.5, 0)));
+        bytes[0] ^= 1;
+
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeVertexCountIsRejected() throws IOException {
+        byte[] bytes = write(CompressedGraph.of(randomGraph(new Random(9), 10, 0.5, 0)));
+        //The vertex count follows the magic and the directed flag
+        bytes[5] = (byte) 0x80;
+
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownWeightStorageIsRejected() throws IOException {
+        byte[] bytes = write(CompressedGraph.of(randomGraph(new Random(9), 10, 0.5, 0)));
+        bytes[13] = 99;
+
+        read(bytes);
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedGraphIsRejected() throws IOException {
+        byte[] bytes = write(CompressedGraph.of(randomGraph(new Random(9), 10, 0.5, 0)));
+
+        read(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
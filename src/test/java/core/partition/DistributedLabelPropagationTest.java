@@ -0,0 +1,98 @@
+package core.partition;
+
+import core.graph.CompactGraph;
+import core.graph.UndirectedGraph;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DistributedLabelPropagationTest {
+    private static final int CLIQUES = 4;
+    private static final int CLIQUE_SIZE = 8;
+
+    /**
+     * Dense cliques joined in a ring by light edges, so every partition settles on one community per clique
+     */
+    private static CompactGraph cliques() {
+        UndirectedGraph graph = new UndirectedGraph();
+
+        for(int c = 0; c < CLIQUES; c++) {
+            for(int i = 0; i < CLIQUE_SIZE; i++) {
+                for(int j = i + 1; j < CLIQUE_SIZE; j++) graph.addEdge(label(c, i), label(c, j), 1);
+            }
+
+            graph.addEdge(label(c, 0), label((c + 1) % CLIQUES, 1), 0.1);
+        }
+
+        return CompactGraph.of(graph);
+    }
+
+    private static String label(int clique, int member) {
+        return "c" + clique + "m" + member;
+    }
+
+    /**
+     * Deals the vertices out in turn, so every clique is spread over all the shards
+     */
+    private static PartitionedGraph roundRobin(CompactGraph graph, int parts) {
+        int[] partOf = new int[graph.vertexCount()];
+
+        for(int v = 0; v < partOf.length; v++) partOf[v] = v % parts;
+
+        return new PartitionedGraph(graph, partOf, parts);
+    }
+
+    private static int[] run(PartitionedGraph partitioned, DistributedLabelPropagation.WorkerModes workerMode) throws Exception {
+        DistributedLabelPropagation propagation = new DistributedLabelPropagation(partitioned);
+        propagation.setWorkerMode(workerMode);
+
+        int[] communities = propagation.run();
+
+        assertTrue(propagation.getRounds() < DistributedLabelPropagation.DEFAULT_MAX_ROUNDS);
+
+        return communities;
+    }
+
+    private static void assertOneCommunityPerClique(CompactGraph graph, int[] communities) {
+        for(int c = 0; c < CLIQUES; c++) {
+            int community = communities[graph.id(label(c, 0))];
+
+            for(int i = 1; i < CLIQUE_SIZE; i++) assertEquals(community, communities[graph.id(label(c, i))]);
+
+            assertNotEquals(community, communities[graph.id(label((c + 1) % CLIQUES, 0))]);
+        }
+    }
+
+    private static void assertMatchesOneWorker(DistributedLabelPropagation.WorkerModes workerMode, int parts) throws Exception {
+        CompactGraph graph = cliques();
+        int[] expected = run(roundRobin(graph, 1), DistributedLabelPropagation.WorkerModes.THREADS);
+
+        assertOneCommunityPerClique(graph, expected);
+
+        PartitionedGraph partitioned = roundRobin(graph, parts);
+
+        //Every clique is cut, so its members only agree once the ghost updates went through
+        for(int p = 0; p < parts; p++) assertTrue(partitioned.getShard(p).ghostCount() > 0);
+
+        assertArrayEquals(expected, run(partitioned, workerMode));
+    }
+
+    @Test
+    public void threadsMatchOneWorker() throws Exception {
+        assertMatchesOneWorker(DistributedLabelPropagation.WorkerModes.THREADS, 3);
+        assertMatchesOneWorker(DistributedLabelPropagation.WorkerModes.THREADS, 5);
+    }
+
+    @Test
+    public void processesMatchOneWorker() throws Exception {
+        assertMatchesOneWorker(DistributedLabelPropagation.WorkerModes.PROCESSES, 3);
+    }
+
+    @Test
+    public void hashPartitionMatchesOneWorker() throws Exception {
+        CompactGraph graph = cliques();
+        int[] expected = run(roundRobin(graph, 1), DistributedLabelPropagation.WorkerModes.THREADS);
+
+        assertArrayEquals(expected, run(PartitionedGraph.of(graph, new HashPartitioner(), 4), DistributedLabelPropagation.WorkerModes.THREADS));
+    }
+}
@@ -0,0 +1,341 @@
+package utils.pipeline;
+
+import org.junit.Test;
+import utils.exceptions.GraphException;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class PipelineTest {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int BUFFER_SIZE = 4;
+
+    /**
+     * Counts the lines read from an iterator
+     */
+    private static final class CountingIterator implements Iterator<String> {
+        private final Iterator<String> lines;
+        private final AtomicLong read = new AtomicLong();
+
+        private CountingIterator(Iterator<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return lines.hasNext();
+        }
+
+        @Override
+        public String next() {
+            read.incrementAndGet();
+
+            return lines.next();
+        }
+    }
+
+    private static List<String> edges(int count) {
+        List<String> lines = new ArrayList<>(count);
+
+        for(int i = 0; i < count; i++) lines.add("v" + i + ",v" + (i + 1) + ",1");
+
+        return lines;
+    }
+
+    /**
+     * Repeats a line forever
+     */
+    private static Iterator<String> endless(String line) {
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                return line;
+            }
+        };
+    }
+
+    /**
+     * Sends one line, then blocks until it is closed, like a socket waiting for a peer that sends nothing more
+     */
+    private static LineSource blocking() {
+        CountDownLatch closed = new CountDownLatch(1);
+
+        return new LineSource() {
+            private boolean sent;
+
+            @Override
+            public String readLine() throws IOException {
+                if(!sent) {
+                    sent = true;
+
+                    return "a,b,1";
+                }
+
+                try {
+                    closed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                throw new IOException("Source closed");
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+    }
+
+    /**
+     * Waits for the pipeline threads to end, which they do once their executor is shut down
+     */
+    private static void awaitPipelineThreads() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while(Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals("pipeline"))) {
+            assertTrue("The pipeline threads are still running", System.nanoTime() < deadline);
+
+            Thread.sleep(10);
+        }
+    }
+
+    private static Throwable failure(Pipeline pipeline) throws InterruptedException, TimeoutException {
+        try {
+            pipeline.run((src, dest, weight) -> {}).get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+
+        fail("The pipeline should fail");
+
+        return null;
+    }
+
+    @Test
+    public void testSlowSinkHoldsBackSource() throws Exception {
+        int count = 100000;
+        int blockedAt = 1000;
+        CountingIterator lines = new CountingIterator(edges(count).iterator());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong consumed = new AtomicLong();
+
+        Pipeline pipeline = new Pipeline(LineSource.of(lines));
+        pipeline.setBatchSize(BATCH_SIZE);
+        pipeline.setBufferSize(BUFFER_SIZE);
+
+        CompletableFuture<Long> result = pipeline.run((src, dest, weight) -> {
+            if(consumed.incrementAndGet() == blockedAt) {
+                blocked.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        //Gives the source the time to run as far ahead as the buffers let it
+        Thread.sleep(300);
+
+        //At most a batch held and a buffer waiting per stage, plus the batch being filled
+        long bound = blockedAt + (long) (3 * (BUFFER_SIZE + 1) + 2) * BATCH_SIZE;
+
+        assertTrue("Read " + lines.read.get() + " lines", lines.read.get() <= bound);
+
+        release.countDown();
+
+        assertEquals(count, (long) result.get(10, TimeUnit.SECONDS));
+        assertEquals(count, lines.read.get());
+    }
+
+    @Test
+    public void testMissingFieldFails() throws Exception {
+        Pipeline pipeline = new Pipeline(LineSource.of(Arrays.asList("a,b,1", "a,b", "c,d,1").iterator()));
+
+        Throwable failure = failure(pipeline);
+
+        assertTrue(failure instanceof GraphException);
+        assertEquals("Malformed edge at line 2", failure.getMessage());
+    }
+
+    @Test
+    public void testBlankLinesAreCounted() throws Exception {
+        Pipeline pipeline = new Pipeline(LineSource.of(Arrays.asList("", "a,b,1", "", "", "c,d").iterator()));
+
+        Throwable failure = failure(pipeline);
+
+        assertTrue(failure instanceof GraphException);
+        assertEquals("Malformed edge at line 5", failure.getMessage());
+    }
+
+    @Test
+    public void testBlankLinesAreSkipped() throws Exception {
+        Pipeline pipeline = new Pipeline(LineSource.of(Arrays.asList("a,b,1", "", "c,d,1", "").iterator()));
+
+        assertEquals(2L, (long) pipeline.run((src, dest, weight) -> { }).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSourceFailureFails() throws Exception {
+        Iterator<String> lines = new Iterator<String>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if(++read == 3) throw new IllegalStateException("broken source");
+
+                return "a,b,1";
+            }
+        };
+
+        Throwable failure = failure(new Pipeline(LineSource.of(lines)));
+
+        assertTrue(failure instanceof GraphException);
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testMalformedWeightFails() throws Exception {
+        Pipeline pipeline = new Pipeline(LineSource.of(Arrays.asList("a,b,1", "a,b,x").iterator()));
+
+        Throwable failure = failure(pipeline);
+
+        assertTrue(failure instanceof GraphException);
+        assertEquals("Malformed edge at line 2", failure.getMessage());
+        assertTrue(failure.getCause() instanceof NumberFormatException);
+    }
+
+    @Test
+    public void testSinkFailureFails() throws Exception {
+        Pipeline pipeline = new Pipeline(LineSource.of(edges(10000).iterator()));
+        AtomicLong consumed = new AtomicLong();
+
+        CompletableFuture<Long> result = pipeline.run((src, dest, weight) -> {
+            if(consumed.incrementAndGet() == 5000) throw new IllegalStateException("stop");
+        });
+
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            fail("The pipeline should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(5000, consumed.get());
+    }
+
+    @Test
+    public void testCancelStopsReading() throws Exception {
+        CountingIterator lines = new CountingIterator(endless("a,b,1"));
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Long> result = new Pipeline(LineSource.of(lines)).run((src, dest, weight) -> started.countDown());
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(result.cancel(true));
+
+        //Lets the batches in flight drain
+        Thread.sleep(300);
+        long read = lines.read.get();
+        Thread.sleep(300);
+
+        assertEquals(read, lines.read.get());
+        assertTrue(result.isCancelled());
+    }
+
+    @Test
+    public void testCancelAndFailureLeaveNoStrayException() throws Exception {
+        List<Throwable> stray = new CopyOnWriteArrayList<>();
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> stray.add(e));
+
+        try {
+            for(int run = 0; run < 20; run++) {
+                //Cancelled, failed by the sink and failed by the parser while the source is still being read
+                CountDownLatch received = new CountDownLatch(1);
+                Pipeline waiting = new Pipeline(blocking());
+                waiting.setBatchSize(1);
+
+                CompletableFuture<Long> blocked = waiting.run((src, dest, weight) -> received.countDown());
+
+                assertTrue(received.await(10, TimeUnit.SECONDS));
+                assertTrue(blocked.cancel(true));
+
+                CountDownLatch started = new CountDownLatch(1);
+                CompletableFuture<Long> cancelled = new Pipeline(LineSource.of(endless("a,b,1")))
+                        .run((src, dest, weight) -> started.countDown());
+
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+                assertTrue(cancelled.cancel(true));
+
+                CompletableFuture<Long> failed = new Pipeline(LineSource.of(endless("a,b,1"))).run((src, dest, weight) -> {
+                    throw new IllegalStateException("stop");
+                });
+
+                try {
+                    failed.get(10, TimeUnit.SECONDS);
+                    fail("The pipeline should fail");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+
+                assertTrue(failure(new Pipeline(LineSource.of(endless("a,b")))) instanceof GraphException);
+            }
+
+            awaitPipelineThreads();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+
+        assertEquals(Collections.emptyList(), stray);
+    }
+
+    @Test
+    public void testCancelClosesBlockedSource() throws Exception {
+        try(ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            LineSource source = LineSource.socket(server.getInetAddress().getHostAddress(), server.getLocalPort());
+
+            CompletableFuture<Long> result = new Pipeline(source).run((src, dest, weight) -> {});
+
+            try(Socket sender = server.accept()) {
+                Writer writer = new OutputStreamWriter(sender.getOutputStream(), StandardCharsets.UTF_8);
+                writer.write("a,b,1\n");
+                writer.flush();
+
+                //The source now waits for a line that never comes
+                Thread.sleep(300);
+                assertTrue(result.cancel(true));
+
+                //The pipeline closed the connection to stop waiting
+                sender.setSoTimeout(10000);
+                assertEquals(-1, sender.getInputStream().read());
+            }
+        }
+    }
+}